@@ -2,6 +2,12 @@ package com.alefesilva.minhasfinancas.api.dto;
 
 import java.math.BigDecimal;
 
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,7 +18,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class LancamentoDTO {
-
+	
 	private Long id;
 	
 	private String descricao;
@@ -29,4 +35,51 @@ public class LancamentoDTO {
 	
 	private String status;
 	
+	/// Conversões usadas pelo LancamentoResource (custo medido no LancamentoConversaoBenchmark)
+	public static LancamentoDTO de(Lancamento lancamento) {
+		return LancamentoDTO.builder()
+				.id(lancamento.getId())
+				.descricao(lancamento.getDescricao())
+				.valor(lancamento.getValor())
+				.mes(lancamento.getMes())
+				.ano(lancamento.getAno())
+				.status(lancamento.getStatus() != null ? lancamento.getStatus().name() : null)
+				.tipo(lancamento.getTipo() != null ? lancamento.getTipo().name() : null)
+				.usuario(lancamento.getUsuario().getId()) // Id do proxy LAZY, não carrega o usuário
+				.build();
+	}
+	
+	public static LancamentoDTO de(ItemLancamento item) {
+		return LancamentoDTO.builder()
+				.id(item.getId())
+				.descricao(item.getDescricao())
+				.valor(item.getValor())
+				.mes(item.getMes())
+				.ano(item.getAno())
+				.status(item.getStatus() != null ? item.getStatus().name() : null)
+				.tipo(item.getTipo() != null ? item.getTipo().name() : null)
+				.usuario(item.getIdUsuario())
+				.build();
+	}
+	
+	/// O usuário já vem resolvido (referência ou entidade) por quem chama; o id do DTO não é copiado
+	public Lancamento paraLancamento(Usuario usuarioLancamento) {
+		Lancamento lancamento = new Lancamento();
+		lancamento.setDescricao(descricao);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setValor(valor);
+		lancamento.setUsuario(usuarioLancamento);
+		
+		if(tipo != null) {
+			lancamento.setTipo(TipoLancamento.valueOf(tipo));
+		}
+		
+		if(status != null) {
+			lancamento.setStatus(StatusLancamento.valueOf(status));
+		}
+		
+		return lancamento;
+	}
+	
 }
@@ -0,0 +1,31 @@
+package com.alefesilva.minhasfinancas.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/// Lançamentos de uma operação em lote: pela lista de ids ou pelo período (mês/ano inicial e final)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacaoLoteDTO {
+
+	private Long usuario;
+	
+	private String status;
+	
+	private List<Long> ids;
+	
+	private Integer mesInicial;
+	
+	private Integer anoInicial;
+	
+	private Integer mesFinal;
+	
+	private Integer anoFinal;
+	
+}
@@ -0,0 +1,14 @@
+package com.alefesilva.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoOperacaoLoteDTO {
+
+	private int afetados;
+	
+}
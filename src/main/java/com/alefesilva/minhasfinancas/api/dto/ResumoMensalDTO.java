@@ -0,0 +1,28 @@
+package com.alefesilva.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensalDTO {
+
+	private Integer ano;
+	
+	private Integer mes;
+	
+	private String tipo;
+	
+	private String status;
+	
+	private Long quantidade;
+	
+	private BigDecimal total;
+	
+}
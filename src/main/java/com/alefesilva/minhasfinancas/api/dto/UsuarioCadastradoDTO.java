@@ -0,0 +1,23 @@
+package com.alefesilva.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/// Dados do usuário devolvidos pela API (sem a senha)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsuarioCadastradoDTO {
+
+	private Long id;
+	
+	private String nome;
+	
+	private String email;
+	
+	private String ultimoLogin;
+	
+}
@@ -1,6 +1,8 @@
 package com.alefesilva.minhasfinancas.api.resource;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -8,29 +10,67 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.alefesilva.minhasfinancas.exception.TokenInvalidoException;
 import com.alefesilva.minhasfinancas.service.JwtService;
+import com.alefesilva.minhasfinancas.service.TokenVerificado;
+import com.alefesilva.minhasfinancas.service.impl.JwtTokenCache;
 import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+import com.alefesilva.minhasfinancas.service.impl.ValidadeTokenUsuario;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 public class JwtTokenFilter extends OncePerRequestFilter{
 	
+	// Mesmo perfil que o SecurityUserDetailsService atribui ao usuário carregado do banco
+	private static final List<GrantedAuthority> PERMISSOES = AuthorityUtils.createAuthorityList("ROLE_USER");
+	
+	private static final String METRICA = "seguranca.jwt.filtro";
+	
 	private JwtService jwtService;
 	
 	private SecurityUserDetailsService userDetailService;
 	
-	public JwtTokenFilter(JwtService jwtService, SecurityUserDetailsService userDetailService) {
+	private JwtTokenCache tokenCache;
+	
+	private ValidadeTokenUsuario validadeToken;
+	
+	private boolean autenticacaoPorClaims;
+	
+	// Tempo gasto só no filtro (sem o resto da requisição), pelo resultado: sem token, autenticado ou token recusado
+	private Timer tempoSemToken;
+	
+	private Timer tempoAutenticado;
+	
+	private Timer tempoRecusado;
+	
+	public JwtTokenFilter(JwtService jwtService, SecurityUserDetailsService userDetailService, JwtTokenCache tokenCache,
+						  ValidadeTokenUsuario validadeToken, boolean autenticacaoPorClaims, MeterRegistry registry) {
 		this.jwtService = jwtService;
 		this.userDetailService = userDetailService;
+		this.tokenCache = tokenCache;
+		this.validadeToken = validadeToken;
+		this.autenticacaoPorClaims = autenticacaoPorClaims;
+		this.tempoSemToken = Timer.builder(METRICA).tag("resultado", "sem_token").register(registry);
+		this.tempoAutenticado = Timer.builder(METRICA).tag("resultado", "autenticado").register(registry);
+		this.tempoRecusado = Timer.builder(METRICA).tag("resultado", "recusado").register(registry);
 	}
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 										throws ServletException, IOException {
 		
+	long inicio = System.nanoTime();
+	Timer tempo = tempoSemToken;
+	
 	// Vamos mandar o nome Authorization no HEADER
 	String authorization = request.getHeader("Authorization");
 		
@@ -38,11 +78,11 @@ public class JwtTokenFilter extends OncePerRequestFilter{
 	E ficará assim Bearer + token */
 	if(authorization != null && authorization.startsWith("Bearer")) {
 		String token = authorization.split(" ")[1]; // 1° posição é o nome Bearer e a 2° é o token em si
-		boolean isTokenValid = jwtService.isTokenValido(token); // Valida se o token é valido
+		TokenVerificado tokenVerificado = obterTokenVerificado(token);
+		tempo = tempoRecusado;
 		
-		if(isTokenValid) {
-			String login = jwtService.obterLoginUsuario(token);
-			UserDetails usuarioAutenticado = userDetailService.loadUserByUsername(login);
+		if(tokenVerificado != null && validadeToken.isTokenAceito(tokenVerificado)) {
+			UserDetails usuarioAutenticado = obterUsuarioAutenticado(tokenVerificado);
 			UsernamePasswordAuthenticationToken user =
 					new UsernamePasswordAuthenticationToken(usuarioAutenticado, null, usuarioAutenticado.getAuthorities()); //getAuthorities são as permissões de usuário
 			
@@ -51,13 +91,44 @@ public class JwtTokenFilter extends OncePerRequestFilter{
 			
 			//Pegando contexto do Spring security e jogando nessa autenticação
 			SecurityContextHolder.getContext().setAuthentication(user);
-			
+			tempo = tempoAutenticado;
 		}
 	}
+	tempo.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
 	
 	//Depois de interceptar a requisição dar continuidade na execução
 	filterChain.doFilter(request, response);
 	
 	}
+	
+	/// Primeiro procura o token no cache, só valida a assinatura (um único parse) se ainda não foi verificado ou se expirou
+	private TokenVerificado obterTokenVerificado(String token) {
+		TokenVerificado tokenVerificado = tokenCache.obter(token);
+		
+		if(tokenVerificado == null) {
+			try {
+				tokenVerificado = jwtService.verificarToken(token);
+				tokenCache.armazenar(token, tokenVerificado);
+			}catch(TokenInvalidoException e) {
+				return null; // Segue sem autenticação, o Spring Security barra as rotas protegidas
+			}
+		}
+		
+		return tokenVerificado;
+	}
+	
+	/* No modo por claims o usuário autenticado é montado com os dados do próprio token (já verificado), sem consulta
+	 * no banco a cada requisição. No modo antigo buscamos o usuário pelo email com o SecurityUserDetailsService.
+	 */
+	private UserDetails obterUsuarioAutenticado(TokenVerificado tokenVerificado) {
+		if(!autenticacaoPorClaims) {
+			return userDetailService.loadUserByUsername(tokenVerificado.getLogin());
+		}
+		
+		return User.withUsername(tokenVerificado.getLogin())
+				.password("") // A senha não faz parte do token e não é usada depois da autenticação
+				.authorities(PERMISSOES)
+				.build();
+	}
 
 }
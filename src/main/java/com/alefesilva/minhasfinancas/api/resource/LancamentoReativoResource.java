@@ -0,0 +1,136 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.alefesilva.minhasfinancas.api.dto.LancamentoDTO;
+import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
+import com.alefesilva.minhasfinancas.exception.RespostaInterrompidaException;
+import com.alefesilva.minhasfinancas.exception.ServicoSobrecarregadoException;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.service.LancamentoReativoService;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/*
+ * Versão não bloqueante das leituras do LancamentoResource e do saldo do UsuarioResource, para o painel (muitos
+ * clientes lentos ao mesmo tempo). Roda no mesmo servidor, pelo suporte do Spring MVC a tipos reativos: a thread do
+ * Tomcat é liberada assim que o método retorna e as consultas rodam no driver R2DBC, sem thread esperando o banco.
+ *
+ * As listas são NDJSON (um lançamento por linha), escritas conforme as linhas chegam do banco: cada item só é pedido
+ * ao banco depois que o anterior foi escrito, então um cliente lento segura a leitura em vez de acumular o resultado
+ * na memória. Diferente da API bloqueante não há paginação, o stream traz o resultado inteiro.
+ * A escrita de cada item no servlet é bloqueante (o Spring MVC não escreve de forma não bloqueante) e roda no pool
+ * limitado executorStreams (WebConfiguration), fora das threads do driver, e fica presa no máximo pelo
+ * server.tomcat.connection-timeout, que no Tomcat é também o tempo máximo de cada escrita bloqueada: um cliente que
+ * para de ler tem o stream abortado e devolve a thread ao pool. Com a fila do pool cheia o stream é recusado com 503
+ * antes de começar; qualquer erro depois do primeiro item (inclusive a fila encher no meio) derruba a conexão.
+ */
+@RestController
+@RequestMapping("/api/reativo")
+@RequiredArgsConstructor
+public class LancamentoReativoResource {
+	
+	private static final String USUARIO_NAO_ENCONTRADO =
+			"Não foi possível realizar a consulta. Usuário não encontrado para ID informado.";
+	
+	private static final String STREAMS_LOTADOS = "Muitas consultas em andamento, tente novamente em instantes.";
+	
+	private static final String STREAM_INTERROMPIDO = "Stream interrompido depois de enviar parte dos lançamentos: ";
+	
+	private final LancamentoReativoService service;
+	
+	private final ThreadPoolTaskExecutor executorStreams;
+	
+	/// Mesmos filtros do GET /api/lancamentos
+	@GetMapping(value = "/lancamentos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<LancamentoDTO> buscar(
+			@RequestParam(value = "descricao", required = false) String descricao,
+			@RequestParam(value = "mes", required = false) Integer mes,
+			@RequestParam(value = "ano", required = false) Integer ano,
+			@RequestParam(value = "tipo", required = false) TipoLancamento tipo,
+			@RequestParam("usuario") Long idUsuario
+			) {
+		Lancamento lancamentoFiltro = new Lancamento();
+		lancamentoFiltro.setDescricao(descricao);
+		lancamentoFiltro.setMes(mes);
+		lancamentoFiltro.setAno(ano);
+		lancamentoFiltro.setTipo(tipo);
+		lancamentoFiltro.setUsuario(Usuario.builder().id(idUsuario).build()); // Só o id, usado como filtro
+		
+		return responderLista(idUsuario, service.buscar(lancamentoFiltro).map(LancamentoDTO::de));
+	}
+
+	@GetMapping(value = "/lancamentos/periodo", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<LancamentoDTO> buscarPorPeriodo(
+			@RequestParam("mesInicial") Integer mesInicial,
+			@RequestParam("anoInicial") Integer anoInicial,
+			@RequestParam("mesFinal") Integer mesFinal,
+			@RequestParam("anoFinal") Integer anoFinal,
+			@RequestParam("usuarioId") Long idUsuario
+			) {
+		return responderLista(idUsuario, service.buscarPorPeriodo(idUsuario, mesInicial, anoInicial, mesFinal, anoFinal)
+				.map(LancamentoDTO::de));
+	}
+
+	@GetMapping("/usuarios/{id}/saldo")
+	public Mono<ResponseEntity<BigDecimal>> obterSaldo( @PathVariable("id") Long id ) {
+		return service.existeUsuario(id)
+				.flatMap(existe -> existe
+						? service.obterSaldoPorUsuario(id).map(ResponseEntity::ok)
+						: Mono.just(new ResponseEntity<BigDecimal>(HttpStatus.NOT_FOUND)));
+	}
+
+	/// Filtro inválido (ex: período), recusado antes de qualquer consulta
+	@ExceptionHandler(RegraNegocioException.class)
+	public ResponseEntity<String> tratarRegraNegocio(RegraNegocioException e) {
+		return ResponseEntity.badRequest()
+				.contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+				.body(e.getMessage());
+	}
+
+	@ExceptionHandler(ServicoSobrecarregadoException.class)
+	public ResponseEntity<String> tratarSobrecarga(ServicoSobrecarregadoException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+				.body(e.getMessage());
+	}
+
+	//O usuário é conferido antes do primeiro item: o erro chega ao tratarRegraNegocio enquanto a resposta ainda não
+	//começou. O publishOn com prefetch 1 entrega um item por vez no executorStreams, onde o MVC escreve
+	//(WebConfiguration) e só então pede o próximo. O status 200 sai junto com o primeiro item; a partir dali o erro
+	//vira RespostaInterrompidaException, que nenhum @ExceptionHandler trata (nem pela causa, por isso o erro original vai
+	//só na mensagem): chega ao Tomcat, que fecha a conexão sem o último chunk e o cliente sabe que a lista veio
+	//incompleta. Tratado, o erro terminaria a resposta como se estivesse completa.
+	private Flux<LancamentoDTO> responderLista(Long idUsuario, Flux<LancamentoDTO> itens) {
+		if(executorStreams.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+			return Flux.error(new ServicoSobrecarregadoException(STREAMS_LOTADOS));
+		}
+		AtomicBoolean respostaIniciada = new AtomicBoolean();
+		return service.existeUsuario(idUsuario)
+				.flatMapMany(existe -> existe ? itens : Flux.error(new RegraNegocioException(USUARIO_NAO_ENCONTRADO)))
+				.publishOn(Schedulers.fromExecutor(executorStreams), 1)
+				.doOnNext(item -> respostaIniciada.set(true))
+				.onErrorMap(e -> respostaIniciada.get(), e -> new RespostaInterrompidaException(STREAM_INTERROMPIDO + e));
+	}
+
+}
@@ -1,11 +1,28 @@
 package com.alefesilva.minhasfinancas.api.resource;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletRequest;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,15 +31,25 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.alefesilva.minhasfinancas.api.dto.AtualizaStatusDTO;
 import com.alefesilva.minhasfinancas.api.dto.LancamentoDTO;
+import com.alefesilva.minhasfinancas.api.dto.OperacaoLoteDTO;
+import com.alefesilva.minhasfinancas.api.dto.ResultadoOperacaoLoteDTO;
+import com.alefesilva.minhasfinancas.api.dto.ResumoMensalDTO;
 import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
 import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensal;
 import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.FormatoExportacao;
 import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
 import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.service.ExportacaoLancamentoService;
 import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.alefesilva.minhasfinancas.service.Pagina;
+import com.alefesilva.minhasfinancas.service.ResultadoLote;
 import com.alefesilva.minhasfinancas.service.UsuarioService;
 
 import lombok.RequiredArgsConstructor;
@@ -31,19 +58,33 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("/api/lancamentos")
 @RequiredArgsConstructor
 public class LancamentoResource {
-
+	
+	private static final String USUARIO_NAO_ENCONTRADO = "Usuário não encontrado para o ID informado.";
+	
+	private static final String EXPORTACOES_LOTADAS = "Muitas exportações em andamento, tente novamente em instantes.";
+	
 	private final LancamentoService service;
 	
 	private final UsuarioService usuarioService;
 	
+	private final ExportacaoLancamentoService exportacaoService;
+	
+	private final ThreadPoolTaskExecutor executorExportacao;
+	
+	@Value("${lancamento.lote.tamanho-maximo:5000}")
+	private int tamanhoMaximoLote;
+	
 	/// required false -> Torna não obrigatório passar tal valor.
+	/// Resultado paginado: ordenado por competência, limite de itens por página e cursor "proximo" para a página seguinte
 	@GetMapping
 	public ResponseEntity buscar(
 			@RequestParam(value = "descricao", required = false) String descricao,
 			@RequestParam(value = "mes", required = false) Integer mes,
 			@RequestParam(value = "ano", required = false) Integer ano,
 			@RequestParam(value = "tipo", required = false) TipoLancamento tipo,
-			@RequestParam("usuario") Long idUsuario
+			@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limite", required = false) Integer limite
 			) {
 		Lancamento lancamentoFiltro = new Lancamento();
 		lancamentoFiltro.setDescricao(descricao);
@@ -58,112 +99,272 @@ public class LancamentoResource {
 			lancamentoFiltro.setUsuario(usuario.get());
 		}
 		
-		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
-		return ResponseEntity.ok(lancamentos);
+		try {
+			Pagina<LancamentoDTO> lancamentos = service.buscarPagina(lancamentoFiltro, cursor, limite).map(LancamentoDTO::de);
+			return ResponseEntity.ok(lancamentos);
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	/// Autocomplete do campo descrição: descrições já usadas pelo usuário que começam com o texto digitado
+	@GetMapping("/descricoes")
+	public ResponseEntity<?> buscarDescricoes(
+			@RequestParam("usuario") Long idUsuario,
+			@RequestParam("prefixo") String prefixo,
+			@RequestParam(value = "limite", required = false) Integer limite
+			) {
+		try {
+			return ResponseEntity.ok(service.buscarDescricoes(idUsuario, prefixo, limite));
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	/// Exporta todos os lançamentos do filtro (mesmos filtros do buscar) em CSV ou NDJSON (um JSON por linha).
+	/// O arquivo é escrito na resposta conforme as linhas são lidas do banco, sem montar a lista inteira na memória.
+	/// Cada exportação ocupa uma thread do executorExportacao do começo ao fim; com o pool lotado é recusada com 503.
+	@GetMapping("/exportar")
+	public ResponseEntity<StreamingResponseBody> exportar(
+			@RequestParam(value = "descricao", required = false) String descricao,
+			@RequestParam(value = "mes", required = false) Integer mes,
+			@RequestParam(value = "ano", required = false) Integer ano,
+			@RequestParam(value = "tipo", required = false) TipoLancamento tipo,
+			@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "formato", defaultValue = "csv") String formato,
+			HttpServletRequest request
+			) {
+		FormatoExportacao formatoExportacao;
+		try {
+			formatoExportacao = FormatoExportacao.valueOf(formato.toUpperCase());
+		}catch(IllegalArgumentException e) {
+			return erroExportacao("Formato de exportação inválido, informe csv ou ndjson.");
+		}
+		
+		Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
+		if(!usuario.isPresent()) {
+			return erroExportacao("Não foi possível realizar a exportação. Usuário não encontrado para ID informado.");
+		}
+		
+		Lancamento lancamentoFiltro = new Lancamento();
+		lancamentoFiltro.setDescricao(descricao);
+		lancamentoFiltro.setMes(mes);
+		lancamentoFiltro.setAno(ano);
+		lancamentoFiltro.setTipo(tipo);
+		lancamentoFiltro.setUsuario(usuario.get());
+		
+		if(executorExportacao.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.header(HttpHeaders.RETRY_AFTER, "1")
+					.contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+					.body(saida -> saida.write(EXPORTACOES_LOTADAS.getBytes(StandardCharsets.UTF_8)));
+		}
+		WebAsyncUtils.getAsyncManager(request).setTaskExecutor(executorExportacao);
+		
+		StreamingResponseBody corpo = saida -> exportacaoService.exportar(lancamentoFiltro, formatoExportacao, saida);
+		
+		boolean csv = formatoExportacao == FormatoExportacao.CSV;
+		return ResponseEntity.ok()
+				.contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"lancamentos." + (csv ? "csv" : "ndjson") + "\"")
+				.body(corpo);
+	}
+	
+	/// O tipo de retorno precisa ser ResponseEntity<StreamingResponseBody> para o Spring escrever a resposta de forma
+	/// assíncrona, então os erros também vão como StreamingResponseBody (texto simples, como nas outras rotas)
+	private ResponseEntity<StreamingResponseBody> erroExportacao(String mensagem) {
+		return ResponseEntity.badRequest()
+				.contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+				.body(saida -> saida.write(mensagem.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	/// A fila encheu entre a verificação acima e o início da escrita: a exportação nem começa
+	@ExceptionHandler(TaskRejectedException.class)
+	public ResponseEntity<String> exportacaoRecusada(TaskRejectedException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.contentType(new MediaType("text", "plain", StandardCharsets.UTF_8))
+				.body(EXPORTACOES_LOTADAS);
 	}
 	
 	@GetMapping("{id}")
 	public ResponseEntity obterLancamentoPorId( @PathVariable("id") Long id ) {
 		return service.obterPorId(id)
-				.map( lancamento -> new ResponseEntity(converterParaDTO(lancamento), HttpStatus.OK) )
+				.map( lancamento -> new ResponseEntity(LancamentoDTO.de(lancamento), HttpStatus.OK) )
 				.orElseGet( () -> new ResponseEntity(HttpStatus.NOT_FOUND));
 	}
 	
-	private LancamentoDTO converterParaDTO(Lancamento lancamento) {
-		return LancamentoDTO.builder()
-				.id(lancamento.getId())
-				.descricao(lancamento.getDescricao())
-				.valor(lancamento.getValor())
-				.mes(lancamento.getMes())
-				.ano(lancamento.getAno())
-				.status(lancamento.getStatus().name())
-				.tipo(lancamento.getTipo().name())
-				.usuario(lancamento.getUsuario().getId())
-				.build();
-	}
-	
+	/// O usuário entra como referência (sem select na tabela de usuário); um id que não existe é recusado pela chave estrangeira
 	@PostMapping
 	public ResponseEntity salvar( @RequestBody LancamentoDTO dto ) {
 		try {
 			Lancamento entidade = converterParaObjetoLancamento(dto);
 			entidade = service.salvar(entidade);
-			return ResponseEntity.ok(entidade);
+			return ResponseEntity.ok(LancamentoDTO.de(entidade));
 		}catch(RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch(DataIntegrityViolationException e) {
+			if(!isUsuarioInexistente(e)) {
+				throw e;
+			}
+			return ResponseEntity.badRequest().body(USUARIO_NAO_ENCONTRADO);
 		}
 	}
 	
+	/// Só a chave estrangeira do usuário vira "usuário não encontrado"; qualquer outra violação (ex: descrição maior que a
+	/// coluna) segue como erro da aplicação. Comparado com contains porque o H2 devolve o nome junto com o resto da mensagem.
+	private static boolean isUsuarioInexistente(DataIntegrityViolationException e) {
+		for(Throwable causa = e; causa != null; causa = causa.getCause()) {
+			if(causa instanceof ConstraintViolationException) {
+				String chave = ((ConstraintViolationException) causa).getConstraintName();
+				return chave != null && chave.toLowerCase().contains(Lancamento.CHAVE_USUARIO);
+			}
+		}
+		return false;
+	}
+	
+	/// Importação de vários lançamentos numa requisição. As linhas válidas são gravadas e as inválidas voltam com o erro
+	/// de cada uma (linha = posição no array enviado).
+	@PostMapping("/lote")
+	public ResponseEntity<?> salvarLote( @RequestBody List<LancamentoDTO> dtos ) {
+		if(dtos.isEmpty() || dtos.size() > tamanhoMaximoLote) {
+			return ResponseEntity.badRequest().body("Envie de 1 a " + tamanhoMaximoLote + " lançamentos por lote.");
+		}
+		
+		List<ResultadoLote.Erro> erros = new ArrayList<>();
+		List<Lancamento> lancamentos = new ArrayList<>(dtos.size());
+		List<Integer> linhas = new ArrayList<>(dtos.size());
+		Map<Long, Optional<Usuario>> usuarios = new HashMap<>(); // Normalmente todo o lote é do mesmo usuário
+		
+		for(int linha = 0; linha < dtos.size(); linha++) {
+			try {
+				lancamentos.add(converterParaObjetoLancamento(dtos.get(linha),
+						id -> usuarios.computeIfAbsent(id, usuarioService::obterPorId)));
+				linhas.add(linha);
+			}catch(RegraNegocioException e) {
+				erros.add(new ResultadoLote.Erro(linha, e.getMessage()));
+			}catch(IllegalArgumentException e) { // valueOf de um tipo ou status que não existe
+				erros.add(new ResultadoLote.Erro(linha, "Informe um tipo e status de lançamento válidos."));
+			}
+		}
+		
+		ResultadoLote resultado = service.salvarLote(lancamentos);
+		for(ResultadoLote.Erro erro : resultado.getErros()) {
+			erros.add(new ResultadoLote.Erro(linhas.get(erro.getLinha()), erro.getMensagem()));
+		}
+		erros.sort(Comparator.comparingInt(ResultadoLote.Erro::getLinha));
+		
+		ResultadoLote resposta = new ResultadoLote(resultado.getGravados(), erros);
+		return new ResponseEntity<>(resposta, erros.isEmpty() ? HttpStatus.CREATED : HttpStatus.OK);
+	}
+	
 	/// Ex: localhost:8080/api/lancamentos/2 -> Esse 2 já é direcionado direto pra cá.
+	/// A existência do lançamento é conferida pelo próprio service, na mesma leitura usada para atualizar
 	@PutMapping("{id}")
 	public ResponseEntity atualizar( @PathVariable("id") Long id, @RequestBody LancamentoDTO dto) {
-		return service.obterPorId(id).map( entity -> { // Executa se encontrar o id
-			try {
-				Lancamento lancamento = converterParaObjetoLancamento(dto);
-				lancamento.setId(id); // Passa o ID do registro para atualizar
-				service.atualizar(lancamento);
-				return ResponseEntity.ok(lancamento);
-			}catch(RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
+		try {
+			Lancamento dados = converterParaObjetoLancamento(dto);
+			return ResponseEntity.ok(LancamentoDTO.de(service.atualizar(id, dados)));
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch(DataIntegrityViolationException e) {
+			if(!isUsuarioInexistente(e)) {
+				throw e;
 			}
-		}).orElseGet( () ->
-				new ResponseEntity("Lancamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+			return ResponseEntity.badRequest().body(USUARIO_NAO_ENCONTRADO);
+		}
 	}
 	
+	/// Um update só da coluna status, sem carregar o lançamento
 	@PutMapping("{id}/atualiza-status")
 	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto ) {
-		return service.obterPorId(id).map(entidade -> {
-			StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
-			
-			if(statusSelecionado == null) {
-				return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento, envia um status válido.");
-			}
-			
-			try {
-				entidade.setStatus(statusSelecionado);
-				service.atualizar(entidade);
-				return ResponseEntity.ok(entidade);
-			}catch(RegraNegocioException e) {
-				return ResponseEntity.badRequest().body(e.getMessage());
-			}
-		}).orElseGet(() -> 
-		new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST));
+		StatusLancamento statusSelecionado;
+		try {
+			statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
+		}catch(IllegalArgumentException | NullPointerException e) {
+			return ResponseEntity.badRequest().body("Não foi possível atualizar o status do lançamento, envia um status válido.");
+		}
+		
+		try {
+			return ResponseEntity.ok(LancamentoDTO.de(service.atualizarStatus(id, statusSelecionado)));
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	/// Altera o status de vários lançamentos do usuário de uma vez, pelos ids ou por período. Retorna quantos mudaram.
+	/// Ex: { "usuario": 1, "status": "EFETIVADO", "mesInicial": 5, "anoInicial": 2022, "mesFinal": 5, "anoFinal": 2022 }
+	@PutMapping("/atualiza-status")
+	public ResponseEntity<?> atualizarStatusLote( @RequestBody OperacaoLoteDTO dto ) {
+		StatusLancamento status;
+		try {
+			status = StatusLancamento.valueOf(dto.getStatus());
+		}catch(IllegalArgumentException | NullPointerException e) {
+			return ResponseEntity.badRequest().body("Não foi possível atualizar o status dos lançamentos, envie um status válido.");
+		}
+		
+		if(dto.getUsuario() == null) {
+			return ResponseEntity.badRequest().body("Informe um Usuário.");
+		}
+		
+		try {
+			int alterados = isPorPeriodo(dto)
+					? service.atualizarStatusPeriodo(dto.getUsuario(), dto.getMesInicial(), dto.getAnoInicial(),
+							dto.getMesFinal(), dto.getAnoFinal(), status)
+					: service.atualizarStatusLote(dto.getUsuario(), dto.getIds(), status);
+			return ResponseEntity.ok(new ResultadoOperacaoLoteDTO(alterados));
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	/// Exclui vários lançamentos do usuário de uma vez, pelos ids ou por período (mesmo corpo do atualiza-status, sem o status)
+	@DeleteMapping
+	public ResponseEntity<?> deletarLote( @RequestBody OperacaoLoteDTO dto ) {
+		if(dto.getUsuario() == null) {
+			return ResponseEntity.badRequest().body("Informe um Usuário.");
+		}
+		
+		try {
+			int excluidos = isPorPeriodo(dto)
+					? service.deletarPeriodo(dto.getUsuario(), dto.getMesInicial(), dto.getAnoInicial(), dto.getMesFinal(),
+							dto.getAnoFinal())
+					: service.deletarLote(dto.getUsuario(), dto.getIds());
+			return ResponseEntity.ok(new ResultadoOperacaoLoteDTO(excluidos));
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	private boolean isPorPeriodo(OperacaoLoteDTO dto) {
+		return dto.getIds() == null || dto.getIds().isEmpty();
 	}
 	
 	@DeleteMapping("{id}")
 	private ResponseEntity deletar( @PathVariable("id") Long id ) {
-		return service.obterPorId(id).map( entidade -> {
-			service.deletar(entidade);
+		try {
+			service.deletar(id);
 			return new ResponseEntity( HttpStatus.NO_CONTENT );
-		}).orElseGet( () -> 
-			new ResponseEntity("Lançamento não encontrado na base de dados.", HttpStatus.BAD_REQUEST)
-		);
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 	
 	private Lancamento converterParaObjetoLancamento(LancamentoDTO dto) {
+		return converterParaObjetoLancamento(dto, id -> Optional.of(usuarioService.obterReferencia(id)));
+	}
+	
+	private Lancamento converterParaObjetoLancamento(LancamentoDTO dto, Function<Long, Optional<Usuario>> buscarUsuario) {
 		
-		Lancamento lancamento = new Lancamento();
-		
-		//lancamento.setId(dto.getId());
-		lancamento.setDescricao(dto.getDescricao());
-		lancamento.setAno(dto.getAno());
-		lancamento.setMes(dto.getMes());
-		lancamento.setValor(dto.getValor());
-		
-		Usuario usuario = usuarioService
-				.obterPorId(dto.getUsuario())
-				.orElseThrow( () -> new RegraNegocioException("Usuário não encontrado para o ID informado.") );
-		
-		lancamento.setUsuario(usuario);
-		
-		if(dto.getTipo() != null) {
-			lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo()));
+		if(dto.getUsuario() == null) {
+			throw new RegraNegocioException("Informe um Usuário.");
 		}
 		
-		if(dto.getStatus() != null) {
-			lancamento.setStatus(StatusLancamento.valueOf(dto.getStatus()));
-		}
+		Usuario usuario = buscarUsuario
+				.apply(dto.getUsuario())
+				.orElseThrow( () -> new RegraNegocioException(USUARIO_NAO_ENCONTRADO) );
 		
-		return lancamento;
+		return dto.paraLancamento(usuario);
 		
 	}
 	
@@ -173,7 +374,9 @@ public class LancamentoResource {
 			@RequestParam(value = "mesAtual", required = true) Integer mesAtual,
 			@RequestParam(value = "mesFinal", required = true) Integer mesFinal,
 			@RequestParam(value = "anoFinal", required = true) Integer anoFinal,
-			@RequestParam(value = "usuarioId", required = true) Long usuarioId){
+			@RequestParam(value = "usuarioId", required = true) Long usuarioId,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limite", required = false) Integer limite){
 		
 		try {
 			Optional<Usuario> usuario = usuarioService.obterPorId(usuarioId);	
@@ -181,7 +384,8 @@ public class LancamentoResource {
 				return ResponseEntity.badRequest().body("Não foi possível realizar a consulta. Usuário não encontrado para ID informado.");
 			}
 			
-			List<Lancamento> lancamentos = service.buscarLancamentosPeriodo(usuarioId, mesAtual, mesFinal, anoAtual, anoFinal);
+			Pagina<LancamentoDTO> lancamentos = service.buscarLancamentosPeriodo(usuarioId, mesAtual, mesFinal, anoAtual,
+					anoFinal, cursor, limite).map(LancamentoDTO::de);
 			return ResponseEntity.ok(lancamentos);
 		}catch(RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
@@ -189,6 +393,37 @@ public class LancamentoResource {
 		
 	}
 	
+	/// Totais por mês, tipo e status do período, lidos da tabela de resumo mensal (ex: gráficos do dashboard)
+	@GetMapping("/resumo-mensal")
+	public ResponseEntity<?> obterResumoMensal(
+			@RequestParam(value = "mesInicial", required = true) Integer mesInicial,
+			@RequestParam(value = "anoInicial", required = true) Integer anoInicial,
+			@RequestParam(value = "mesFinal", required = true) Integer mesFinal,
+			@RequestParam(value = "anoFinal", required = true) Integer anoFinal,
+			@RequestParam(value = "usuarioId", required = true) Long usuarioId){
+		
+		try {
+			List<ResumoMensalDTO> resumos = service.obterResumoMensal(usuarioId, mesInicial, anoInicial, mesFinal, anoFinal)
+					.stream()
+					.map(this::converterParaDTO)
+					.collect(Collectors.toList());
+			return ResponseEntity.ok(resumos);
+		}catch(RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	private ResumoMensalDTO converterParaDTO(ResumoMensal resumo) {
+		return ResumoMensalDTO.builder()
+				.ano(resumo.getId().getAno())
+				.mes(resumo.getId().getMes())
+				.tipo(resumo.getId().getTipo().name())
+				.status(resumo.getId().getStatus().name())
+				.quantidade(resumo.getQuantidade())
+				.total(resumo.getTotal())
+				.build();
+	}
+	
 }
 
 
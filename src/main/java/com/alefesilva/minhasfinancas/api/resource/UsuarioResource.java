@@ -5,7 +5,11 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,13 +21,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.alefesilva.minhasfinancas.api.dto.TokenDTO;
+import com.alefesilva.minhasfinancas.api.dto.UsuarioCadastradoDTO;
 import com.alefesilva.minhasfinancas.api.dto.UsuarioDTO;
 import com.alefesilva.minhasfinancas.exception.ErroAutenticacao;
+import com.alefesilva.minhasfinancas.exception.MuitasTentativasException;
 import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
+import com.alefesilva.minhasfinancas.exception.ServicoSobrecarregadoException;
 import com.alefesilva.minhasfinancas.model.entity.Usuario;
 import com.alefesilva.minhasfinancas.service.JwtService;
 import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.alefesilva.minhasfinancas.service.SaldoDetalhado;
 import com.alefesilva.minhasfinancas.service.UsuarioService;
+import com.alefesilva.minhasfinancas.service.impl.LimitadorTentativasLogin;
 
 import lombok.RequiredArgsConstructor;
 
@@ -38,18 +47,32 @@ public class UsuarioResource {
 	
 	private final JwtService jwtService; //Lembrete: Por ter apenas uma implementação para essa interface, não preciso importar pelo impl
 	
+	private final LimitadorTentativasLogin limitadorTentativas;
+	
 	private final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
 	
 	@PostMapping("/autenticar")
-	public ResponseEntity<?> autenticar( @RequestBody UsuarioDTO dto ) { //? Pois pode retornar mais de um objeto
+	public ResponseEntity<?> autenticar( @RequestBody UsuarioDTO dto, HttpServletRequest request ) { //? Pois pode retornar mais de um objeto
+		String ip = request.getRemoteAddr();
 		try {
+			//Email ou IP com muitas falhas recentes é recusado antes de ir no banco e no BCrypt
+			limitadorTentativas.verificarBloqueio(dto.getEmail(), ip);
+			
 			Usuario usuarioAutenticado = service.autenticar(dto.getEmail(), dto.getSenha());
+			limitadorTentativas.registrarSucesso(dto.getEmail());
 			String token = jwtService.gerarToken(usuarioAutenticado); // Gera o token
 			TokenDTO tokenDTO = new TokenDTO(usuarioAutenticado.getNome(), token); // Instancia a classe TokenDTO, passando o nome do usuário autenticado e o token gerado
 			
 			return ResponseEntity.ok(tokenDTO);
 		}catch(ErroAutenticacao e) {
+			limitadorTentativas.registrarFalha(dto.getEmail(), ip);
 			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch(MuitasTentativasException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header(HttpHeaders.RETRY_AFTER, "60")
+					.body(e.getMessage());
+		}catch(ServicoSobrecarregadoException e) {
+			return servicoSobrecarregado(e);
 		}
 	}
 
@@ -66,12 +89,21 @@ public class UsuarioResource {
 		
 		try {
 			Usuario usuarioSalvo = service.salvarUsuario(usuario);
-			return new ResponseEntity<>(usuarioSalvo, HttpStatus.CREATED);
+			return new ResponseEntity<>(converterParaDTO(usuarioSalvo), HttpStatus.CREATED);
 		}catch(RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
+		}catch(ServicoSobrecarregadoException e) {
+			return servicoSobrecarregado(e);
 		}
 	}
 	
+	// 503 + Retry-After para o cliente tentar de novo depois, em vez de segurar a conexão esperando o BCrypt
+	private ResponseEntity<?> servicoSobrecarregado(ServicoSobrecarregadoException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(e.getMessage());
+	}
+	
 	@GetMapping("{id}/saldo")
 	public ResponseEntity<?> obterSaldo( @PathVariable("id") Long id ) {
 		Optional<Usuario> usuario = service.obterPorId(id);
@@ -84,10 +116,24 @@ public class UsuarioResource {
 		return ResponseEntity.ok(saldo);
 	}
 	
+	//Totais por tipo e status, saldo realizado (efetivados) e previsto (efetivados + pendentes)
+	@GetMapping("{id}/saldo/detalhado")
+	public ResponseEntity<?> obterSaldoDetalhado( @PathVariable("id") Long id ) {
+		if(!service.obterPorId(id).isPresent()) {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+		
+		SaldoDetalhado saldo = lancamentoService.obterSaldoDetalhadoPorUsuario(id);
+		return ResponseEntity.ok(saldo);
+	}
+	
 	@GetMapping
 	public ResponseEntity<?> listagemUsuariosCadastrados(){
 		try {
-			List<Usuario> listaUsuarios = service.retornaUsuariosCadastrados();
+			List<UsuarioCadastradoDTO> listaUsuarios = service.retornaUsuariosCadastrados()
+					.stream()
+					.map(this::converterParaDTO)
+					.collect(Collectors.toList());
 			return ResponseEntity.ok(listaUsuarios);
 		} catch (RegraNegocioException e) {
 			return ResponseEntity.badRequest().body(e.getMessage());
@@ -104,7 +150,7 @@ public class UsuarioResource {
 				
 				entidadeUsuario.setUltimoLogin(dataFormatada.toString());
 				service.atualizar(entidadeUsuario);
-				return ResponseEntity.ok(entidadeUsuario);
+				return ResponseEntity.ok(converterParaDTO(entidadeUsuario));
 			}catch(RegraNegocioException e) {
 				return ResponseEntity.badRequest().body(e.getMessage());
 			}
@@ -112,6 +158,15 @@ public class UsuarioResource {
 			new ResponseEntity<>("Erro ao atualizar status de último logout do usuário", HttpStatus.BAD_REQUEST));
 	}
 	
+	private UsuarioCadastradoDTO converterParaDTO(Usuario usuario) {
+		return UsuarioCadastradoDTO.builder()
+				.id(usuario.getId())
+				.nome(usuario.getNome())
+				.email(usuario.getEmail())
+				.ultimoLogin(usuario.getUltimoLogin())
+				.build();
+	}
+	
 }
 
 
@@ -0,0 +1,79 @@
+package com.alefesilva.minhasfinancas.config;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+
+/*
+ * DataSource do JPA declarado aqui, com as mesmas propriedades spring.datasource.* e spring.datasource.hikari.*.
+ * O Spring Boot deixa de criar o DataSource sozinho quando existe um ConnectionFactory do R2DBC (usado pela leitura
+ * reativa, ver LancamentoRepositoryReativo), mas a aplicação usa os dois: JDBC/JPA para tudo e R2DBC só nas leituras
+ * do LancamentoReativoResource.
+ */
+@Configuration
+@EnableConfigurationProperties({ DataSourceProperties.class, R2dbcProperties.class })
+public class BancoDadosConfiguration {
+	
+	private static final String PREFIXO_H2_MEMORIA = "jdbc:h2:mem:";
+	
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		if(StringUtils.hasText(properties.getName())) {
+			dataSource.setPoolName(properties.getName());
+		}
+		return dataSource;
+	}
+	
+	/*
+	 * ConnectionFactory do R2DBC no mesmo banco do JDBC, sem uma configuração a mais por ambiente: URL, usuário e senha
+	 * saem de spring.datasource.* (jdbc:postgresql://servidor/banco -> r2dbc:postgresql://servidor/banco), a não ser que
+	 * spring.r2dbc.* esteja informado. Pool com spring.r2dbc.pool.*.
+	 */
+	@Bean(destroyMethod = "dispose")
+	public ConnectionPool connectionFactory(DataSourceProperties dataSource, R2dbcProperties r2dbc) {
+		String url = StringUtils.hasText(r2dbc.getUrl()) ? r2dbc.getUrl() : urlR2dbc(dataSource.determineUrl());
+		ConnectionFactory banco = ConnectionFactoryBuilder.withUrl(url)
+				.username(StringUtils.hasText(r2dbc.getUsername()) ? r2dbc.getUsername() : dataSource.determineUsername())
+				.password(r2dbc.getPassword() != null ? r2dbc.getPassword() : dataSource.determinePassword())
+				.build();
+		
+		R2dbcProperties.Pool pool = r2dbc.getPool();
+		return new ConnectionPool(ConnectionPoolConfiguration.builder(banco)
+				.initialSize(pool.getInitialSize())
+				.maxSize(pool.getMaxSize())
+				.maxIdleTime(pool.getMaxIdleTime())
+				.build());
+	}
+	
+	/// jdbc:h2:mem:banco;OPCOES -> r2dbc:h2:mem:///banco;OPCOES, os demais só trocam o prefixo jdbc: por r2dbc:.
+	/// No H2 o INIT fica de fora: o JDBC já o executa no mesmo banco, e os espaços do comando não passam na URL do R2DBC.
+	static String urlR2dbc(String urlJdbc) {
+		if(urlJdbc.startsWith(PREFIXO_H2_MEMORIA)) {
+			String opcoes = Arrays.stream(urlJdbc.substring(PREFIXO_H2_MEMORIA.length()).split(";"))
+					.filter(opcao -> !opcao.toUpperCase().startsWith("INIT="))
+					.collect(Collectors.joining(";"));
+			return "r2dbc:h2:mem:///" + opcoes;
+		}
+		if(urlJdbc.startsWith("jdbc:")) {
+			return "r2dbc:" + urlJdbc.substring("jdbc:".length());
+		}
+		throw new IllegalStateException("URL do banco sem o prefixo jdbc:, informe spring.r2dbc.url: " + urlJdbc);
+	}
+
+}
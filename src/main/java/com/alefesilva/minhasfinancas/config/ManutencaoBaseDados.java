@@ -0,0 +1,202 @@
+package com.alefesilva.minhasfinancas.config;
+
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Tarefas de manutenção executadas na subida da aplicação.
+ * Antes do servidor web aceitar requisições: confere se a sequência de ids dos lançamentos está à frente dos ids já
+ * gravados, e impede a subida quando não está.
+ * Sempre: preenche a competência dos lançamentos antigos (não faz nada quando todos já estão preenchidos) e, no
+ * PostgreSQL, dá o nome da chave estrangeira de lancamento.id_usuario e cria em segundo plano os índices da busca
+ * por descrição.
+ * Quando informadas na linha de comando, ex: java -jar minhasfinancas.jar --reconstruir-resumo-mensal
+ * --alinhar-sequencia-lancamento
+ */
+@Slf4j
+@Component
+public class ManutencaoBaseDados implements ApplicationRunner {
+	
+	private final LancamentoRepository lancamentoRepository;
+	
+	private final AgregadoResumoMensal resumoMensal;
+	
+	private final JdbcTemplate jdbcTemplate;
+	
+	private final ApplicationArguments argumentos;
+	
+	public ManutencaoBaseDados(LancamentoRepository lancamentoRepository, AgregadoResumoMensal resumoMensal,
+							   JdbcTemplate jdbcTemplate, ApplicationArguments argumentos) {
+		this.lancamentoRepository = lancamentoRepository;
+		this.resumoMensal = resumoMensal;
+		this.jdbcTemplate = jdbcTemplate;
+		this.argumentos = argumentos;
+	}
+
+	/// Na criação do bean, e não no run(): os ApplicationRunner rodam com o servidor web já no ar, e uma sequência
+	/// atrasada já teria gravado lançamentos com ids repetidos (ou recusado com erro de chave primária)
+	@PostConstruct
+	public void prepararSequenciaLancamento() {
+		if(argumentos.containsOption("alinhar-sequencia-lancamento")) {
+			alinharSequenciaLancamento();
+		}
+		
+		verificarSequenciaLancamento();
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if(isPostgreSQL()) {
+			renomearChaveUsuarioLancamento();
+			
+			Thread criacao = new Thread(this::criarIndicesDescricao, "indices-descricao");
+			criacao.setDaemon(true);
+			criacao.start();
+		}
+		
+		int preenchidos = lancamentoRepository.preencherCompetencia();
+		if(preenchidos > 0) {
+			log.info("Competência preenchida em {} lançamento(s)", preenchidos);
+		}
+		
+		if(args.containsOption("reconstruir-resumo-mensal")) {
+			resumoMensal.reconstruir();
+		}
+	}
+
+	/*
+	 * Migração de uma vez só, para bancos de antes da troca de IDENTITY para sequência: os lançamentos gravados antes
+	 * usaram outro contador, então a sequência nova começa atrás deles (a subida sem a opção é recusada, ver
+	 * verificarSequenciaLancamento). O hibernate usa os ids (valor - 49 até valor) de
+	 * cada valor retornado pela sequência, por isso ela é reiniciada depois do maior id + 50.
+	 * Deve rodar com uma única instância no ar, antes de subir as demais: entre a leitura e o restart outra instância
+	 * pode reservar um bloco da sequência, que o restart voltaria e entregaria de novo (ids duplicados). Por isso não
+	 * roda a cada subida, só com a opção na linha de comando. Rodar de novo não faz nada quando a sequência já está à
+	 * frente (consultar o próximo valor descarta um bloco, o que só deixa um intervalo nos ids).
+	 */
+	void alinharSequenciaLancamento() {
+		Long maiorId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from financas.lancamento", Long.class);
+		
+		String proximoValor = isPostgreSQL()
+				? "select nextval('financas.lancamento_seq')"
+				: "select next value for financas.lancamento_seq";
+		Long valorSequencia = jdbcTemplate.queryForObject(proximoValor, Long.class);
+		
+		if(valorSequencia - Lancamento.TAMANHO_ALOCACAO_ID < maiorId) {
+			long reinicio = maiorId + Lancamento.TAMANHO_ALOCACAO_ID + 1;
+			jdbcTemplate.execute("alter sequence financas.lancamento_seq restart with " + reinicio);
+			log.info("Sequência de lançamentos reiniciada em {} (maior id gravado: {})", reinicio, maiorId);
+		}
+	}
+
+	/*
+	 * Só leitura, a cada subida: o último valor entregue pela sequência (sem consumir nenhum, ao contrário do nextval) e
+	 * o maior id gravado. O hibernate só usa ids até o último valor entregue, então um id acima dele foi gravado por
+	 * outro contador (IDENTITY de antes da sequência, insert manual...) e os próximos blocos da sequência vão repetir
+	 * ids. Nesse caso a aplicação não sobe: o alinhamento reinicia a sequência e precisa ser feito com uma única
+	 * instância no ar (ver alinharSequenciaLancamento).
+	 */
+	void verificarSequenciaLancamento() {
+		Long maiorId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from financas.lancamento", Long.class);
+		
+		//PostgreSQL: last_value é o último entregue depois do primeiro nextval (is_called); antes disso é o próximo.
+		//H2: base_value é sempre o próximo. Sequência que ainda não entregou nenhum valor conta como "início - 1".
+		String ultimoValor = isPostgreSQL()
+				? "select case when is_called then last_value else last_value - 1 end from financas.lancamento_seq"
+				: "select case when base_value = start_value then start_value - 1 else base_value - increment end "
+						+ "from information_schema.sequences "
+						+ "where sequence_schema = 'FINANCAS' and sequence_name = 'LANCAMENTO_SEQ'";
+		Long ultimoEntregue = jdbcTemplate.queryForObject(ultimoValor, Long.class);
+		
+		if(maiorId > ultimoEntregue) {
+			throw new IllegalStateException("A sequência financas.lancamento_seq (último valor " + ultimoEntregue
+					+ ") está atrás do maior id de lançamento gravado (" + maiorId + ") e os próximos inserts repetiriam "
+					+ "ids. Suba uma única instância com --alinhar-sequencia-lancamento antes das demais.");
+		}
+	}
+
+	/*
+	 * Bancos criados antes do nome explícito (Lancamento.CHAVE_USUARIO) têm a chave estrangeira de id_usuario com o nome
+	 * gerado pelo hibernate, que o ddl-auto não troca. Sem o nome certo o LancamentoResource não reconhece a gravação de
+	 * um usuário inexistente. A consulta ao catálogo é rápida e, depois do primeiro rename, não faz mais nada.
+	 */
+	private void renomearChaveUsuarioLancamento() {
+		List<String> chaves = jdbcTemplate.queryForList("select c.conname from pg_constraint c "
+				+ "join pg_class t on t.oid = c.conrelid join pg_namespace n on n.oid = t.relnamespace "
+				+ "where n.nspname = 'financas' and t.relname = 'lancamento' and c.contype = 'f'", String.class);
+		if(chaves.size() == 1 && !chaves.contains(Lancamento.CHAVE_USUARIO)) {
+			jdbcTemplate.execute("alter table financas.lancamento rename constraint \"" + chaves.get(0) + "\" to "
+					+ Lancamento.CHAVE_USUARIO);
+			log.info("Chave estrangeira {} de lancamento.id_usuario renomeada para {}", chaves.get(0),
+					Lancamento.CHAVE_USUARIO);
+		}
+	}
+
+	/*
+	 * Índices de expressão que o ddl-auto do hibernate não cria:
+	 * - Trigramas (extensão pg_trgm) em lower(descricao): a busca "contém" (lower(descricao) like '%texto%') da listagem
+	 * e da exportação deixa de ler a tabela inteira.
+	 * - (id_usuario, lower(descricao)) com text_pattern_ops: o autocomplete (like 'texto%') vira uma leitura de intervalo.
+	 * Criados com concurrently para não travar as gravações numa tabela grande, numa thread à parte: numa tabela grande
+	 * a criação leva minutos e a aplicação sobe sem esperar (a busca só fica lenta até o índice ficar pronto). Nenhuma
+	 * falha aqui derruba a aplicação, só fica o aviso no log.
+	 */
+	private void criarIndicesDescricao() {
+		criarIndice("idx_lancamento_usuario_descricao",
+				"on financas.lancamento (id_usuario, lower(descricao) text_pattern_ops)");
+		
+		try {
+			jdbcTemplate.execute("create extension if not exists pg_trgm");
+		}catch(DataAccessException e) {
+			log.warn("Extensão pg_trgm não criada, a busca por descrição vai ler a tabela inteira: {}", e.getMessage());
+			return;
+		}
+		criarIndice("idx_lancamento_descricao_trgm", "on financas.lancamento using gin (lower(descricao) gin_trgm_ops)");
+	}
+
+	/*
+	 * Um create index concurrently interrompido (queda da aplicação, deadlock, violação) deixa o índice no catálogo
+	 * marcado como inválido: o banco não usa, mas o "if not exists" o considera criado. Por isso o inválido é apagado e
+	 * criado de novo.
+	 */
+	private void criarIndice(String nome, String definicao) {
+		try {
+			List<Boolean> validos = jdbcTemplate.queryForList("select i.indisvalid from pg_index i "
+					+ "join pg_class c on c.oid = i.indexrelid join pg_namespace n on n.oid = c.relnamespace "
+					+ "where n.nspname = 'financas' and c.relname = ?", Boolean.class, nome);
+			if(validos.contains(Boolean.TRUE)) {
+				return;
+			}
+			if(!validos.isEmpty()) {
+				log.warn("Índice {} inválido (criação interrompida), criando de novo", nome);
+				jdbcTemplate.execute("drop index concurrently if exists financas." + nome);
+			}
+			
+			long inicio = System.currentTimeMillis();
+			jdbcTemplate.execute("create index concurrently if not exists " + nome + " " + definicao);
+			log.info("Índice {} criado em {} ms", nome, System.currentTimeMillis() - inicio);
+		}catch(DataAccessException e) {
+			log.warn("Índice {} não criado, a busca por descrição vai ler a tabela inteira: {}", nome, e.getMessage());
+		}
+	}
+
+	private boolean isPostgreSQL() {
+		String produto = jdbcTemplate.execute((ConnectionCallback<String>) conexao -> conexao.getMetaData().getDatabaseProductName());
+		return "PostgreSQL".equalsIgnoreCase(produto);
+	}
+
+}
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.Ordered;
@@ -22,7 +23,11 @@ import org.springframework.web.filter.CorsFilter;
 
 import com.alefesilva.minhasfinancas.api.resource.JwtTokenFilter;
 import com.alefesilva.minhasfinancas.service.JwtService;
+import com.alefesilva.minhasfinancas.service.impl.JwtTokenCache;
 import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+import com.alefesilva.minhasfinancas.service.impl.ValidadeTokenUsuario;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @EnableWebSecurity
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter{
@@ -33,19 +38,42 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter{
 	@Autowired
 	private JwtService jwtService;
 	
+	@Autowired
+	private JwtTokenCache jwtTokenCache;
+	
+	@Autowired
+	private ValidadeTokenUsuario validadeTokenUsuario;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	// claims -> usuário montado a partir do token / banco -> usuário buscado no banco a cada requisição
+	@Value("${jwt.autenticacao.modo:claims}")
+	private String modoAutenticacao;
+	
+	// Custo (log2 das rodadas) do BCrypt, cada +1 dobra o tempo do hash
+	@Value("${seguranca.bcrypt.custo:10}")
+	private int custoBcrypt;
+	
+	// /actuator/prometheus sem token. Desligado fora dos testes: liberar só quando o acesso já estiver limitado de
+	// outro jeito (rede interna, ou porta só para o actuator com management.server.port)
+	@Value("${seguranca.metricas.sem-token:false}")
+	private boolean metricasSemToken;
+	
 	@Bean
 	public PasswordEncoder passwordEncoder() {
 		/* Uma dos algoritmos de autenticaçao mais seguros de criptogafia do Spring Security.
 		 * Ao contrário do MD5 que sempre cria o mesmo hash, o BCripy sempre cria um hash diferente para comparar.
 		 * Bean é para colocar no contexto do Spring, nesse caso conseguimos utilizar esse em outros lugares
 		 */
-		PasswordEncoder encoder = new BCryptPasswordEncoder();
+		PasswordEncoder encoder = new BCryptPasswordEncoder(custoBcrypt);
 		return encoder;
 	}
 	
 	@Bean
 	public JwtTokenFilter jwtTokenFilter() {
-		return new JwtTokenFilter(jwtService, userDetailsService);
+		return new JwtTokenFilter(jwtService, userDetailsService, jwtTokenCache, validadeTokenUsuario,
+				"claims".equalsIgnoreCase(modoAutenticacao), meterRegistry);
 	}
 	
 	@Override
@@ -67,6 +95,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter{
 		.antMatchers(HttpMethod.POST, "/api/usuarios/autenticar").permitAll() 
 		.antMatchers(HttpMethod.POST, "/api/usuarios").permitAll()
 		.antMatchers("/h2-console/**").permitAll() 
+		.antMatchers(HttpMethod.GET, "/actuator/health").permitAll() //Health check, sem token
+		.antMatchers(HttpMethod.GET, "/actuator/prometheus").access(metricasSemToken ? "permitAll" : "authenticated")
 		.anyRequest().authenticated()
 		.and()
 		/*Quando usuário autentica na API grava na sessão e nas demais não pede mais autenticação, esse trecho faz com que 
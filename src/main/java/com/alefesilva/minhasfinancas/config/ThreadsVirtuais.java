@@ -0,0 +1,41 @@
+package com.alefesilva.minhasfinancas.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Acesso às threads virtuais (Java 21) por reflexão, assim o projeto continua compilando com o java.version do pom e só
+ * quem liga execucao.threads-virtuais precisa rodar num Java 21 ou superior.
+ */
+public final class ThreadsVirtuais {
+	
+	private ThreadsVirtuais() {
+	}
+
+	public static boolean disponiveis() {
+		try {
+			criarExecutor("teste-").shutdown();
+			return true;
+		}catch(IllegalStateException e) {
+			return false;
+		}
+	}
+
+	/// Executor que cria uma thread virtual por tarefa, com nomes prefixo0, prefixo1...
+	public static ExecutorService criarExecutor(String prefixo) {
+		try {
+			Class<?> tipoBuilder = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = tipoBuilder.getMethod("name", String.class, long.class).invoke(builder, prefixo, 0L);
+			ThreadFactory fabrica = (ThreadFactory) tipoBuilder.getMethod("factory").invoke(builder);
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+					.invoke(null, fabrica);
+		}catch(ReflectiveOperationException e) {
+			//Java anterior ao 19 (método não existe) ou 19/20 sem --enable-preview (UnsupportedOperationException)
+			throw new IllegalStateException("Threads virtuais precisam do Java 21 ou superior (em execução: Java "
+					+ Runtime.version().feature() + ")", e);
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.alefesilva.minhasfinancas.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Modo opcional (execucao.threads-virtuais = true, precisa do Java 21): as requisições do Tomcat rodam em threads
+ * virtuais, uma por tarefa, em vez do pool de 200 threads do Tomcat. Uma requisição parada no JDBC não prende mais uma
+ * thread da plataforma, então o limite real de concorrência passa a ser o pool de conexões do Hikari
+ * (spring.datasource.hikari.maximum-pool-size): quem não consegue conexão espera até o connection-timeout e recebe erro.
+ * As respostas assíncronas (exportação e itens da API reativa) continuam nos pools limitados da WebConfiguration.
+ *
+ * O BCrypt continua no pool próprio da CriptografiaSenha (threads da plataforma, uma por núcleo, fila limitada), por
+ * ser trabalho de CPU, que threads virtuais não aceleram. Os jobs @Scheduled também continuam no agendador do Spring.
+ *
+ * O ganho ainda não foi medido (o ambiente do projeto roda Java 17) e pode não aparecer: o driver do PostgreSQL desta
+ * versão do Spring Boot (42.3.x) usa synchronized em torno das chamadas ao banco, o que prende a thread virtual à
+ * thread da plataforma enquanto espera. Ligar só depois de comparar os dois modos no Java 21 com o
+ * ComparacaoThreadsVirtuais (src/test/java/.../desempenho, profile carga).
+ * Ligado num Java anterior ao 21 a aplicação não sobe, em vez de continuar no pool do Tomcat sem avisar.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "execucao.threads-virtuais", havingValue = "true")
+public class ThreadsVirtuaisConfiguration {
+	
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService executorThreadsVirtuais() {
+		ExecutorService executor;
+		try {
+			executor = ThreadsVirtuais.criarExecutor("requisicao-virtual-");
+		}catch(IllegalStateException e) {
+			log.error("execucao.threads-virtuais = true: {}. Desligue a propriedade ou use o Java 21", e.getMessage());
+			throw e;
+		}
+		log.info("Requisições executadas em threads virtuais");
+		return executor;
+	}
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> tomcatThreadsVirtuais(ExecutorService executorThreadsVirtuais) {
+		return protocolHandler -> protocolHandler.setExecutor(executorThreadsVirtuais);
+	}
+
+}
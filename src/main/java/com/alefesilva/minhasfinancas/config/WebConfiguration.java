@@ -1,6 +1,11 @@
 package com.alefesilva.minhasfinancas.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -13,8 +18,62 @@ public class WebConfiguration implements WebMvcConfigurer{
 	 * @Configuration para que o springBoot reconheça essa classe como sendo de configuração.
 	 */
 	
+	@Value("${execucao.respostas-assincronas.timeout:600000}")
+	private long tempoMaximoRespostaAssincrona;
+	
+	@Value("${execucao.exportacao.threads:4}")
+	private int threadsExportacao;
+	
+	@Value("${execucao.exportacao.fila:20}")
+	private int filaExportacao;
+	
+	@Value("${execucao.streams.threads:16}")
+	private int threadsStreams;
+	
+	@Value("${execucao.streams.fila:500}")
+	private int filaStreams;
+	
 	@Override
 	public void addCorsMappings( CorsRegistry registry ) {
 		registry.addMapping("/**").allowedMethods("GET","POST","PUT","DELETE","OPTIONS");
 	}
+	
+	/*
+	 * Respostas assíncronas. Com o @EnableWebMvc o Spring Boot não configura o MVC, então sem isto cada resposta abriria
+	 * uma thread nova (SimpleAsyncTaskExecutor) e o tempo máximo seria o do Tomcat.
+	 * As escritas no servlet são bloqueantes: a thread fica presa enquanto o cliente não recebe os bytes. Por isso
+	 * exportação e streams têm cada um o seu pool, limitado e com fila limitada, e um cliente lento de um não segura o
+	 * outro. O executor padrão do MVC roda na própria thread que chama: quem escolhe a thread é a rota, a exportação
+	 * indica o executorExportacao na requisição e a API reativa entrega os itens já no executorStreams (publishOn).
+	 * Cada escrita bloqueada dura no máximo o server.tomcat.connection-timeout; passado esse tempo o Tomcat aborta a
+	 * conexão e a thread volta ao pool.
+	 */
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(new TaskExecutorAdapter(Runnable::run));
+		configurer.setDefaultTimeout(tempoMaximoRespostaAssincrona);
+	}
+	
+	/// Uma thread por exportação do começo ao fim (lendo do banco e escrevendo o arquivo)
+	@Bean
+	public ThreadPoolTaskExecutor executorExportacao() {
+		return criarExecutor(threadsExportacao, filaExportacao, "exportacao-");
+	}
+	
+	/// A thread só é ocupada enquanto escreve um item (no máximo o connection-timeout do Tomcat); cada stream tem no
+	/// máximo um item esperando na fila
+	@Bean
+	public ThreadPoolTaskExecutor executorStreams() {
+		return criarExecutor(threadsStreams, filaStreams, "stream-");
+	}
+	
+	/// Fila cheia: a tarefa é recusada (TaskRejectedException) em vez de acumular
+	private ThreadPoolTaskExecutor criarExecutor(int threads, int fila, String prefixo) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setQueueCapacity(fila);
+		executor.setThreadNamePrefix(prefixo);
+		return executor;
+	}
 }
@@ -0,0 +1,10 @@
+package com.alefesilva.minhasfinancas.exception;
+
+public class MuitasTentativasException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public MuitasTentativasException(String msg) {
+		super(msg);
+	}
+}
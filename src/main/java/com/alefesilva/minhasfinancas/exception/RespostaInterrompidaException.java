@@ -0,0 +1,10 @@
+package com.alefesilva.minhasfinancas.exception;
+
+public class RespostaInterrompidaException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public RespostaInterrompidaException(String msg) {
+		super(msg);
+	}
+}
@@ -0,0 +1,10 @@
+package com.alefesilva.minhasfinancas.exception;
+
+public class ServicoSobrecarregadoException extends RuntimeException{
+	
+	private static final long serialVersionUID = 1L;
+	
+	public ServicoSobrecarregadoException(String msg) {
+		super(msg);
+	}
+}
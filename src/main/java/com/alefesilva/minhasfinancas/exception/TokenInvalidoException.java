@@ -0,0 +1,23 @@
+package com.alefesilva.minhasfinancas.exception;
+
+public class TokenInvalidoException extends RuntimeException{
+
+	private static final long serialVersionUID = 1L;
+	
+	public enum Motivo {
+		EXPIRADO,
+		ASSINATURA_INVALIDA,
+		MALFORMADO
+	}
+	
+	private final Motivo motivo;
+
+	public TokenInvalidoException(Motivo motivo, String msg) {
+		super(msg);
+		this.motivo = motivo;
+	}
+	
+	public Motivo getMotivo() {
+		return motivo;
+	}
+}
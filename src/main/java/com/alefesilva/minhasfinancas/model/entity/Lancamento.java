@@ -8,11 +8,17 @@ import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
@@ -23,47 +29,80 @@ import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
-@Table(name = "lancamento", schema = "financas")
+@Table(name = "lancamento", schema = "financas", indexes = {
+		//Consultas por período do usuário viram uma única faixa contínua nesse índice
+		@Index(name = "idx_lancamento_usuario_competencia", columnList = "id_usuario, competencia")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Lancamento {
-
+	
+	/// Quantos ids o hibernate reserva de uma vez na sequência (otimizador pooled). Com IDENTITY cada insert precisava
+	/// voltar do banco com o id, o que impede o envio dos inserts em lote (hibernate.jdbc.batch_size).
+	public static final int TAMANHO_ALOCACAO_ID = 50;
+	
+	/// Nome da chave estrangeira de id_usuario, usado para reconhecer a gravação de um usuário que não existe
+	public static final String CHAVE_USUARIO = "fk_lancamento_usuario";
+	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_seq")
+	@SequenceGenerator(name = "lancamento_seq", sequenceName = "lancamento_seq", schema = "financas",
+			allocationSize = TAMANHO_ALOCACAO_ID)
 	@Column(name = "id")
 	private Long id;
 	
 	@Column(name = "descricao")
 	private String descricao;
-
+	
 	@Column(name = "mes")
 	private Integer mes;
-
+	
 	@Column(name = "ano")
 	private Integer ano;
-
-	@ManyToOne
-	@JoinColumn(name = "id_usuario")
+	
+	/// ano * 100 + mes (ex: 202211), calculado ao gravar. Permite filtrar um período que atravessa o ano (11/2022 a 02/2023)
+	@Column(name = "competencia")
+	private Integer competencia;
+	
+	/// LAZY: a maioria das consultas só precisa do id do usuário, que já está na chave estrangeira (lancamento.getUsuario()
+	/// .getId() não carrega o usuário). Quem precisar dos dados do usuário declara o fetch na consulta do repository.
+	/// Fora do toString/equals/hashCode, pois o usuário pode ser só uma referência (proxy) sem sessão aberta.
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "id_usuario", foreignKey = @ForeignKey(name = CHAVE_USUARIO))
 	private Usuario usuario;
-
+	
 	@Column(name = "valor")
 	private BigDecimal valor;
-
+	
 	@Builder.Default
 	@Column(name = "data_cadastro")
 	private LocalDate dataCadastro = LocalDate.now();
-
+	
 	@Column(name = "tipo")
 	@Enumerated(value = EnumType.STRING)
 	private TipoLancamento tipo;
-
+	
 	@Column(name = "status")
 	@Enumerated(value = EnumType.STRING)
 	private StatusLancamento status;
+	
+	@PrePersist
+	@PreUpdate
+	public void atualizarCompetencia() {
+		competencia = calcularCompetencia(ano, mes);
+	}
+
+	public static Integer calcularCompetencia(Integer ano, Integer mes) {
+		return ano == null || mes == null ? null : ano * 100 + mes;
+	}
 
 }
@@ -0,0 +1,66 @@
+package com.alefesilva.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/*
+ * Quantidade e soma dos lançamentos por usuário/ano/mês/tipo/status, mantidos a cada gravação de lançamento.
+ * Um gráfico mensal de 10 anos lê no máximo 120 meses x tipos x status linhas, independente de quantos lançamentos
+ * o usuário tenha.
+ *
+ * Implementa Persistable porque a chave é informada por nós: sem isso o save do Spring faria um select antes de cada
+ * insert (merge), o que pesa na reconstrução da tabela.
+ */
+@Entity
+@Table(name = "resumo_mensal", schema = "financas")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class ResumoMensal implements Persistable<ResumoMensalId> {
+	
+	@EmbeddedId
+	private ResumoMensalId id;
+	
+	@Column(name = "quantidade")
+	private Long quantidade;
+	
+	@Column(name = "total")
+	private BigDecimal total;
+	
+	@Transient
+	@ToString.Exclude
+	private boolean novo = true;
+	
+	public ResumoMensal(ResumoMensalId id, Long quantidade, BigDecimal total) {
+		this.id = id;
+		this.quantidade = quantidade;
+		this.total = total;
+	}
+
+	@Override
+	public boolean isNew() {
+		return novo;
+	}
+
+	@PostLoad
+	@PostPersist
+	void marcarComoGravado() {
+		this.novo = false;
+	}
+
+}
@@ -52,5 +52,10 @@ public class Usuario { /// NoArgs (Cria Construtor sem argumento) / AllArgs (Cri
 	
 	@Column(name = "ultimoLogin")
 	private String ultimoLogin;
+	
+	/// Tokens emitidos até este instante (epoch millis) são recusados, ex: depois do logout (ver ValidadeTokenUsuario)
+	@Column(name = "tokens_invalidados_em")
+	@JsonIgnore
+	private Long tokensInvalidadosEm;
 
 }
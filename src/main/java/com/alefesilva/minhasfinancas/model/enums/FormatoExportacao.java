@@ -0,0 +1,6 @@
+package com.alefesilva.minhasfinancas.model.enums;
+
+public enum FormatoExportacao {
+	CSV,
+	NDJSON
+}
@@ -1,38 +1,197 @@
 package com.alefesilva.minhasfinancas.model.repository;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.alefesilva.minhasfinancas.model.entity.Lancamento;
 import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
 import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.TotalMensal;
+import com.alefesilva.minhasfinancas.model.repository.projection.TotalPorTipoEStatus;
+import com.alefesilva.minhasfinancas.model.repository.projection.ValoresLancamento;
 
-public interface LancamentoRepository extends JpaRepository<Lancamento, Long>{
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long>, LancamentoRepositoryCustom{
 	//Não é necessário a utilização do ON tabelaUsuário, pois o hibernate pegando a chave estrangeira usuário já faz a referência.
+	//O usuário do lançamento é LAZY e nenhuma consulta abaixo precisa dos dados dele, apenas do id (l.usuario.id, que é a
+	//própria chave estrangeira). Uma consulta que precisar do usuário declara o fetch nela mesma, com
+	//@EntityGraph(attributePaths = "usuario") ou "join fetch l.usuario", em vez de voltar o relacionamento para EAGER.
 	//JPQL -> Linguagem usada para realizar a consulta abaixo. é uma linguagem de consulta orientada a objeto independente de 
 	//plataforma definida como parte da especificação Jakarta Persistence. O JPQL é usado para fazer consultas em entidades 
 	//armazenadas em um banco de dados relacional.
 	
-	@Query( value = 
-			"select sum(l.valor) from Lancamento l join l.usuario u "
-		  + "where u.id = :idUsuario and l.tipo = :tipo and l.status = :status group by u")
-	BigDecimal obterSaldoPorTipoLancamentoEUsuarioEStatus( 
-			@Param("idUsuario") Long idUsuario, 
-			@Param("tipo") TipoLancamento tipo ,
+	//Todos os totais do usuário (tipo x status) numa única leitura agrupada. Filtrando pela chave estrangeira
+	//l.usuario.id o hibernate não precisa fazer join com a tabela de usuário.
+	@Query( value =
+			"select l.tipo as tipo, l.status as status, sum(l.valor) as total, count(l) as quantidade "
+		  + "from Lancamento l where l.usuario.id = :idUsuario group by l.tipo, l.status")
+	List<TotalPorTipoEStatus> obterTotaisPorTipoEStatus(@Param("idUsuario") Long idUsuario);
+	
+	
+	//Paginação por cursor (keyset): a página seguinte começa depois do último (competencia, id) retornado.
+	//O Pageable é usado apenas como limite de linhas (primeira página, sem count), ex: PageRequest.of(0, 51).
+	@Query( value =
+			"select l from Lancamento l where l.usuario.id = :idUsuario "
+		  + "and l.competencia between :competenciaInicial and :competenciaFinal "
+		  + "and (l.competencia > :cursorCompetencia or (l.competencia = :cursorCompetencia and l.id > :cursorId)) "
+		  + "order by l.competencia, l.id")
+	List<Lancamento> obterLancamentosPorUsuarioECompetencia(
+			@Param("idUsuario") Long idUsuario,
+			@Param("competenciaInicial") Integer competenciaInicial,
+			@Param("competenciaFinal") Integer competenciaFinal,
+			@Param("cursorCompetencia") Integer cursorCompetencia,
+			@Param("cursorId") Long cursorId,
+			Pageable limite);
+	
+	//Autocomplete: descrições já usadas pelo usuário que começam com o prefixo (parâmetro de padraoPrefixo).
+	//No PostgreSQL usa o índice (id_usuario, lower(descricao)) criado pela ManutencaoBaseDados.
+	@Query( value =
+			"select l.descricao from Lancamento l where l.usuario.id = :idUsuario "
+		  + "and lower(l.descricao) like :prefixo escape '\\' "
+		  + "group by l.descricao order by l.descricao")
+	List<String> buscarDescricoes(
+			@Param("idUsuario") Long idUsuario,
+			@Param("prefixo") String prefixo,
+			Pageable limite);
+	
+	//Como o lançamento está gravado no banco, antes da alteração. O flushMode COMMIT evita que o hibernate grave
+	//antes da consulta as alterações já feitas na entidade (ex: status alterado no resource), que é justamente
+	//o valor antigo que queremos comparar.
+	//Esta consulta e as duas abaixo só são usadas para gravar, então travam a linha (select ... for update) até o fim
+	//da transação: duas gravações simultâneas do mesmo lançamento (ou uma operação em lote) não leem o mesmo valor
+	//antigo e somam a mesma diferença duas vezes nos agregados.
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+	@Query( value =
+			"select new com.alefesilva.minhasfinancas.model.repository.projection.ValoresLancamento("
+		  + "l.usuario.id, l.ano, l.mes, l.tipo, l.status, l.valor) from Lancamento l where l.id = :id")
+	Optional<ValoresLancamento> obterValoresGravados(@Param("id") Long id);
+	
+	//Um lançamento pelo id sem carregar a entidade, usado na troca de status (que não precisa do lançamento gerenciado)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query( value =
+			"select new com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento("
+		  + "l.id, l.descricao, l.mes, l.ano, l.competencia, l.valor, l.tipo, l.status, l.usuario.id) "
+		  + "from Lancamento l where l.id = :id")
+	Optional<ItemLancamento> obterItem(@Param("id") Long id);
+	
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select l from Lancamento l where l.id = :id")
+	Optional<Lancamento> bloquear(@Param("id") Long id);
+	
+	//Usuários com algum lançamento, usado na reconciliação do saldo materializado
+	@Query("select distinct l.usuario.id from Lancamento l")
+	List<Long> obterIdsUsuarios();
+	
+	//Totais mensais (usuário/ano/mês/tipo/status), usados para montar a tabela resumo_mensal
+	@Query( value =
+			"select l.usuario.id as idUsuario, l.ano as ano, l.mes as mes, l.tipo as tipo, l.status as status, "
+		  + "count(l) as quantidade, sum(l.valor) as total from Lancamento l "
+		  + "group by l.usuario.id, l.ano, l.mes, l.tipo, l.status")
+	List<TotalMensal> obterTotaisMensais();
+	
+	@Query( value =
+			"select l.usuario.id as idUsuario, l.ano as ano, l.mes as mes, l.tipo as tipo, l.status as status, "
+		  + "count(l) as quantidade, sum(l.valor) as total from Lancamento l where l.usuario.id = :idUsuario "
+		  + "group by l.usuario.id, l.ano, l.mes, l.tipo, l.status")
+	List<TotalMensal> obterTotaisMensaisPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	@Query( value =
+			"select l.usuario.id as idUsuario, l.ano as ano, l.mes as mes, l.tipo as tipo, l.status as status, "
+		  + "count(l) as quantidade, sum(l.valor) as total from Lancamento l where l.usuario.id = :idUsuario "
+		  + "and l.ano = :ano and l.mes = :mes and l.tipo = :tipo and l.status = :status "
+		  + "group by l.usuario.id, l.ano, l.mes, l.tipo, l.status")
+	Optional<TotalMensal> obterTotalMensal(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("tipo") TipoLancamento tipo,
 			@Param("status") StatusLancamento status);
 	
+	//Preenche a competência de lançamentos gravados antes da coluna existir
+	@Transactional
+	@Modifying
+	@Query("update Lancamento l set l.competencia = l.ano * 100 + l.mes where l.competencia is null")
+	int preencherCompetencia();
+	
+	//Operações em lote: os lançamentos afetados são lidos e travados (select ... for update) antes do update/delete,
+	//em ordem de id para que duas operações simultâneas não travem uma à outra. Nada altera esses lançamentos até o
+	//fim da transação, então os valores lidos são exatamente os que o update/delete muda, e os agregados recebem a
+	//diferença sem precisar ser recalculados.
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query( value =
+			"select new com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento("
+		  + "l.id, l.descricao, l.mes, l.ano, l.competencia, l.valor, l.tipo, l.status, l.usuario.id) "
+		  + "from Lancamento l where l.usuario.id = :idUsuario and l.id in :ids order by l.id")
+	List<ItemLancamento> bloquearItens(@Param("idUsuario") Long idUsuario, @Param("ids") List<Long> ids);
 	
-	@Query( value = 
-			"select l from Lancamento l join l.usuario u where u.id = :idUsuario and l.mes between :mesAtual "
-			+ "and :mesFinal and l.ano between :anoAtual and :anoFinal")
-	List<Lancamento> obterLancamentosPorPeriodoEUsuario(
+	//Período: leitura de intervalo no índice (id_usuario, competencia)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query( value =
+			"select new com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento("
+		  + "l.id, l.descricao, l.mes, l.ano, l.competencia, l.valor, l.tipo, l.status, l.usuario.id) "
+		  + "from Lancamento l where l.usuario.id = :idUsuario "
+		  + "and l.competencia between :competenciaInicial and :competenciaFinal order by l.id")
+	List<ItemLancamento> bloquearItensPorPeriodo(
 			@Param("idUsuario") Long idUsuario,
-			@Param("mesAtual") Integer mesAtual,
-			@Param("mesFinal") Integer mesFinal,
-			@Param("anoAtual") Integer anoAtual,
-			@Param("anoFinal") Integer anoFinal);
+			@Param("competenciaInicial") Integer competenciaInicial,
+			@Param("competenciaFinal") Integer competenciaFinal);
+	
+	//Um único update/delete por bloco de ids já travados, sempre restrito aos lançamentos do usuário. O contexto de
+	//persistência é limpo depois, já que as entidades carregadas não enxergam a alteração feita direto no banco.
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query( value =
+			"update Lancamento l set l.status = :status where l.usuario.id = :idUsuario and l.id in :ids "
+		  + "and (l.status <> :status or l.status is null)")
+	int atualizarStatus(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ids") List<Long> ids,
+			@Param("status") StatusLancamento status);
+	
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from Lancamento l where l.usuario.id = :idUsuario and l.id in :ids")
+	int excluir(@Param("idUsuario") Long idUsuario, @Param("ids") List<Long> ids);
+	
+	//Alterações de um único lançamento direto pelo id: um update/delete só, sem o select que o save/delete fariam antes
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Lancamento l set l.status = :status where l.id = :id")
+	int atualizarStatusPorId(@Param("id") Long id, @Param("status") StatusLancamento status);
+	
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from Lancamento l where l.id = :id")
+	int excluirPorId(@Param("id") Long id);
+	
+	//Valor do parâmetro descricao de buscarItens e exportar (LancamentoRepositoryImpl): busca "contém" ignorando
+	//maiúsculas/minúsculas, como o StringMatcher.CONTAINING da busca por exemplo
+	static String padraoDescricao(String descricao) {
+		if(descricao == null || descricao.trim().isEmpty()) {
+			return "%";
+		}
+		
+		return "%" + escapar(descricao) + "%";
+	}
+	
+	//Valor do parâmetro prefixo de buscarDescricoes: busca "começa com" ignorando maiúsculas/minúsculas
+	static String padraoPrefixo(String prefixo) {
+		return escapar(prefixo.trim()) + "%";
+	}
+	
+	private static String escapar(String texto) {
+		return texto.toLowerCase()
+				.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_");
+	}
 }
@@ -0,0 +1,20 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+
+/// Consultas do LancamentoRepository montadas em código (implementadas em LancamentoRepositoryImpl)
+public interface LancamentoRepositoryCustom {
+	
+	/// Filtros do lançamento informado (usuário obrigatório; descrição, mês, ano e tipo quando preenchidos), ordenado por
+	/// (competencia, id). cursorCompetencia/cursorId null -> desde o início; limite null -> sem limite.
+	List<ItemLancamento> buscarItens(Lancamento filtro, Integer cursorCompetencia, Long cursorId, Integer limite);
+	
+	/// Mesmos filtros do buscarItens, sem cursor nem limite. As linhas são lidas do banco aos poucos (fetch size)
+	/// conforme o Stream é consumido: precisa ser lido dentro de uma transação e fechado no final.
+	Stream<Lancamento> exportar(Lancamento filtro);
+	
+}
@@ -0,0 +1,135 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.annotations.QueryHints;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+
+/*
+ * Busca da listagem com Criteria no lugar da busca por exemplo (Example/ExampleMatcher):
+ * - Seleciona só as colunas do ItemLancamento direto no construtor, sem entidade gerenciada e sem join com usuário.
+ * - Só entram na consulta os filtros preenchidos, em vez de "(:mes is null or l.mes = :mes)" para todos. Cada
+ * combinação de filtros gera sempre o mesmo texto de consulta, então o hibernate reaproveita o plano já compilado
+ * (query plan cache) e o banco o statement preparado. Por isso os valores vão sempre como parâmetro: o Criteria do
+ * hibernate escreve números direto no texto da consulta (literal), o que criaria uma consulta nova por usuário.
+ * A exportação usa os mesmos filtros, mas lê a entidade inteira em Stream.
+ */
+public class LancamentoRepositoryImpl implements LancamentoRepositoryCustom {
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public List<ItemLancamento> buscarItens(Lancamento filtro, Integer cursorCompetencia, Long cursorId, Integer limite) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ItemLancamento> query = cb.createQuery(ItemLancamento.class);
+		Root<Lancamento> lancamento = query.from(Lancamento.class);
+		
+		Path<Long> id = lancamento.get("id");
+		Path<Integer> competencia = lancamento.get("competencia");
+		Path<Long> idUsuario = lancamento.get("usuario").get("id"); // Chave estrangeira, o hibernate não faz join
+		
+		query.select(cb.construct(ItemLancamento.class,
+				id,
+				lancamento.get("descricao"),
+				lancamento.get("mes"),
+				lancamento.get("ano"),
+				competencia,
+				lancamento.get("valor"),
+				lancamento.get("tipo"),
+				lancamento.get("status"),
+				idUsuario));
+		
+		Map<String, Object> parametros = new HashMap<>();
+		List<Predicate> filtros = filtros(cb, lancamento, filtro, parametros);
+		
+		if(cursorCompetencia != null && cursorId != null) {
+			ParameterExpression<Integer> posicaoCompetencia = parametro(cb, parametros, "cursorCompetencia", Integer.class,
+					cursorCompetencia);
+			filtros.add(cb.or(
+					cb.greaterThan(competencia, posicaoCompetencia),
+					cb.and(cb.equal(competencia, posicaoCompetencia),
+							cb.greaterThan(id, parametro(cb, parametros, "cursorId", Long.class, cursorId)))));
+		}
+		
+		query.where(filtros.toArray(new Predicate[0]));
+		query.orderBy(cb.asc(competencia), cb.asc(id));
+		
+		TypedQuery<ItemLancamento> consulta = entityManager.createQuery(query);
+		parametros.forEach(consulta::setParameter);
+		if(limite != null) {
+			consulta.setMaxResults(limite);
+		}
+		return consulta.getResultList();
+	}
+
+	@Override
+	public Stream<Lancamento> exportar(Lancamento filtro) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Lancamento> query = cb.createQuery(Lancamento.class);
+		Root<Lancamento> lancamento = query.from(Lancamento.class);
+		
+		Map<String, Object> parametros = new HashMap<>();
+		query.where(filtros(cb, lancamento, filtro, parametros).toArray(new Predicate[0]));
+		query.orderBy(cb.asc(lancamento.get("competencia")), cb.asc(lancamento.get("id")));
+		
+		TypedQuery<Lancamento> consulta = entityManager.createQuery(query);
+		parametros.forEach(consulta::setParameter);
+		consulta.setHint(QueryHints.FETCH_SIZE, 500);
+		consulta.setHint(QueryHints.READ_ONLY, true); // Sem cópia do estado para o dirty checking
+		return consulta.getResultStream();
+	}
+
+	//Usuário sempre; descrição, mês, ano e tipo só quando preenchidos. Sem filtro de descrição não entra o "like '%'",
+	//que deixaria de fora os lançamentos sem descrição (null)
+	private static List<Predicate> filtros(CriteriaBuilder cb, Root<Lancamento> lancamento, Lancamento filtro,
+										   Map<String, Object> parametros) {
+		List<Predicate> filtros = new ArrayList<>();
+		Path<Long> idUsuario = lancamento.get("usuario").get("id");
+		filtros.add(cb.equal(idUsuario, parametro(cb, parametros, "idUsuario", Long.class, filtro.getUsuario().getId())));
+		
+		if(filtro.getDescricao() != null && !filtro.getDescricao().trim().isEmpty()) {
+			filtros.add(cb.like(cb.lower(lancamento.get("descricao")), parametro(cb, parametros, "descricao", String.class,
+					LancamentoRepository.padraoDescricao(filtro.getDescricao())), '\\'));
+		}
+		
+		if(filtro.getMes() != null) {
+			filtros.add(cb.equal(lancamento.get("mes"), parametro(cb, parametros, "mes", Integer.class, filtro.getMes())));
+		}
+		
+		if(filtro.getAno() != null) {
+			filtros.add(cb.equal(lancamento.get("ano"), parametro(cb, parametros, "ano", Integer.class, filtro.getAno())));
+		}
+		
+		if(filtro.getTipo() != null) {
+			filtros.add(cb.equal(lancamento.get("tipo"),
+					parametro(cb, parametros, "tipo", TipoLancamento.class, filtro.getTipo())));
+		}
+		
+		return filtros;
+	}
+
+	private static <T> ParameterExpression<T> parametro(CriteriaBuilder cb, Map<String, Object> parametros, String nome,
+														Class<T> tipo, T valor) {
+		parametros.put(nome, valor);
+		return cb.parameter(tipo, nome);
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.TotalPorTipoEStatus;
+
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Leituras da API reativa (LancamentoReativoResource) pelo driver R2DBC, nas mesmas tabelas mapeadas pelo JPA.
+ * Nenhuma consulta segura uma thread esperando o banco: as linhas chegam conforme o Flux é consumido (o assinante pede
+ * mais itens só depois de escrever os anteriores na resposta).
+ *
+ * SQL nativo, com as mesmas regras das consultas do LancamentoRepository/LancamentoRepositoryImpl: só os filtros
+ * preenchidos entram na consulta, os valores vão sempre como parâmetro e o usuário é filtrado pela chave estrangeira,
+ * sem join com a tabela de usuário.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LancamentoRepositoryReativo {
+	
+	private static final String COLUNAS_ITEM =
+			"select id, descricao, mes, ano, competencia, valor, tipo, status, id_usuario from financas.lancamento ";
+	
+	private final DatabaseClient databaseClient;
+	
+	/// Mesmos filtros do LancamentoRepositoryImpl.buscarItens, sem paginação: o resultado inteiro vem em stream
+	public Flux<ItemLancamento> buscar(Lancamento filtro) {
+		StringBuilder sql = new StringBuilder(COLUNAS_ITEM).append("where id_usuario = :idUsuario");
+		Map<String, Object> parametros = new LinkedHashMap<>();
+		parametros.put("idUsuario", filtro.getUsuario().getId());
+		
+		if(filtro.getDescricao() != null && !filtro.getDescricao().trim().isEmpty()) {
+			sql.append(" and lower(descricao) like :descricao escape '\\'");
+			parametros.put("descricao", LancamentoRepository.padraoDescricao(filtro.getDescricao()));
+		}
+		
+		if(filtro.getMes() != null) {
+			sql.append(" and mes = :mes");
+			parametros.put("mes", filtro.getMes());
+		}
+		
+		if(filtro.getAno() != null) {
+			sql.append(" and ano = :ano");
+			parametros.put("ano", filtro.getAno());
+		}
+		
+		if(filtro.getTipo() != null) {
+			sql.append(" and tipo = :tipo");
+			parametros.put("tipo", filtro.getTipo().name());
+		}
+		
+		GenericExecuteSpec consulta = databaseClient.sql(sql.append(" order by competencia, id").toString());
+		for(Map.Entry<String, Object> parametro : parametros.entrySet()) {
+			consulta = consulta.bind(parametro.getKey(), parametro.getValue());
+		}
+		return consulta.map((linha, metadados) -> item(linha)).all();
+	}
+
+	/// Lançamentos do usuário entre as duas competências (inclusive), como obterLancamentosPorUsuarioECompetencia
+	public Flux<ItemLancamento> buscarPorPeriodo(Long idUsuario, Integer competenciaInicial, Integer competenciaFinal) {
+		return databaseClient.sql(COLUNAS_ITEM
+						+ "where id_usuario = :idUsuario and competencia between :competenciaInicial and :competenciaFinal "
+						+ "order by competencia, id")
+				.bind("idUsuario", idUsuario)
+				.bind("competenciaInicial", competenciaInicial)
+				.bind("competenciaFinal", competenciaFinal)
+				.map((linha, metadados) -> item(linha))
+				.all();
+	}
+
+	/// Saldo materializado (receitas - despesas EFETIVADAS da tabela saldo_usuario), vazio quando ainda não existe
+	public Mono<BigDecimal> obterSaldo(Long idUsuario) {
+		return databaseClient.sql("select receitas, despesas from financas.saldo_usuario where id_usuario = :idUsuario")
+				.bind("idUsuario", idUsuario)
+				.map((linha, metadados) -> linha.get("receitas", BigDecimal.class)
+						.subtract(linha.get("despesas", BigDecimal.class)))
+				.one();
+	}
+
+	/// Mesma leitura agrupada de LancamentoRepository.obterTotaisPorTipoEStatus
+	public Flux<TotalPorTipoEStatus> obterTotaisPorTipoEStatus(Long idUsuario) {
+		return databaseClient.sql("select tipo, status, sum(valor) as total, count(*) as quantidade "
+						+ "from financas.lancamento where id_usuario = :idUsuario group by tipo, status")
+				.bind("idUsuario", idUsuario)
+				.map((linha, metadados) -> (TotalPorTipoEStatus) new Total(
+						TipoLancamento.valueOf(linha.get("tipo", String.class)),
+						StatusLancamento.valueOf(linha.get("status", String.class)),
+						linha.get("total", BigDecimal.class),
+						linha.get("quantidade", Long.class)))
+				.all();
+	}
+
+	public Mono<Boolean> existeUsuario(Long idUsuario) {
+		return databaseClient.sql("select id from financas.usuario where id = :idUsuario")
+				.bind("idUsuario", idUsuario)
+				.map((linha, metadados) -> linha.get("id", Long.class))
+				.first()
+				.hasElement();
+	}
+
+	private static ItemLancamento item(Row linha) {
+		return new ItemLancamento(
+				linha.get("id", Long.class),
+				linha.get("descricao", String.class),
+				linha.get("mes", Integer.class),
+				linha.get("ano", Integer.class),
+				linha.get("competencia", Integer.class),
+				linha.get("valor", BigDecimal.class),
+				TipoLancamento.valueOf(linha.get("tipo", String.class)),
+				StatusLancamento.valueOf(linha.get("status", String.class)),
+				linha.get("id_usuario", Long.class));
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static final class Total implements TotalPorTipoEStatus {
+		
+		private final TipoLancamento tipo;
+		
+		private final StatusLancamento status;
+		
+		private final BigDecimal total;
+		
+		private final Long quantidade;
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensal;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensalId;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ResumoMensalId>, ResumoMensalRepositoryCustom{
+	
+	//Update atômico, retorna 0 quando o mês ainda não tem linha para esse tipo/status
+	@Modifying
+	@Query( value =
+			"update ResumoMensal r set r.quantidade = r.quantidade + :quantidade, r.total = r.total + :total "
+		  + "where r.id.idUsuario = :idUsuario and r.id.ano = :ano and r.id.mes = :mes "
+		  + "and r.id.tipo = :tipo and r.id.status = :status")
+	int somarValores(
+			@Param("idUsuario") Long idUsuario,
+			@Param("ano") Integer ano,
+			@Param("mes") Integer mes,
+			@Param("tipo") TipoLancamento tipo,
+			@Param("status") StatusLancamento status,
+			@Param("quantidade") Long quantidade,
+			@Param("total") BigDecimal total);
+	
+	//competencia = ano * 100 + mes, ex: 202211. A chave primária começa pelo usuário, então o banco lê só as linhas dele.
+	//Linhas que ficaram sem lançamentos (todos excluídos ou trocados de status) continuam gravadas com quantidade 0
+	@Query( value =
+			"select r from ResumoMensal r where r.id.idUsuario = :idUsuario "
+		  + "and r.id.ano * 100 + r.id.mes between :competenciaInicial and :competenciaFinal and r.quantidade > 0 "
+		  + "order by r.id.ano, r.id.mes, r.id.tipo, r.id.status")
+	List<ResumoMensal> buscarPorUsuarioEPeriodo(
+			@Param("idUsuario") Long idUsuario,
+			@Param("competenciaInicial") Integer competenciaInicial,
+			@Param("competenciaFinal") Integer competenciaFinal);
+	
+	//Usado na reconstrução: limpa o contexto do JPA para que as linhas inseridas em seguida não conflitem com linhas
+	//excluídas que ainda estavam carregadas
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from ResumoMensal r")
+	int excluirTodos();
+	
+}
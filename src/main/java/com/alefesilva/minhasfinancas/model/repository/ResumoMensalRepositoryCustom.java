@@ -0,0 +1,15 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensalId;
+
+/// Gravações do ResumoMensalRepository em SQL nativo (implementadas em ResumoMensalRepositoryImpl)
+public interface ResumoMensalRepositoryCustom {
+	
+	/// Primeira gravação da linha usuário/ano/mês/tipo/status num único comando: insere com os valores calculados ou, se
+	/// outra transação já inseriu a linha, soma nela só as diferenças (quantidade/total)
+	void inserirOuSomar(ResumoMensalId chave, Long quantidadeCalculada, BigDecimal totalCalculado, Long quantidade,
+						BigDecimal total);
+	
+}
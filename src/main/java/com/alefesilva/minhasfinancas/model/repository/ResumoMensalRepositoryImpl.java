@@ -0,0 +1,71 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensalId;
+
+/*
+ * Upsert do resumo mensal, pelo mesmo motivo e do mesmo jeito do SaldoUsuarioRepositoryImpl: "on conflict" no
+ * PostgreSQL e merge repetido uma vez na chave duplicada no H2, pelo JdbcTemplate na conexão da transação do JPA.
+ */
+public class ResumoMensalRepositoryImpl implements ResumoMensalRepositoryCustom {
+	
+	private static final String UPSERT_POSTGRESQL =
+			"insert into financas.resumo_mensal (id_usuario, ano, mes, tipo, status, quantidade, total) "
+		  + "values (:idUsuario, :ano, :mes, :tipo, :status, :quantidadeCalculada, :totalCalculado) "
+		  + "on conflict (id_usuario, ano, mes, tipo, status) do update "
+		  + "set quantidade = resumo_mensal.quantidade + :quantidade, total = resumo_mensal.total + :total";
+	
+	private static final String MERGE_H2 =
+			"merge into financas.resumo_mensal r using (select cast(:idUsuario as bigint) as id_usuario, "
+		  + "cast(:ano as integer) as ano, cast(:mes as integer) as mes, cast(:tipo as varchar(255)) as tipo, "
+		  + "cast(:status as varchar(255)) as status) n "
+		  + "on r.id_usuario = n.id_usuario and r.ano = n.ano and r.mes = n.mes and r.tipo = n.tipo and r.status = n.status "
+		  + "when matched then update set quantidade = r.quantidade + :quantidade, total = r.total + :total "
+		  + "when not matched then insert (id_usuario, ano, mes, tipo, status, quantidade, total) "
+		  + "values (:idUsuario, :ano, :mes, :tipo, :status, :quantidadeCalculada, :totalCalculado)";
+	
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	
+	private String upsert;
+	
+	public ResumoMensalRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+	
+	@Override
+	public void inserirOuSomar(ResumoMensalId chave, Long quantidadeCalculada, BigDecimal totalCalculado, Long quantidade,
+							   BigDecimal total) {
+		MapSqlParameterSource parametros = new MapSqlParameterSource()
+				.addValue("idUsuario", chave.getIdUsuario())
+				.addValue("ano", chave.getAno())
+				.addValue("mes", chave.getMes())
+				.addValue("tipo", chave.getTipo().name())
+				.addValue("status", chave.getStatus().name())
+				.addValue("quantidadeCalculada", quantidadeCalculada)
+				.addValue("totalCalculado", totalCalculado)
+				.addValue("quantidade", quantidade)
+				.addValue("total", total);
+		
+		try {
+			jdbcTemplate.update(upsert(), parametros);
+		}catch(DuplicateKeyException e) {
+			jdbcTemplate.update(upsert(), parametros); // Só no H2, a linha inserida pela outra transação já existe
+		}
+	}
+	
+	private String upsert() {
+		if(upsert == null) {
+			String produto = jdbcTemplate.getJdbcTemplate()
+					.execute((ConnectionCallback<String>) conexao -> conexao.getMetaData().getDatabaseProductName());
+			upsert = "PostgreSQL".equalsIgnoreCase(produto) ? UPSERT_POSTGRESQL : MERGE_H2;
+		}
+		return upsert;
+	}
+	
+}
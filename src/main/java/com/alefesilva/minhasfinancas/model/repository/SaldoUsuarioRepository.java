@@ -0,0 +1,39 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.alefesilva.minhasfinancas.model.entity.SaldoUsuario;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuario, Long>, SaldoUsuarioRepositoryCustom{
+	
+	//Soma direto no banco (update atômico), assim duas gravações simultâneas do mesmo usuário não perdem valores.
+	//Retorna a quantidade de linhas alteradas, 0 quando o usuário ainda não tem saldo gravado.
+	@Modifying
+	@Query( value =
+			"update SaldoUsuario s set s.receitas = s.receitas + :receitas, s.despesas = s.despesas + :despesas "
+		  + "where s.idUsuario = :idUsuario")
+	int somarValores(
+			@Param("idUsuario") Long idUsuario,
+			@Param("receitas") BigDecimal receitas,
+			@Param("despesas") BigDecimal despesas);
+	
+	//Select ... for update: a linha fica travada até o fim da transação, então o somarValores de uma gravação
+	//simultânea espera e é aplicado depois (usado na reconciliação)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select s from SaldoUsuario s where s.idUsuario = :idUsuario")
+	Optional<SaldoUsuario> bloquear(@Param("idUsuario") Long idUsuario);
+	
+	@Query("select s.idUsuario from SaldoUsuario s")
+	List<Long> obterIdsUsuarios();
+			
+}
@@ -0,0 +1,13 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+
+/// Gravações do SaldoUsuarioRepository em SQL nativo (implementadas em SaldoUsuarioRepositoryImpl)
+public interface SaldoUsuarioRepositoryCustom {
+	
+	/// Primeira gravação do saldo do usuário num único comando: insere a linha com os valores calculados ou, se outra
+	/// transação já inseriu a linha, soma nela só as diferenças (receitas/despesas)
+	void inserirOuSomar(Long idUsuario, BigDecimal receitasCalculadas, BigDecimal despesasCalculadas,
+						BigDecimal receitas, BigDecimal despesas);
+	
+}
@@ -0,0 +1,67 @@
+package com.alefesilva.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/*
+ * Upsert do saldo: "update e, se não alterou nenhuma linha, insert" deixa duas primeiras gravações simultâneas do mesmo
+ * usuário colidirem na chave primária. No PostgreSQL o "on conflict" espera a outra transação e cai no update; no H2
+ * (testes) o merge equivalente não trava a chave, então a colisão vira chave duplicada e o comando é repetido, já com a
+ * linha existente.
+ * Pelo JdbcTemplate, na mesma conexão da transação do JPA: a exceção da primeira tentativa não marca a transação para
+ * rollback como uma consulta nativa do EntityManager faria.
+ */
+public class SaldoUsuarioRepositoryImpl implements SaldoUsuarioRepositoryCustom {
+	
+	private static final String UPSERT_POSTGRESQL =
+			"insert into financas.saldo_usuario (id_usuario, receitas, despesas) "
+		  + "values (:idUsuario, :receitasCalculadas, :despesasCalculadas) "
+		  + "on conflict (id_usuario) do update "
+		  + "set receitas = saldo_usuario.receitas + :receitas, despesas = saldo_usuario.despesas + :despesas";
+	
+	private static final String MERGE_H2 =
+			"merge into financas.saldo_usuario s using (select cast(:idUsuario as bigint) as id_usuario) n "
+		  + "on s.id_usuario = n.id_usuario "
+		  + "when matched then update set receitas = s.receitas + :receitas, despesas = s.despesas + :despesas "
+		  + "when not matched then insert (id_usuario, receitas, despesas) "
+		  + "values (:idUsuario, :receitasCalculadas, :despesasCalculadas)";
+	
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	
+	private String upsert;
+	
+	public SaldoUsuarioRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+	
+	@Override
+	public void inserirOuSomar(Long idUsuario, BigDecimal receitasCalculadas, BigDecimal despesasCalculadas,
+							   BigDecimal receitas, BigDecimal despesas) {
+		MapSqlParameterSource parametros = new MapSqlParameterSource()
+				.addValue("idUsuario", idUsuario)
+				.addValue("receitasCalculadas", receitasCalculadas)
+				.addValue("despesasCalculadas", despesasCalculadas)
+				.addValue("receitas", receitas)
+				.addValue("despesas", despesas);
+		
+		try {
+			jdbcTemplate.update(upsert(), parametros);
+		}catch(DuplicateKeyException e) {
+			jdbcTemplate.update(upsert(), parametros); // Só no H2, a linha inserida pela outra transação já existe
+		}
+	}
+	
+	private String upsert() {
+		if(upsert == null) {
+			String produto = jdbcTemplate.getJdbcTemplate()
+					.execute((ConnectionCallback<String>) conexao -> conexao.getMetaData().getDatabaseProductName());
+			upsert = "PostgreSQL".equalsIgnoreCase(produto) ? UPSERT_POSTGRESQL : MERGE_H2;
+		}
+		return upsert;
+	}
+	
+}
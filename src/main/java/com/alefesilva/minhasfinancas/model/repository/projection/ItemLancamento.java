@@ -0,0 +1,41 @@
+package com.alefesilva.minhasfinancas.model.repository.projection;
+
+import java.math.BigDecimal;
+
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * Um lançamento da listagem: apenas as colunas da tabela lancamento que a tela usa, sem carregar a entidade nem o
+ * usuário (só o id, que já está na chave estrangeira).
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public final class ItemLancamento {
+	
+	private final Long id;
+	
+	private final String descricao;
+	
+	private final Integer mes;
+	
+	private final Integer ano;
+	
+	private final Integer competencia;
+	
+	private final BigDecimal valor;
+	
+	private final TipoLancamento tipo;
+	
+	private final StatusLancamento status;
+	
+	private final Long idUsuario;
+
+}
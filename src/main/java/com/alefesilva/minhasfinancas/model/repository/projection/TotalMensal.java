@@ -0,0 +1,24 @@
+package com.alefesilva.minhasfinancas.model.repository.projection;
+
+import java.math.BigDecimal;
+
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+
+public interface TotalMensal {
+	
+	Long getIdUsuario();
+	
+	Integer getAno();
+	
+	Integer getMes();
+	
+	TipoLancamento getTipo();
+	
+	StatusLancamento getStatus();
+	
+	Long getQuantidade();
+	
+	BigDecimal getTotal();
+	
+}
@@ -0,0 +1,18 @@
+package com.alefesilva.minhasfinancas.model.repository.projection;
+
+import java.math.BigDecimal;
+
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+
+public interface TotalPorTipoEStatus {
+	
+	TipoLancamento getTipo();
+	
+	StatusLancamento getStatus();
+	
+	BigDecimal getTotal();
+	
+	Long getQuantidade();
+	
+}
@@ -0,0 +1,49 @@
+package com.alefesilva.minhasfinancas.model.repository.projection;
+
+import java.math.BigDecimal;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * Os campos de um lançamento que interessam para os valores agregados (saldo, resumos...).
+ * Usado para comparar como o lançamento estava gravado no banco com como ele ficou após a alteração.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class ValoresLancamento {
+	
+	private final Long idUsuario;
+	
+	private final Integer ano;
+	
+	private final Integer mes;
+	
+	private final TipoLancamento tipo;
+	
+	private final StatusLancamento status;
+	
+	private final BigDecimal valor;
+	
+	public static ValoresLancamento de(Lancamento lancamento) {
+		return new ValoresLancamento(
+				lancamento.getUsuario() != null ? lancamento.getUsuario().getId() : null,
+				lancamento.getAno(),
+				lancamento.getMes(),
+				lancamento.getTipo(),
+				lancamento.getStatus(),
+				lancamento.getValor());
+	}
+	
+	public static ValoresLancamento de(ItemLancamento item) {
+		return new ValoresLancamento(item.getIdUsuario(), item.getAno(), item.getMes(), item.getTipo(), item.getStatus(),
+				item.getValor());
+	}
+
+}
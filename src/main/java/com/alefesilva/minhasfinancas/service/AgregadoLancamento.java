@@ -0,0 +1,30 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.alefesilva.minhasfinancas.model.repository.projection.ValoresLancamento;
+
+/*
+ * Valores calculados a partir dos lançamentos (saldo, resumos...) e mantidos a cada gravação, na mesma transação.
+ * O LancamentoServiceImpl avisa todos os agregados com o lançamento antes e depois da alteração.
+ */
+public interface AgregadoLancamento {
+	
+	/// anterior == null -> lançamento novo / atual == null -> lançamento removido
+	void registrarAlteracao(ValoresLancamento anterior, ValoresLancamento atual);
+	
+	/// Vários lançamentos alterados de uma vez (operações em lote): anteriores.get(i) passou a ser atuais.get(i), com
+	/// null como em registrarAlteracao. Os agregados podem juntar os valores antes de gravar.
+	default void registrarAlteracoes(List<ValoresLancamento> anteriores, List<ValoresLancamento> atuais) {
+		for(int i = 0; i < anteriores.size(); i++) {
+			registrarAlteracao(anteriores.get(i), atuais.get(i));
+		}
+	}
+	
+	/// Vários lançamentos novos de uma vez (importação em lote)
+	default void registrarInclusoes(List<ValoresLancamento> novos) {
+		registrarAlteracoes(Collections.nCopies(novos.size(), null), novos);
+	}
+	
+}
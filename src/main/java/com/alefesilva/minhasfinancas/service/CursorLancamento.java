@@ -0,0 +1,55 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Posição na listagem de lançamentos, que é sempre ordenada por (competencia, id). A próxima página começa logo depois
+ * desse par, então o banco vai direto ao ponto pelo índice em vez de pular as linhas das páginas anteriores (offset).
+ * Para o cliente o cursor é apenas um texto opaco (base64).
+ */
+@Getter
+@AllArgsConstructor
+public final class CursorLancamento {
+	
+	public static final CursorLancamento INICIO = new CursorLancamento(0, 0L);
+	
+	private final int competencia;
+	
+	private final long id;
+	
+	public static String codificar(Lancamento lancamento) {
+		return codificar(lancamento.getCompetencia(), lancamento.getId());
+	}
+
+	public static String codificar(ItemLancamento item) {
+		return codificar(item.getCompetencia(), item.getId());
+	}
+
+	private static String codificar(Integer competencia, Long id) {
+		String posicao = competencia + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/// Cursor vazio -> primeira página
+	public static CursorLancamento decodificar(String cursor) {
+		if(cursor == null || cursor.trim().isEmpty()) {
+			return INICIO;
+		}
+		
+		try {
+			String[] posicao = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+			return new CursorLancamento(Integer.parseInt(posicao[0]), Long.parseLong(posicao[1]));
+		}catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new RegraNegocioException("Cursor de paginação inválido.");
+		}
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.enums.FormatoExportacao;
+
+public interface ExportacaoLancamentoService {
+	
+	/// Escreve na saída todos os lançamentos do filtro (mesmos filtros do buscar), linha a linha
+	void exportar(Lancamento lancamentoFiltro, FormatoExportacao formato, OutputStream saida) throws IOException;
+	
+}
@@ -15,4 +15,7 @@ public interface JwtService {
 	
 	String obterLoginUsuario(String token);
 	
+	// Faz o parse e a validação do token uma única vez, se o token não for válido dispara TokenInvalidoException
+	TokenVerificado verificarToken(String token);
+	
 }
@@ -0,0 +1,26 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.math.BigDecimal;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Leituras não bloqueantes (R2DBC) para a API reativa. Os filtros inválidos são recusados na chamada, com
+ * RegraNegocioException, antes de qualquer consulta; o resultado só vai ao banco quando o Flux/Mono é assinado.
+ */
+public interface LancamentoReativoService {
+	
+	Mono<Boolean> existeUsuario(Long idUsuario);
+	
+	Flux<ItemLancamento> buscar(Lancamento lancamentoFiltro);
+	
+	Flux<ItemLancamento> buscarPorPeriodo(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal,
+										  Integer anoFinal);
+	
+	Mono<BigDecimal> obterSaldoPorUsuario(Long idUsuario);
+	
+}
@@ -5,25 +5,53 @@ import java.util.List;
 import java.util.Optional;
 
 import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensal;
 import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
 
 public interface LancamentoService {
 	
 	Lancamento salvar(Lancamento lancamento);
 	
+	ResultadoLote salvarLote(List<Lancamento> lancamentos);
+	
 	Lancamento atualizar(Lancamento lancamento);
 	
+	Lancamento atualizar(Long id, Lancamento dados);
+	
 	void deletar(Lancamento lancamento);
 	
-	List<Lancamento> buscar(Lancamento lancamentoFiltro);
+	void deletar(Long id);
+	
+	List<ItemLancamento> buscar(Lancamento lancamentoFiltro);
+	
+	Pagina<ItemLancamento> buscarPagina(Lancamento lancamentoFiltro, String cursor, Integer limite);
+	
+	List<String> buscarDescricoes(Long idUsuario, String prefixo, Integer limite);
 	
 	void atualizarStatus(Lancamento lancamento, StatusLancamento status);
 	
+	ItemLancamento atualizarStatus(Long id, StatusLancamento status);
+	
+	int atualizarStatusLote(Long idUsuario, List<Long> ids, StatusLancamento status);
+	
+	int atualizarStatusPeriodo(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal, Integer anoFinal,
+							   StatusLancamento status);
+	
+	int deletarLote(Long idUsuario, List<Long> ids);
+	
+	int deletarPeriodo(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal, Integer anoFinal);
+	
 	void validar(Lancamento lancamento);
 	
 	Optional<Lancamento> obterPorId(Long id);
 	
 	BigDecimal obterSaldoPorUsuario(Long id);
 	
-	List<Lancamento> buscarLancamentosPeriodo(Long id, Integer mesAtual, Integer mesFinal, Integer anoAtual, Integer anoFinal);
+	SaldoDetalhado obterSaldoDetalhadoPorUsuario(Long id);
+	
+	Pagina<Lancamento> buscarLancamentosPeriodo(Long id, Integer mesAtual, Integer mesFinal, Integer anoAtual, Integer anoFinal,
+												String cursor, Integer limite);
+	
+	List<ResumoMensal> obterResumoMensal(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal, Integer anoFinal);
 }
@@ -0,0 +1,39 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * Uma página de resultados de uma consulta por cursor (keyset). O cliente pede a próxima página enviando o "proximo"
+ * recebido, que é null na última página.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class Pagina<T> {
+	
+	private final List<T> itens;
+	
+	private final String proximo;
+	
+	/// resultado deve ter sido consultado com limite + 1 itens, o item a mais indica que existe uma próxima página
+	public static <T> Pagina<T> de(List<T> resultado, int limite, Function<T, String> cursor) {
+		if(resultado.size() <= limite) {
+			return new Pagina<>(resultado, null);
+		}
+		
+		List<T> itens = resultado.subList(0, limite);
+		return new Pagina<>(itens, cursor.apply(itens.get(limite - 1)));
+	}
+
+	/// Mesma página com os itens convertidos (ex: para DTO), mantendo o cursor
+	public <R> Pagina<R> map(Function<T, R> conversor) {
+		return new Pagina<>(itens.stream().map(conversor).collect(Collectors.toList()), proximo);
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * Resultado de uma operação em lote: quantos registros foram gravados e o erro de cada linha recusada
+ * (linha = posição na lista enviada, começando em 0).
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class ResultadoLote {
+	
+	private final int gravados;
+	
+	private final List<Erro> erros;
+	
+	@Getter
+	@ToString
+	@AllArgsConstructor
+	public static final class Erro {
+		
+		private final int linha;
+		
+		private final String mensagem;
+	}
+
+}
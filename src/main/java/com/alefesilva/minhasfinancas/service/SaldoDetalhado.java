@@ -0,0 +1,73 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.TotalPorTipoEStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * Totais dos lançamentos de um usuário por tipo x status, calculados numa única consulta agrupada.
+ * saldoRealizado -> Apenas lançamentos EFETIVADOS (é o saldo do endpoint /saldo).
+ * saldoPrevisto -> EFETIVADOS + PENDENTES, ou seja, como o saldo fica quando tudo que está pendente for efetivado.
+ */
+@Getter
+@ToString
+public final class SaldoDetalhado {
+	
+	private final BigDecimal saldoRealizado;
+	
+	private final BigDecimal saldoPrevisto;
+	
+	private final List<Total> totais;
+	
+	private SaldoDetalhado(List<Total> totais) {
+		this.totais = Collections.unmodifiableList(totais);
+		this.saldoRealizado = somar(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO)
+				.subtract(somar(TipoLancamento.DESPESA, StatusLancamento.EFETIVADO));
+		this.saldoPrevisto = saldoRealizado
+				.add(somar(TipoLancamento.RECEITA, StatusLancamento.PENDENTE))
+				.subtract(somar(TipoLancamento.DESPESA, StatusLancamento.PENDENTE));
+	}
+
+	public static SaldoDetalhado de(List<TotalPorTipoEStatus> totaisAgrupados) {
+		List<Total> totais = new ArrayList<>(totaisAgrupados.size());
+		for(TotalPorTipoEStatus total : totaisAgrupados) {
+			totais.add(new Total(total.getTipo(), total.getStatus(), total.getTotal(), total.getQuantidade()));
+		}
+		return new SaldoDetalhado(totais);
+	}
+
+	/// Soma de um tipo e status, zero quando o usuário não tem lançamentos nessa combinação
+	public BigDecimal somar(TipoLancamento tipo, StatusLancamento status) {
+		BigDecimal soma = BigDecimal.ZERO;
+		for(Total total : totais) {
+			if(total.getTipo() == tipo && total.getStatus() == status && total.getTotal() != null) {
+				soma = soma.add(total.getTotal());
+			}
+		}
+		return soma;
+	}
+
+	@Getter
+	@ToString
+	@AllArgsConstructor
+	public static final class Total {
+		
+		private final TipoLancamento tipo;
+		
+		private final StatusLancamento status;
+		
+		private final BigDecimal total;
+		
+		private final long quantidade;
+	}
+
+}
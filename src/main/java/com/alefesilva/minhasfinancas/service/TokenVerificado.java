@@ -0,0 +1,30 @@
+package com.alefesilva.minhasfinancas.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * Resultado imutável da verificação de um token JWT, com os dados que usamos do playload.
+ * É gerado uma única vez por token (JwtService.verificarToken) e pode ser reaproveitado pelo cache de tokens.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public final class TokenVerificado {
+	
+	private final String login; // subject do token (email do usuário)
+	
+	private final Long idUsuario;
+	
+	private final String nome;
+	
+	private final long emitidoEmMillis; // 0 quando o token não tem "iat"
+	
+	private final long expiracaoEmMillis;
+	
+	public boolean isExpirado(long agoraEmMillis) {
+		return agoraEmMillis >= expiracaoEmMillis;
+	}
+
+}
@@ -14,6 +14,8 @@ public interface UsuarioService {
 	
 	Optional<Usuario> obterPorId(Long id);
 	
+	Usuario obterReferencia(Long id);
+	
 	List<Usuario> retornaUsuariosCadastrados();
 	
 	Usuario atualizar(Usuario usuario);
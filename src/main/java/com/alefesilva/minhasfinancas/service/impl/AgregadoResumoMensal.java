@@ -0,0 +1,150 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensal;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensalId;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.alefesilva.minhasfinancas.model.repository.projection.TotalMensal;
+import com.alefesilva.minhasfinancas.model.repository.projection.ValoresLancamento;
+import com.alefesilva.minhasfinancas.service.AgregadoLancamento;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Mantém a tabela resumo_mensal. Cada alteração de lançamento tira 1 da quantidade e o valor antigo da linha
+ * (usuário/ano/mês/tipo/status) onde ele estava e soma na linha onde ele ficou. Quando a linha ainda não existe ela é
+ * calculada a partir dos lançamentos daquele mês e inserida por upsert (ResumoMensalRepositoryImpl), assim usuários
+ * antigos vão sendo preenchidos mesmo antes da reconstrução completa (reconstruir()).
+ */
+@Slf4j
+@Component
+public class AgregadoResumoMensal implements AgregadoLancamento {
+	
+	private final ResumoMensalRepository resumoRepository;
+	
+	private final LancamentoRepository lancamentoRepository;
+	
+	public AgregadoResumoMensal(ResumoMensalRepository resumoRepository, LancamentoRepository lancamentoRepository) {
+		this.resumoRepository = resumoRepository;
+		this.lancamentoRepository = lancamentoRepository;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void registrarAlteracao(ValoresLancamento anterior, ValoresLancamento atual) {
+		registrarAlteracoes(Collections.singletonList(anterior), Collections.singletonList(atual));
+	}
+
+	/// Um único update por mês/tipo/status, em vez de um por lançamento
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void registrarAlteracoes(List<ValoresLancamento> anteriores, List<ValoresLancamento> atuais) {
+		Map<ResumoMensalId, ResumoMensal> somas = new LinkedHashMap<>();
+		for(int i = 0; i < anteriores.size(); i++) {
+			ValoresLancamento anterior = anteriores.get(i);
+			ValoresLancamento atual = atuais.get(i);
+			ResumoMensalId chaveAnterior = chave(anterior);
+			ResumoMensalId chaveAtual = chave(atual);
+			
+			if(chaveAnterior != null && chaveAnterior.equals(chaveAtual)) {
+				acumular(somas, chaveAtual, 0L, valor(atual).subtract(valor(anterior))); // Mudou só o valor (ou nada)
+				continue;
+			}
+			
+			if(chaveAnterior != null) {
+				acumular(somas, chaveAnterior, -1L, valor(anterior).negate());
+			}
+			
+			if(chaveAtual != null) {
+				acumular(somas, chaveAtual, 1L, valor(atual));
+			}
+		}
+		
+		for(ResumoMensal soma : somas.values()) {
+			somar(soma.getId(), soma.getQuantidade(), soma.getTotal());
+		}
+	}
+
+	/// Apaga e monta novamente a tabela inteira a partir dos lançamentos (carga inicial ou correção)
+	@Transactional
+	public int reconstruir() {
+		resumoRepository.excluirTodos();
+		List<ResumoMensal> resumos = converter(lancamentoRepository.obterTotaisMensais());
+		resumoRepository.saveAll(resumos);
+		
+		log.info("Resumo mensal reconstruído: {} linha(s)", resumos.size());
+		return resumos.size();
+	}
+
+	@Transactional(readOnly = true)
+	public List<ResumoMensal> buscar(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal,
+									 Integer anoFinal) {
+		return resumoRepository.buscarPorUsuarioEPeriodo(idUsuario, anoInicial * 100 + mesInicial,
+				anoFinal * 100 + mesFinal);
+	}
+
+	private void somar(ResumoMensalId chave, Long quantidade, BigDecimal total) {
+		if(quantidade == 0 && total.signum() == 0) {
+			return;
+		}
+		
+		int alterados = resumoRepository.somarValores(chave.getIdUsuario(), chave.getAno(), chave.getMes(),
+				chave.getTipo(), chave.getStatus(), quantidade, total);
+		
+		if(alterados == 0) {
+			//Os lançamentos já estão gravados (flush automático antes da consulta), então o total já inclui a alteração.
+			//Se outra transação inserir a linha antes, vale a linha dela mais esta diferença (upsert).
+			ResumoMensal resumo = lancamentoRepository.obterTotalMensal(chave.getIdUsuario(), chave.getAno(),
+					chave.getMes(), chave.getTipo(), chave.getStatus())
+					.map(this::converter)
+					.orElseGet(() -> new ResumoMensal(chave, 0L, BigDecimal.ZERO));
+			resumoRepository.inserirOuSomar(chave, resumo.getQuantidade(), resumo.getTotal(), quantidade, total);
+		}
+	}
+
+	private static void acumular(Map<ResumoMensalId, ResumoMensal> somas, ResumoMensalId chave, Long quantidade,
+								 BigDecimal total) {
+		ResumoMensal soma = somas.computeIfAbsent(chave, c -> new ResumoMensal(c, 0L, BigDecimal.ZERO));
+		soma.setQuantidade(soma.getQuantidade() + quantidade);
+		soma.setTotal(soma.getTotal().add(total));
+	}
+
+	private List<ResumoMensal> converter(List<TotalMensal> totais) {
+		List<ResumoMensal> resumos = new ArrayList<>(totais.size());
+		for(TotalMensal total : totais) {
+			resumos.add(converter(total));
+		}
+		return resumos;
+	}
+
+	private ResumoMensal converter(TotalMensal total) {
+		ResumoMensalId chave = new ResumoMensalId(total.getIdUsuario(), total.getAno(), total.getMes(), total.getTipo(),
+				total.getStatus());
+		return new ResumoMensal(chave, total.getQuantidade(), total.getTotal());
+	}
+
+	private static ResumoMensalId chave(ValoresLancamento valores) {
+		if(valores == null || valores.getIdUsuario() == null || valores.getTipo() == null || valores.getStatus() == null) {
+			return null;
+		}
+		return new ResumoMensalId(valores.getIdUsuario(), valores.getAno(), valores.getMes(), valores.getTipo(),
+				valores.getStatus());
+	}
+
+	private static BigDecimal valor(ValoresLancamento valores) {
+		return Objects.requireNonNullElse(valores.getValor(), BigDecimal.ZERO);
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.alefesilva.minhasfinancas.model.entity.SaldoUsuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.alefesilva.minhasfinancas.model.repository.projection.ValoresLancamento;
+import com.alefesilva.minhasfinancas.service.AgregadoLancamento;
+import com.alefesilva.minhasfinancas.service.SaldoDetalhado;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Mantém a tabela saldo_usuario (receitas e despesas EFETIVADAS de cada usuário).
+ * Cada alteração de lançamento vira um update somando a diferença entre o valor antigo e o novo, ex: um lançamento de
+ * receita de 100 que passa de PENDENTE para EFETIVADO soma 100 em receitas; se depois vira despesa de 80, tira 100 de
+ * receitas e soma 80 em despesas.
+ * Quando o usuário ainda não tem linha na tabela (primeiro lançamento ou saldo criado antes desta funcionalidade)
+ * o saldo é calculado a partir dos lançamentos e inserido por upsert (SaldoUsuarioRepositoryImpl).
+ */
+@Slf4j
+@Component
+public class AgregadoSaldoUsuario implements AgregadoLancamento {
+	
+	private final SaldoUsuarioRepository saldoRepository;
+	
+	private final LancamentoRepository lancamentoRepository;
+	
+	private final TransactionTemplate transacao;
+	
+	private enum Reconciliacao { CORRETO, DIVERGENTE, CRIADO }
+	
+	public AgregadoSaldoUsuario(SaldoUsuarioRepository saldoRepository, LancamentoRepository lancamentoRepository,
+			PlatformTransactionManager transactionManager) {
+		this.saldoRepository = saldoRepository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.transacao = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY) // Sempre dentro da transação que gravou o lançamento
+	public void registrarAlteracao(ValoresLancamento anterior, ValoresLancamento atual) {
+		registrarAlteracoes(Collections.singletonList(anterior), Collections.singletonList(atual));
+	}
+
+	/// Um único update por usuário, em vez de um por lançamento
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void registrarAlteracoes(List<ValoresLancamento> anteriores, List<ValoresLancamento> atuais) {
+		Map<Long, BigDecimal[]> somas = new LinkedHashMap<>();
+		for(int i = 0; i < anteriores.size(); i++) {
+			ValoresLancamento anterior = anteriores.get(i);
+			ValoresLancamento atual = atuais.get(i);
+			
+			//Lançamento trocou de usuário (ou é novo / foi removido): sai do saldo de um e entra no do outro
+			if(anterior != null && anterior.getIdUsuario() != null) {
+				acumular(somas, anterior.getIdUsuario(), valorEfetivado(anterior, TipoLancamento.RECEITA).negate(),
+						valorEfetivado(anterior, TipoLancamento.DESPESA).negate());
+			}
+			
+			if(atual != null && atual.getIdUsuario() != null) {
+				acumular(somas, atual.getIdUsuario(), valorEfetivado(atual, TipoLancamento.RECEITA),
+						valorEfetivado(atual, TipoLancamento.DESPESA));
+			}
+		}
+		
+		for(Map.Entry<Long, BigDecimal[]> soma : somas.entrySet()) {
+			somar(soma.getKey(), soma.getValue()[0], soma.getValue()[1]);
+		}
+	}
+
+	/// Vazio quando o saldo do usuário ainda não foi materializado
+	@Transactional(readOnly = true)
+	public Optional<BigDecimal> obterSaldo(Long idUsuario) {
+		return saldoRepository.findById(idUsuario).map(SaldoUsuario::getSaldo);
+	}
+
+	/*
+	 * Recalcula o saldo de todos os usuários a partir dos lançamentos, corrige as diferenças e retorna quantos usuários
+	 * estavam com o saldo errado. Cada usuário é conferido na sua própria transação, com a linha do saldo travada
+	 * (select ... for update) antes de somar os lançamentos: uma gravação simultânea ou já atualizou o saldo e
+	 * confirmou (e a soma enxerga o lançamento), ou espera a trava e soma a sua diferença depois da correção. Assim
+	 * nenhum lançamento gravado durante a reconciliação é contado duas vezes nem descontado.
+	 */
+	public int reconciliar() {
+		Set<Long> usuarios = new TreeSet<>(saldoRepository.obterIdsUsuarios());
+		usuarios.addAll(lancamentoRepository.obterIdsUsuarios());
+		
+		int divergencias = 0;
+		int criados = 0;
+		for(Long idUsuario : usuarios) {
+			Reconciliacao resultado = transacao.execute(status -> reconciliar(idUsuario));
+			if(resultado == Reconciliacao.DIVERGENTE) {
+				divergencias++;
+			}else if(resultado == Reconciliacao.CRIADO) {
+				criados++;
+			}
+		}
+		
+		log.info("Reconciliação do saldo: {} usuário(s) com divergência, {} saldo(s) criado(s)", divergencias, criados);
+		return divergencias;
+	}
+
+	private Reconciliacao reconciliar(Long idUsuario) {
+		Optional<SaldoUsuario> gravado = saldoRepository.bloquear(idUsuario);
+		SaldoDetalhado calculado = SaldoDetalhado.de(lancamentoRepository.obterTotaisPorTipoEStatus(idUsuario));
+		BigDecimal receitas = calculado.somar(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+		BigDecimal despesas = calculado.somar(TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+		
+		//Usuário com lançamentos mas ainda sem saldo gravado não é divergência, o saldo apenas é materializado. Pelo
+		//upsert: se uma gravação inserir a linha antes, vale a dela (a diferença somada aqui é zero)
+		if(!gravado.isPresent()) {
+			saldoRepository.inserirOuSomar(idUsuario, receitas, despesas, BigDecimal.ZERO, BigDecimal.ZERO);
+			return Reconciliacao.CRIADO;
+		}
+		
+		SaldoUsuario saldo = gravado.get();
+		if(receitas.compareTo(saldo.getReceitas()) == 0 && despesas.compareTo(saldo.getDespesas()) == 0) {
+			return Reconciliacao.CORRETO;
+		}
+		
+		log.warn("Saldo divergente do usuário {}: gravado receitas={} despesas={}, calculado receitas={} despesas={}",
+				idUsuario, saldo.getReceitas(), saldo.getDespesas(), receitas, despesas);
+		saldoRepository.somarValores(idUsuario, receitas.subtract(saldo.getReceitas()),
+				despesas.subtract(saldo.getDespesas()));
+		return Reconciliacao.DIVERGENTE;
+	}
+
+	private void somar(Long idUsuario, BigDecimal receitas, BigDecimal despesas) {
+		if(receitas.signum() == 0 && despesas.signum() == 0) {
+			return; // Ex: alterou apenas a descrição, ou um lançamento PENDENTE
+		}
+		
+		if(saldoRepository.somarValores(idUsuario, receitas, despesas) == 0) {
+			materializar(idUsuario, receitas, despesas);
+		}
+	}
+
+	/*
+	 * Usuário ainda sem linha no saldo. Os lançamentos já estão gravados (flush automático antes da consulta), então o
+	 * calculado já inclui esta alteração. Se outra transação inserir a linha antes, valem os valores dela mais esta
+	 * diferença, o calculado aqui é descartado.
+	 */
+	private void materializar(Long idUsuario, BigDecimal receitas, BigDecimal despesas) {
+		SaldoDetalhado saldo = SaldoDetalhado.de(lancamentoRepository.obterTotaisPorTipoEStatus(idUsuario));
+		saldoRepository.inserirOuSomar(idUsuario, saldo.somar(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO),
+				saldo.somar(TipoLancamento.DESPESA, StatusLancamento.EFETIVADO), receitas, despesas);
+	}
+
+	private static void acumular(Map<Long, BigDecimal[]> somas, Long idUsuario, BigDecimal receitas,
+								 BigDecimal despesas) {
+		BigDecimal[] soma = somas.computeIfAbsent(idUsuario, id -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO });
+		soma[0] = soma[0].add(receitas);
+		soma[1] = soma[1].add(despesas);
+	}
+
+	private static BigDecimal valorEfetivado(ValoresLancamento valores, TipoLancamento tipo) {
+		if(valores == null || valores.getStatus() != StatusLancamento.EFETIVADO || valores.getTipo() != tipo
+				|| valores.getValor() == null) {
+			return BigDecimal.ZERO;
+		}
+		return valores.getValor();
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.alefesilva.minhasfinancas.exception.ServicoSobrecarregadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * O BCrypt é propositalmente lento (~100ms de CPU por hash), então rodar ele direto nas threads do Tomcat faz um pico
+ * de logins travar todas as outras rotas. Aqui o hash e a conferência de senha rodam num pool próprio, do tamanho
+ * dos núcleos da máquina, com fila limitada. Com a fila cheia a requisição é recusada na hora
+ * (ServicoSobrecarregadoException -> 503) em vez de ficar esperando.
+ */
+@Component
+public class CriptografiaSenha {
+	
+	private static final String METRICA = "seguranca.senha";
+	
+	private final PasswordEncoder encoder;
+	
+	private final ThreadPoolExecutor executor;
+	
+	private final long timeoutMillis;
+	
+	private final Timer tempoCriptografar;
+	
+	private final Timer tempoConferir;
+	
+	private final Counter recusadas;
+	
+	public CriptografiaSenha(PasswordEncoder encoder, MeterRegistry registry,
+							 @Value("${seguranca.bcrypt.threads:0}") int threads,
+							 @Value("${seguranca.bcrypt.fila:100}") int tamanhoFila,
+							 @Value("${seguranca.bcrypt.timeout-ms:5000}") long timeoutMillis) {
+		this.encoder = encoder;
+		this.timeoutMillis = timeoutMillis;
+		
+		int quantidadeThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.executor = new ThreadPoolExecutor(quantidadeThreads, quantidadeThreads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(tamanhoFila), new NomeadorThreads(), new ThreadPoolExecutor.AbortPolicy());
+		
+		this.tempoCriptografar = Timer.builder(METRICA).tag("operacao", "criptografar").register(registry);
+		this.tempoConferir = Timer.builder(METRICA).tag("operacao", "conferir").register(registry);
+		this.recusadas = Counter.builder(METRICA + ".recusadas").register(registry);
+		Gauge.builder(METRICA + ".fila", executor, e -> e.getQueue().size()).register(registry);
+	}
+
+	public String criptografar(String senha) {
+		return executar(() -> encoder.encode(senha), tempoCriptografar);
+	}
+
+	public boolean conferir(String senha, String senhaCriptografada) {
+		return executar(() -> encoder.matches(senha, senhaCriptografada), tempoConferir);
+	}
+
+	/// Se o hash foi gerado com um custo menor que o configurado, deve ser refeito
+	public boolean precisaAtualizar(String senhaCriptografada) {
+		return encoder.upgradeEncoding(senhaCriptografada);
+	}
+
+	/// Recusa logo de cara quando a fila já está cheia, antes de qualquer consulta no banco
+	public void verificarDisponibilidade() {
+		if(executor.getQueue().remainingCapacity() == 0) {
+			throw recusar();
+		}
+	}
+
+	private <T> T executar(Callable<T> operacao, Timer tempo) {
+		Future<T> resultado;
+		try {
+			resultado = executor.submit(() -> tempo.recordCallable(operacao));
+		}catch(RejectedExecutionException e) {
+			throw recusar();
+		}
+		
+		try {
+			return resultado.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		}catch(TimeoutException e) {
+			resultado.cancel(true);
+			throw recusar();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			resultado.cancel(true);
+			throw recusar();
+		}catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private ServicoSobrecarregadoException recusar() {
+		recusadas.increment();
+		return new ServicoSobrecarregadoException("Muitas requisições de autenticação no momento, tente novamente em instantes.");
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdown();
+	}
+
+	private static class NomeadorThreads implements ThreadFactory {
+		
+		private final AtomicInteger contador = new AtomicInteger();
+		
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
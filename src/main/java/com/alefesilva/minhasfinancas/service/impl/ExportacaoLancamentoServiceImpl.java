@@ -0,0 +1,130 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.enums.FormatoExportacao;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.service.ExportacaoLancamentoService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Exporta o histórico de lançamentos com memória constante: as linhas vêm do banco aos poucos (Stream com fetch size),
+ * são escritas na saída e em seguida removidas do contexto do JPA (detach), assim nada acumula no heap
+ * independente de quantos lançamentos o usuário tenha.
+ */
+@Service
+public class ExportacaoLancamentoServiceImpl implements ExportacaoLancamentoService {
+	
+	private static final String CABECALHO_CSV = "id;descricao;mes;ano;valor;tipo;status;data_cadastro";
+	
+	private final LancamentoRepository repository;
+	
+	private final ObjectMapper objectMapper;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	public ExportacaoLancamentoServiceImpl(LancamentoRepository repository, ObjectMapper objectMapper) {
+		this.repository = repository;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	@Transactional(readOnly = true) // O Stream só pode ser lido dentro da transação
+	public void exportar(Lancamento lancamentoFiltro, FormatoExportacao formato, OutputStream saida) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+		JsonGenerator json = null;
+		
+		if(formato == FormatoExportacao.CSV) {
+			writer.write(CABECALHO_CSV);
+			writer.write('\n');
+		}else {
+			//Sem repassar o flush para o writer, senão cada linha iria direto para a rede
+			json = objectMapper.getFactory().createGenerator(writer)
+					.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			json.setRootValueSeparator(null);
+		}
+		
+		try(Stream<Lancamento> lancamentos = repository.exportar(lancamentoFiltro)) {
+			
+			Iterator<Lancamento> iterator = lancamentos.iterator();
+			while(iterator.hasNext()) {
+				Lancamento lancamento = iterator.next();
+				
+				if(json != null) {
+					escreverJson(json, lancamento);
+					json.flush();
+				}else {
+					escreverCsv(writer, lancamento);
+				}
+				
+				writer.write('\n');
+				entityManager.detach(lancamento); // Já foi escrito, não precisa continuar no contexto
+			}
+		}
+		
+		writer.flush();
+	}
+
+	private void escreverCsv(Writer writer, Lancamento lancamento) throws IOException {
+		writer.write(String.valueOf(lancamento.getId()));
+		writer.write(';');
+		writer.write(campoCsv(lancamento.getDescricao()));
+		writer.write(';');
+		writer.write(String.valueOf(lancamento.getMes()));
+		writer.write(';');
+		writer.write(String.valueOf(lancamento.getAno()));
+		writer.write(';');
+		writer.write(lancamento.getValor() != null ? lancamento.getValor().toPlainString() : "");
+		writer.write(';');
+		writer.write(lancamento.getTipo() != null ? lancamento.getTipo().name() : "");
+		writer.write(';');
+		writer.write(lancamento.getStatus() != null ? lancamento.getStatus().name() : "");
+		writer.write(';');
+		writer.write(lancamento.getDataCadastro() != null ? lancamento.getDataCadastro().toString() : "");
+	}
+
+	/// Campo entre aspas (dobrando as aspas internas) quando tiver separador, aspas ou quebra de linha
+	private String campoCsv(String valor) {
+		if(valor == null) {
+			return "";
+		}
+		
+		if(valor.indexOf(';') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+			return valor;
+		}
+		
+		return '"' + valor.replace("\"", "\"\"") + '"';
+	}
+
+	private void escreverJson(JsonGenerator json, Lancamento lancamento) throws IOException {
+		json.writeStartObject();
+		json.writeNumberField("id", lancamento.getId());
+		json.writeStringField("descricao", lancamento.getDescricao());
+		json.writeObjectField("mes", lancamento.getMes());
+		json.writeObjectField("ano", lancamento.getAno());
+		json.writeObjectField("valor", lancamento.getValor());
+		json.writeStringField("tipo", lancamento.getTipo() != null ? lancamento.getTipo().name() : null);
+		json.writeStringField("status", lancamento.getStatus() != null ? lancamento.getStatus().name() : null);
+		json.writeStringField("dataCadastro", lancamento.getDataCadastro() != null ? lancamento.getDataCadastro().toString() : null);
+		json.writeNumberField("usuario", lancamento.getUsuario().getId());
+		json.writeEndObject();
+	}
+
+}
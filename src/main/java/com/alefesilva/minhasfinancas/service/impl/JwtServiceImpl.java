@@ -1,31 +1,59 @@
 package com.alefesilva.minhasfinancas.service.impl;
 
+import java.security.Key;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Base64;
 import java.util.Date;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.alefesilva.minhasfinancas.exception.TokenInvalidoException;
+import com.alefesilva.minhasfinancas.exception.TokenInvalidoException.Motivo;
 import com.alefesilva.minhasfinancas.model.entity.Usuario;
 import com.alefesilva.minhasfinancas.service.JwtService;
+import com.alefesilva.minhasfinancas.service.TokenVerificado;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
 
 //Geramos as classes automáticamente pelo autoComplete, depois criamos a lógica de cada método
 @Service
 public class JwtServiceImpl implements JwtService{
 	
+	private static final SignatureAlgorithm ALGORITMO = SignatureAlgorithm.HS512;
+	
 	@Value("${jwt.expiracao}")
 	private String expiracao;
 	
 	@Value("${jwt.chave-assinatura}")
 	private String chaveAssinatura;
+	
+	private Key chave;
+	
+	private JwtParser parser;
+	
+	/* A chave de assinatura vem em base64 no app.properties, antes ela era decodificada a cada token gerado/validado.
+	 * Agora montamos a chave e o parser uma única vez na subida da aplicação. Depois de configurado o parser
+	 * só é lido, por isso pode ser compartilhado entre as requisições.
+	 */
+	@PostConstruct
+	public void prepararChave() {
+		byte[] bytesChave = Base64.getDecoder().decode(chaveAssinatura);
+		this.chave = new SecretKeySpec(bytesChave, ALGORITMO.getJcaName());
+		this.parser = Jwts.parser().setSigningKey(chave);
+	}
 
 	@Override
 	public String gerarToken(Usuario usuario) {
@@ -36,14 +64,18 @@ public class JwtServiceImpl implements JwtService{
 		
 		String horaExpiracaoToken = dataHoraExpiracao.toLocalTime().format(DateTimeFormatter.ofPattern("HH:mm"));
 		
+		long emitidoEm = System.currentTimeMillis();
+		
 		String token = Jwts
 						.builder()
 						.setExpiration(data)
+						.setIssuedAt(new Date(emitidoEm))
+						.claim("emitidoEm", emitidoEm) //O "iat" só tem segundos; em millis para comparar com a invalidação dos tokens do usuário
 						.setSubject(usuario.getEmail()) //Identificação do usuário, pode ser email, idUser etc ....
 						.claim("userid",usuario.getId())
 						.claim("nome",usuario.getNome())
 						.claim("horaExpiracao", horaExpiracaoToken)
-						.signWith( SignatureAlgorithm.HS512, chaveAssinatura) //Algoritmo de criptografia e nossa chave única criada no app.properties
+						.signWith( ALGORITMO, chave) //Algoritmo de criptografia e nossa chave única criada no app.properties
 					    .compact(); // Constrói o token
 		return token;
 	}
@@ -54,9 +86,7 @@ public class JwtServiceImpl implements JwtService{
 		 * e conseguimos resgatar as informação contidas dentro dele
 		 */
 		
-		return Jwts
-				.parser()
-				.setSigningKey(chaveAssinatura)
+		return parser
 				.parseClaimsJws(token)
 				.getBody();
 	}
@@ -64,13 +94,9 @@ public class JwtServiceImpl implements JwtService{
 	@Override
 	public boolean isTokenValido(String token) {
 		try {
-			Claims claims = obterClaims(token);
-			Date dataEx = claims.getExpiration(); // Date pacote util
-			LocalDateTime dataExpiracao = dataEx.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime(); // Data convertida para pegando do fuso horário do SO
-			boolean dataHoraAtualIsAfterExpiracao = LocalDateTime.now().isAfter(dataExpiracao); //Se a data é maior que a data de expiração do token
-			
-			return !dataHoraAtualIsAfterExpiracao; // Retorna que não é maior que a data do token, se for dispara excessão
-		}catch(ExpiredJwtException e) {
+			verificarToken(token);
+			return true;
+		}catch(TokenInvalidoException e) {
 			return false;
 		}
 	}
@@ -82,4 +108,41 @@ public class JwtServiceImpl implements JwtService{
 		return claims.getSubject(); //Simplesmente irá retornar o identificador do usuário assinado no token
 	}
 
+	@Override
+	public TokenVerificado verificarToken(String token) {
+		Claims claims;
+		try {
+			claims = obterClaims(token);
+		}catch(ExpiredJwtException e) {
+			throw new TokenInvalidoException(Motivo.EXPIRADO, "Token expirado.");
+		}catch(SignatureException e) {
+			throw new TokenInvalidoException(Motivo.ASSINATURA_INVALIDA, "Assinatura do token inválida.");
+		}catch(JwtException | IllegalArgumentException e) {
+			throw new TokenInvalidoException(Motivo.MALFORMADO, "Token mal formado.");
+		}
+		
+		Date dataExpiracao = claims.getExpiration();
+		if(dataExpiracao == null) {
+			throw new TokenInvalidoException(Motivo.MALFORMADO, "Token sem data de expiração.");
+		}
+		
+		// Comparação direta em epoch millis, sem conversão de fuso horário
+		long expiracaoEmMillis = dataExpiracao.getTime();
+		if(System.currentTimeMillis() >= expiracaoEmMillis) {
+			throw new TokenInvalidoException(Motivo.EXPIRADO, "Token expirado.");
+		}
+		
+		Number idUsuario = claims.get("userid", Number.class);
+		Number emitidoEm = claims.get("emitidoEm", Number.class);
+		Date dataEmissao = claims.getIssuedAt(); // Tokens emitidos antes da claim emitidoEm, só com os segundos
+		long emitidoEmMillis = emitidoEm != null ? emitidoEm.longValue() : dataEmissao != null ? dataEmissao.getTime() : 0;
+		
+		return new TokenVerificado(
+				claims.getSubject(),
+				idUsuario != null ? idUsuario.longValue() : null,
+				claims.get("nome", String.class),
+				emitidoEmMillis,
+				expiracaoEmMillis);
+	}
+
 }
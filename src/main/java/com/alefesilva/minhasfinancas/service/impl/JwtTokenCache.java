@@ -0,0 +1,123 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.alefesilva.minhasfinancas.service.TokenVerificado;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/*
+ * Cache dos tokens que já passaram pela validação de assinatura, assim o mesmo token enviado várias vezes pelo front
+ * não precisa ser decodificado e verificado (HS512) a cada requisição.
+ * A chave é o hash SHA-256 do token (não guardamos o token em si na memória) e a entrada expira no menor tempo entre
+ * o "exp" do token e o TTL configurado, além de ser limitada pelo tamanho máximo.
+ */
+@Component
+public class JwtTokenCache implements MeterBinder {
+	
+	private final Cache<String, TokenVerificado> cache;
+	
+	@Autowired
+	public JwtTokenCache(@Value("${jwt.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+						 @Value("${jwt.cache.ttl-segundos:300}") long ttlSegundos) {
+		this(tamanhoMaximo, ttlSegundos, Ticker.systemTicker());
+	}
+
+	/// Relógio informado pelos testes, para avançar o tempo sem esperar
+	public JwtTokenCache(long tamanhoMaximo, long ttlSegundos, Ticker relogio) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfter(new ExpiraNoVencimentoDoToken(TimeUnit.SECONDS.toNanos(ttlSegundos)))
+				.ticker(relogio)
+				.recordStats()
+				.build();
+	}
+
+	/// Retorna o token já verificado ou null caso ainda não esteja no cache (ou tenha expirado)
+	public TokenVerificado obter(String token) {
+		return cache.getIfPresent(gerarChave(token));
+	}
+
+	public void armazenar(String token, TokenVerificado tokenVerificado) {
+		cache.put(gerarChave(token), tokenVerificado);
+	}
+
+	public long getAcertos() {
+		return cache.stats().hitCount();
+	}
+
+	public long getFalhas() {
+		return cache.stats().missCount();
+	}
+
+	public CacheStats estatisticas() {
+		return cache.stats();
+	}
+
+	public void limpar() {
+		cache.invalidateAll();
+	}
+
+	/// Quantidade de tokens no cache, depois de aplicar as remoções pendentes (tamanho e vencimento)
+	public long tamanho() {
+		cache.cleanUp();
+		return cache.estimatedSize();
+	}
+
+	/// Acertos/falhas, tamanho e remoções do cache, ex: cache_gets_total{cache="jwt.tokens",result="hit"}
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "jwt.tokens");
+	}
+
+	private String gerarChave(String token) {
+		try {
+			//MessageDigest não é thread-safe, por isso criamos uma instância por chamada (é barato)
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Algoritmo SHA-256 indisponível na JVM.", e);
+		}
+	}
+
+	private static class ExpiraNoVencimentoDoToken implements Expiry<String, TokenVerificado> {
+		
+		private final long ttlNanos;
+		
+		ExpiraNoVencimentoDoToken(long ttlNanos) {
+			this.ttlNanos = ttlNanos;
+		}
+		
+		@Override
+		public long expireAfterCreate(String chave, TokenVerificado token, long tempoAtual) {
+			long restanteNanos = TimeUnit.MILLISECONDS.toNanos(token.getExpiracaoEmMillis() - System.currentTimeMillis());
+			return Math.max(0, Math.min(ttlNanos, restanteNanos));
+		}
+		
+		@Override
+		public long expireAfterUpdate(String chave, TokenVerificado token, long tempoAtual, long duracaoAtual) {
+			return expireAfterCreate(chave, token, tempoAtual);
+		}
+		
+		@Override
+		public long expireAfterRead(String chave, TokenVerificado token, long tempoAtual, long duracaoAtual) {
+			return duracaoAtual; // Leitura não renova a validade
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+
+import org.springframework.stereotype.Service;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryReativo;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.alefesilva.minhasfinancas.service.LancamentoReativoService;
+import com.alefesilva.minhasfinancas.service.SaldoDetalhado;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Mesmas regras de leitura do LancamentoServiceImpl (validação do período, saldo materializado com a soma dos
+ * lançamentos como alternativa), lendo pelo LancamentoRepositoryReativo. Sem @Transactional: são consultas
+ * isoladas, e o gerenciador de transações da aplicação é o do JPA.
+ */
+@Service
+@RequiredArgsConstructor
+public class LancamentoReativoServiceImpl implements LancamentoReativoService {
+	
+	private final LancamentoRepositoryReativo repository;
+	
+	@Override
+	public Mono<Boolean> existeUsuario(Long idUsuario) {
+		return repository.existeUsuario(idUsuario);
+	}
+
+	@Override
+	public Flux<ItemLancamento> buscar(Lancamento lancamentoFiltro) {
+		return repository.buscar(lancamentoFiltro);
+	}
+
+	@Override
+	public Flux<ItemLancamento> buscarPorPeriodo(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal,
+												 Integer anoFinal) {
+		LancamentoServiceImpl.validarPeriodo(mesInicial, anoInicial, mesFinal, anoFinal);
+		
+		return repository.buscarPorPeriodo(idUsuario, Lancamento.calcularCompetencia(anoInicial, mesInicial),
+				Lancamento.calcularCompetencia(anoFinal, mesFinal));
+	}
+
+	@Override
+	public Mono<BigDecimal> obterSaldoPorUsuario(Long idUsuario) {
+		//Saldo materializado, somando os lançamentos (mesma regra do SaldoDetalhado) só se ainda não existir
+		return repository.obterSaldo(idUsuario)
+				.switchIfEmpty(Mono.defer(() -> repository.obterTotaisPorTipoEStatus(idUsuario)
+						.collectList()
+						.map(totais -> SaldoDetalhado.de(totais).getSaldoRealizado())));
+	}
+
+}
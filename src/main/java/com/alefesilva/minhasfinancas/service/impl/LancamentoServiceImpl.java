@@ -1,31 +1,61 @@
 package com.alefesilva.minhasfinancas.service.impl;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
-import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
 import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensal;
 import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
-import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
 import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ValoresLancamento;
+import com.alefesilva.minhasfinancas.service.AgregadoLancamento;
+import com.alefesilva.minhasfinancas.service.CursorLancamento;
 import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.alefesilva.minhasfinancas.service.Pagina;
+import com.alefesilva.minhasfinancas.service.ResultadoLote;
+import com.alefesilva.minhasfinancas.service.SaldoDetalhado;
 
 
 @Service  ///Para garantir que aconteça a injeção de dependência
 public class LancamentoServiceImpl implements LancamentoService{
 	
+	static final int TAMANHO_PAGINA_PADRAO = 50;
+	
+	static final int TAMANHO_PAGINA_MAXIMO = 200;
+	
+	static final int TAMANHO_AUTOCOMPLETE_PADRAO = 10;
+	
+	static final int TAMANHO_AUTOCOMPLETE_MAXIMO = 50;
+	
+	static final int TAMANHO_BLOCO_LOTE = 1000; // Ids por update/delete nas operações em lote (tamanho do "in")
+	
+	static final int MAXIMO_MESES_PERIODO_LOTE = 120; // Período das operações em lote por período (10 anos)
+	
 	private LancamentoRepository repository;
 	
-	public LancamentoServiceImpl(LancamentoRepository repository) {
+	private AgregadoSaldoUsuario saldoUsuario;
+	
+	private AgregadoResumoMensal resumoMensal;
+	
+	private List<AgregadoLancamento> agregados;
+	
+	public LancamentoServiceImpl(LancamentoRepository repository, AgregadoSaldoUsuario saldoUsuario,
+								 AgregadoResumoMensal resumoMensal, List<AgregadoLancamento> agregados) {
 		this.repository = repository;
+		this.saldoUsuario = saldoUsuario;
+		this.resumoMensal = resumoMensal;
+		this.agregados = agregados;
 	}
 
 	@Override
@@ -33,7 +63,44 @@ public class LancamentoServiceImpl implements LancamentoService{
 	public Lancamento salvar(Lancamento lancamento) {
 		validar(lancamento);
 		lancamento.setStatus(StatusLancamento.PENDENTE); // Na regra de negócio quando reaizamos um lançamento ele vem nesse status
-		return repository.save(lancamento);
+		Lancamento lancamentoSalvo = repository.save(lancamento);
+		registrarAlteracao(null, lancamentoSalvo);
+		return lancamentoSalvo;
+	}
+
+	/*
+	 * Valida todos os lançamentos e grava apenas os válidos, retornando o erro de cada linha recusada.
+	 * Os ids vêm da sequência já reservados em blocos, então o hibernate envia os inserts em lotes de
+	 * hibernate.jdbc.batch_size em vez de um insert por vez.
+	 */
+	@Override
+	@Transactional
+	public ResultadoLote salvarLote(List<Lancamento> lancamentos) {
+		List<ResultadoLote.Erro> erros = new ArrayList<>();
+		List<Lancamento> validos = new ArrayList<>(lancamentos.size());
+		
+		for(int linha = 0; linha < lancamentos.size(); linha++) {
+			Lancamento lancamento = lancamentos.get(linha);
+			try {
+				validar(lancamento);
+				lancamento.setStatus(StatusLancamento.PENDENTE);
+				validos.add(lancamento);
+			}catch(RegraNegocioException e) {
+				erros.add(new ResultadoLote.Erro(linha, e.getMessage()));
+			}
+		}
+		
+		if(!validos.isEmpty()) {
+			repository.saveAll(validos);
+			repository.flush(); // Envia os inserts antes dos updates dos agregados
+			
+			List<ValoresLancamento> valores = validos.stream().map(ValoresLancamento::de).collect(Collectors.toList());
+			for(AgregadoLancamento agregado : agregados) {
+				agregado.registrarInclusoes(valores);
+			}
+		}
+		
+		return new ResultadoLote(validos.size(), erros);
 	}
 
 	@Override
@@ -41,40 +108,256 @@ public class LancamentoServiceImpl implements LancamentoService{
 	public Lancamento atualizar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId()); // Para garantir que irá passar um lanc com ID
 		validar(lancamento);
-		return repository.save(lancamento);
+		ValoresLancamento anterior = repository.obterValoresGravados(lancamento.getId()).orElse(null);
+		Lancamento lancamentoAtualizado = repository.save(lancamento);
+		registrarAlteracao(anterior, lancamentoAtualizado);
+		return lancamentoAtualizado;
 	}
 
 	@Override
 	@Transactional
 	public void deletar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
+		ValoresLancamento anterior = repository.obterValoresGravados(lancamento.getId()).orElse(null);
 		repository.delete(lancamento);
+		registrarAlteracao(anterior, null);
+	}
+
+	/*
+	 * Escritas de um lançamento pelo id, usadas pelo resource. Máximo de comandos SQL de cada uma (conferido no
+	 * LancamentoEscritaTest), com as linhas do resumo mensal e do saldo já existentes:
+	 *  - salvar: insert + 1 update no resumo = 2 (o novo lançamento é PENDENTE, não mexe no saldo)
+	 *  - atualizar(id, dados): select + update + 2 updates no resumo (célula anterior e atual) + 1 no saldo = 5
+	 *  - atualizarStatus(id, status): select da projeção + update do status + 2 no resumo + 1 no saldo = 5
+	 *  - deletar(id): select dos valores gravados + delete + 1 no resumo + 1 no saldo = 4
+	 * O usuário chega como referência (proxy do id), então não há select na tabela de usuário; um id inexistente
+	 * esbarra na chave estrangeira. Fora isso, somam-se o nextval da sequência a cada 50 inserts e, quando a linha
+	 * do resumo ainda não existe, a consulta do total do mês e o insert.
+	 */
+	@Override
+	@Transactional
+	public Lancamento atualizar(Long id, Lancamento dados) {
+		validar(dados);
+		Lancamento lancamento = repository.bloquear(id).orElseThrow(this::lancamentoNaoEncontrado);
+		ValoresLancamento anterior = ValoresLancamento.de(lancamento);
+		
+		//Altera a própria entidade carregada: o hibernate gera o update no flush, sem o select extra do merge,
+		//e a data de cadastro original é mantida
+		lancamento.setDescricao(dados.getDescricao());
+		lancamento.setMes(dados.getMes());
+		lancamento.setAno(dados.getAno());
+		lancamento.setValor(dados.getValor());
+		lancamento.setTipo(dados.getTipo());
+		lancamento.setUsuario(dados.getUsuario());
+		if(dados.getStatus() != null) {
+			lancamento.setStatus(dados.getStatus());
+		}
+		
+		registrarAlteracao(anterior, lancamento);
+		return lancamento;
+	}
+
+	@Override
+	@Transactional
+	public ItemLancamento atualizarStatus(Long id, StatusLancamento status) {
+		validarStatus(status);
+		ItemLancamento anterior = repository.obterItem(id).orElseThrow(this::lancamentoNaoEncontrado);
+		
+		ItemLancamento atual = new ItemLancamento(anterior.getId(), anterior.getDescricao(), anterior.getMes(),
+				anterior.getAno(), anterior.getCompetencia(), anterior.getValor(), anterior.getTipo(), status,
+				anterior.getIdUsuario());
+		
+		if(status != anterior.getStatus()) {
+			repository.atualizarStatusPorId(id, status);
+			atualizarAgregados(ValoresLancamento.de(anterior), ValoresLancamento.de(atual));
+		}
+		return atual;
+	}
+
+	@Override
+	@Transactional
+	public void deletar(Long id) {
+		ValoresLancamento anterior = repository.obterValoresGravados(id).orElseThrow(this::lancamentoNaoEncontrado);
+		repository.excluirPorId(id);
+		atualizarAgregados(anterior, null);
+	}
+
+	private RegraNegocioException lancamentoNaoEncontrado() {
+		return new RegraNegocioException("Lançamento não encontrado na base de dados.");
 	}
 
 	@Override
 	@Transactional(readOnly = true) // Apenas leitura
-	public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
-		//withIgnoreCase() -> Não leva em conta o case sensitive
-		//withStringMatcher() -> Usamos para buscar como um like do SQL, porém a diferença é que temos
-		//o starting que busca pelo inicio da String, end no final e assim por diante. No exemplo
-		//utilizamos o que busca a String como um todo.
+	public List<ItemLancamento> buscar(Lancamento lancamentoFiltro) {
+		//A descrição é buscada como um like do SQL (contém), sem diferenciar maiúsculas de minúsculas. Os demais filtros
+		//só entram na consulta quando preenchidos (ver LancamentoRepositoryImpl).
+		return repository.buscarItens(lancamentoFiltro, null, null, null);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Pagina<ItemLancamento> buscarPagina(Lancamento lancamentoFiltro, String cursor, Integer limite) {
+		CursorLancamento posicao = CursorLancamento.decodificar(cursor);
+		int tamanhoPagina = tamanhoPagina(limite);
+		boolean inicio = posicao == CursorLancamento.INICIO;
 		
-		Example<Lancamento> example = Example.of(lancamentoFiltro,
-				ExampleMatcher.matching()
-				.withIgnoreCase()
-				.withIgnoreNullValues()
-				.withIgnorePaths("id","valor","dataCadastro","status")
-				.withStringMatcher(StringMatcher.CONTAINING)); //Funciona como um like
+		List<ItemLancamento> itens = repository.buscarItens(lancamentoFiltro,
+				inicio ? null : posicao.getCompetencia(),
+				inicio ? null : posicao.getId(),
+				tamanhoPagina + 1); // Um a mais para saber se existe próxima página
 		
-		return repository.findAll(example);
+		return Pagina.de(itens, tamanhoPagina, CursorLancamento::codificar);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public List<String> buscarDescricoes(Long idUsuario, String prefixo, Integer limite) {
+		if(prefixo == null || prefixo.trim().isEmpty()) {
+			throw new RegraNegocioException("Informe o início da descrição.");
+		}
+		
+		if(limite != null && limite < 1) {
+			throw new RegraNegocioException("Informe um limite de descrições válido.");
+		}
+		
+		int quantidade = limite == null ? TAMANHO_AUTOCOMPLETE_PADRAO : Math.min(limite, TAMANHO_AUTOCOMPLETE_MAXIMO);
+		return repository.buscarDescricoes(idUsuario, LancamentoRepository.padraoPrefixo(prefixo),
+				PageRequest.of(0, quantidade));
+	}
+
+	@Override
+	@Transactional
 	public void atualizarStatus(Lancamento lancamento, StatusLancamento status) {
 		lancamento.setStatus(status);
 		atualizar(lancamento);
 	}
 
+	/*
+	 * Operações em lote: os lançamentos afetados são lidos (só as colunas da projeção) e travados com select ... for
+	 * update, depois alterados com um update/delete por bloco de ids, sem carregar as entidades. Lançamentos de outro
+	 * usuário são ignorados. Como nada muda os lançamentos travados até o fim da transação, os agregados recebem a
+	 * diferença exata dos valores lidos (um update por usuário no saldo e por mês/tipo/status no resumo), e uma
+	 * gravação simultânea de outro lançamento do usuário continua somando a sua própria diferença sem ser perdida.
+	 */
+	@Override
+	@Transactional
+	public int atualizarStatusLote(Long idUsuario, List<Long> ids, StatusLancamento status) {
+		validarStatus(status);
+		
+		List<ItemLancamento> lancamentos = new ArrayList<>();
+		for(List<Long> bloco : dividirEmBlocos(distintos(ids))) {
+			lancamentos.addAll(repository.bloquearItens(idUsuario, bloco));
+		}
+		
+		return atualizarStatus(idUsuario, lancamentos, status);
+	}
+
+	@Override
+	@Transactional
+	public int atualizarStatusPeriodo(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal,
+									  Integer anoFinal, StatusLancamento status) {
+		validarStatus(status);
+		
+		validarPeriodoLote(mesInicial, anoInicial, mesFinal, anoFinal);
+		
+		List<ItemLancamento> lancamentos = repository.bloquearItensPorPeriodo(idUsuario,
+				Lancamento.calcularCompetencia(anoInicial, mesInicial), Lancamento.calcularCompetencia(anoFinal, mesFinal));
+		
+		return atualizarStatus(idUsuario, lancamentos, status);
+	}
+
+	@Override
+	@Transactional
+	public int deletarLote(Long idUsuario, List<Long> ids) {
+		List<ItemLancamento> lancamentos = new ArrayList<>();
+		for(List<Long> bloco : dividirEmBlocos(distintos(ids))) {
+			lancamentos.addAll(repository.bloquearItens(idUsuario, bloco));
+		}
+		
+		return excluir(idUsuario, lancamentos);
+	}
+
+	@Override
+	@Transactional
+	public int deletarPeriodo(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal, Integer anoFinal) {
+		validarPeriodoLote(mesInicial, anoInicial, mesFinal, anoFinal);
+		
+		List<ItemLancamento> lancamentos = repository.bloquearItensPorPeriodo(idUsuario,
+				Lancamento.calcularCompetencia(anoInicial, mesInicial), Lancamento.calcularCompetencia(anoFinal, mesFinal));
+		
+		return excluir(idUsuario, lancamentos);
+	}
+
+	//Lançamentos já travados; os que já estão no status pedido não são alterados
+	private int atualizarStatus(Long idUsuario, List<ItemLancamento> lancamentos, StatusLancamento status) {
+		List<Long> ids = new ArrayList<>();
+		List<ValoresLancamento> anteriores = new ArrayList<>();
+		List<ValoresLancamento> atuais = new ArrayList<>();
+		for(ItemLancamento lancamento : lancamentos) {
+			if(lancamento.getStatus() != status) {
+				ids.add(lancamento.getId());
+				anteriores.add(ValoresLancamento.de(lancamento));
+				atuais.add(new ValoresLancamento(lancamento.getIdUsuario(), lancamento.getAno(), lancamento.getMes(),
+						lancamento.getTipo(), status, lancamento.getValor()));
+			}
+		}
+		
+		for(List<Long> bloco : dividirEmBlocos(ids)) {
+			repository.atualizarStatus(idUsuario, bloco, status);
+		}
+		
+		registrarAlteracoes(anteriores, atuais);
+		return ids.size();
+	}
+
+	private int excluir(Long idUsuario, List<ItemLancamento> lancamentos) {
+		List<Long> ids = new ArrayList<>(lancamentos.size());
+		List<ValoresLancamento> anteriores = new ArrayList<>(lancamentos.size());
+		for(ItemLancamento lancamento : lancamentos) {
+			ids.add(lancamento.getId());
+			anteriores.add(ValoresLancamento.de(lancamento));
+		}
+		
+		for(List<Long> bloco : dividirEmBlocos(ids)) {
+			repository.excluir(idUsuario, bloco);
+		}
+		
+		registrarAlteracoes(anteriores, Collections.nCopies(anteriores.size(), null));
+		return ids.size();
+	}
+
+	private void validarStatus(StatusLancamento status) {
+		if(status == null) {
+			throw new RegraNegocioException("Informe um status de lançamento válido.");
+		}
+	}
+
+	private static List<Long> distintos(List<Long> ids) {
+		if(ids == null || ids.isEmpty()) {
+			throw new RegraNegocioException("Informe os lançamentos.");
+		}
+		
+		return ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+	}
+
+	private static List<List<Long>> dividirEmBlocos(List<Long> ids) {
+		List<List<Long>> blocos = new ArrayList<>();
+		for(int inicio = 0; inicio < ids.size(); inicio += TAMANHO_BLOCO_LOTE) {
+			blocos.add(ids.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_LOTE, ids.size())));
+		}
+		return blocos;
+	}
+
+	/// Um período sem limite (ex: 01/1000 a 12/9999) travaria todos os lançamentos do usuário de uma vez
+	private void validarPeriodoLote(Integer mesInicial, Integer anoInicial, Integer mesFinal, Integer anoFinal) {
+		validarPeriodo(mesInicial, anoInicial, mesFinal, anoFinal);
+		
+		long meses = (anoFinal * 12L + mesFinal) - (anoInicial * 12L + mesInicial) + 1;
+		if(meses > MAXIMO_MESES_PERIODO_LOTE) {
+			throw new RegraNegocioException("Informe um período de no máximo " + MAXIMO_MESES_PERIODO_LOTE + " meses.");
+		}
+	}
+
 	@Override
 	public void validar(Lancamento lancamento) {
 		
@@ -117,25 +400,85 @@ public class LancamentoServiceImpl implements LancamentoService{
 	@Override
 	@Transactional(readOnly = true) // Somente leitura
 	public BigDecimal obterSaldoPorUsuario(Long id) {
-		BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
-		BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+		//Saldo materializado (leitura pela chave primária), somando os lançamentos só se ainda não existir
+		return saldoUsuario.obterSaldo(id).orElseGet(() -> obterSaldoDetalhadoPorUsuario(id).getSaldoRealizado());
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public SaldoDetalhado obterSaldoDetalhadoPorUsuario(Long id) {
+		return SaldoDetalhado.de(repository.obterTotaisPorTipoEStatus(id));
+	}
+	
+	//Atualiza o saldo e demais valores agregados na mesma transação da gravação do lançamento
+	private void registrarAlteracao(ValoresLancamento anterior, Lancamento atual) {
+		atualizarAgregados(anterior, atual != null ? ValoresLancamento.de(atual) : null);
+	}
+	
+	private void atualizarAgregados(ValoresLancamento anterior, ValoresLancamento atual) {
+		for(AgregadoLancamento agregado : agregados) {
+			agregado.registrarAlteracao(anterior, atual);
+		}
+	}
+	
+	private void registrarAlteracoes(List<ValoresLancamento> anteriores, List<ValoresLancamento> atuais) {
+		for(AgregadoLancamento agregado : agregados) {
+			agregado.registrarAlteracoes(anteriores, atuais);
+		}
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public Pagina<Lancamento> buscarLancamentosPeriodo(Long id, Integer mesAtual, Integer mesFinal, Integer anoAtual,
+													   Integer anoFinal, String cursor, Integer limite){
+		validarPeriodo(mesAtual, anoAtual, mesFinal, anoFinal);
+		
+		CursorLancamento posicao = CursorLancamento.decodificar(cursor);
+		int tamanhoPagina = tamanhoPagina(limite);
+		
+		List<Lancamento> lancamentos = repository.obterLancamentosPorUsuarioECompetencia(id,
+				Lancamento.calcularCompetencia(anoAtual, mesAtual), Lancamento.calcularCompetencia(anoFinal, mesFinal),
+				posicao.getCompetencia(), posicao.getId(), PageRequest.of(0, tamanhoPagina + 1));
 		
-		if(receitas == null) {
-			receitas = BigDecimal.ZERO;
+		return Pagina.de(lancamentos, tamanhoPagina, CursorLancamento::codificar);
+	}
+	
+	private int tamanhoPagina(Integer limite) {
+		if(limite == null) {
+			return TAMANHO_PAGINA_PADRAO;
 		}
 		
-		if(despesas == null) {
-			despesas = BigDecimal.ZERO;
+		if(limite < 1) {
+			throw new RegraNegocioException("Informe um limite de itens por página válido.");
 		}
 		
-		return receitas.subtract(despesas);
+		return Math.min(limite, TAMANHO_PAGINA_MAXIMO);
 	}
 	
 	@Override
 	@Transactional(readOnly = true)
-	public List<Lancamento> buscarLancamentosPeriodo(Long id, Integer mesAtual, Integer mesFinal, Integer anoAtual, 
-													Integer anoFinal){
-		return repository.obterLancamentosPorPeriodoEUsuario(id, mesAtual, mesFinal, anoAtual, anoFinal);
+	public List<ResumoMensal> obterResumoMensal(Long idUsuario, Integer mesInicial, Integer anoInicial, Integer mesFinal,
+												Integer anoFinal) {
+		validarPeriodo(mesInicial, anoInicial, mesFinal, anoFinal);
+		
+		//Lê direto da tabela resumo_mensal, sem somar os lançamentos
+		return resumoMensal.buscar(idUsuario, mesInicial, anoInicial, mesFinal, anoFinal);
+	}
+	
+	/// Também usada pela leitura reativa (LancamentoReativoServiceImpl), para as duas APIs recusarem os mesmos períodos
+	static void validarPeriodo(Integer mesInicial, Integer anoInicial, Integer mesFinal, Integer anoFinal) {
+		if(mesInicial == null || mesInicial < 1 || mesInicial > 12 || mesFinal == null || mesFinal < 1 || mesFinal > 12) {
+			throw new RegraNegocioException("Informe um Mês válido.");
+		}
+		
+		if(anoInicial == null || anoInicial.toString().length() != 4 || anoFinal == null
+				|| anoFinal.toString().length() != 4) {
+			throw new RegraNegocioException("Informe um Ano válido.");
+		}
+		
+		if(anoInicial * 100 + mesInicial > anoFinal * 100 + mesFinal) {
+			throw new RegraNegocioException("O período inicial deve ser anterior ao período final.");
+		}
 	}
 
 }
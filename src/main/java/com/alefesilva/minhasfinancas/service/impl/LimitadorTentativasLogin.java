@@ -0,0 +1,143 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.alefesilva.minhasfinancas.exception.MuitasTentativasException;
+
+/*
+ * Conta as falhas de login por email e por IP numa janela deslizante (ex: últimos 15 minutos).
+ * Ao passar do limite o login é recusado antes de consultar o banco ou rodar o BCrypt.
+ *
+ * A janela é dividida em fatias de 1 minuto e cada chave tem seus próprios contadores atômicos, então logins
+ * simultâneos de usuários diferentes não disputam o mesmo lock. Chaves sem falhas dentro da janela são removidas
+ * periodicamente.
+ */
+@Component
+public class LimitadorTentativasLogin {
+	
+	private static final long TAMANHO_FATIA_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	
+	private final ConcurrentHashMap<String, JanelaFalhas> falhasPorEmail = new ConcurrentHashMap<>();
+	
+	private final ConcurrentHashMap<String, JanelaFalhas> falhasPorIp = new ConcurrentHashMap<>();
+	
+	private final int quantidadeFatias;
+	
+	private final int maximoFalhasEmail;
+	
+	private final int maximoFalhasIp;
+	
+	public LimitadorTentativasLogin(@Value("${seguranca.login.janela-minutos:15}") int janelaMinutos,
+									@Value("${seguranca.login.max-falhas-email:5}") int maximoFalhasEmail,
+									@Value("${seguranca.login.max-falhas-ip:20}") int maximoFalhasIp) {
+		this.quantidadeFatias = janelaMinutos;
+		this.maximoFalhasEmail = maximoFalhasEmail;
+		this.maximoFalhasIp = maximoFalhasIp;
+	}
+
+	/// Dispara MuitasTentativasException se o email ou o IP já passaram do limite de falhas na janela
+	public void verificarBloqueio(String email, String ip) {
+		long fatiaAtual = fatiaAtual();
+		
+		if(ultrapassouLimite(falhasPorEmail, normalizar(email), maximoFalhasEmail, fatiaAtual)
+				|| ultrapassouLimite(falhasPorIp, ip, maximoFalhasIp, fatiaAtual)) {
+			throw new MuitasTentativasException("Muitas tentativas de login sem sucesso, tente novamente mais tarde.");
+		}
+	}
+
+	public void registrarFalha(String email, String ip) {
+		long fatiaAtual = fatiaAtual();
+		
+		if(email != null) {
+			falhasPorEmail.computeIfAbsent(normalizar(email), chave -> new JanelaFalhas(quantidadeFatias))
+					.incrementar(fatiaAtual);
+		}
+		
+		if(ip != null) {
+			falhasPorIp.computeIfAbsent(ip, chave -> new JanelaFalhas(quantidadeFatias)).incrementar(fatiaAtual);
+		}
+	}
+
+	/// Login com sucesso zera as falhas do email (as do IP continuam valendo)
+	public void registrarSucesso(String email) {
+		if(email != null) {
+			falhasPorEmail.remove(normalizar(email));
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${seguranca.login.limpeza-ms:60000}")
+	public void removerChavesExpiradas() {
+		long fatiaAtual = fatiaAtual();
+		falhasPorEmail.values().removeIf(janela -> janela.isExpirada(fatiaAtual));
+		falhasPorIp.values().removeIf(janela -> janela.isExpirada(fatiaAtual));
+	}
+
+	private boolean ultrapassouLimite(ConcurrentHashMap<String, JanelaFalhas> falhas, String chave, int limite,
+									  long fatiaAtual) {
+		if(chave == null) {
+			return false;
+		}
+		
+		JanelaFalhas janela = falhas.get(chave);
+		return janela != null && janela.total(fatiaAtual) >= limite;
+	}
+
+	private String normalizar(String email) {
+		return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private long fatiaAtual() {
+		return System.currentTimeMillis() / TAMANHO_FATIA_MILLIS;
+	}
+
+	/*
+	 * Buffer circular com uma posição por fatia da janela. Cada posição guarda de qual fatia é a contagem,
+	 * assim ao dar a volta a contagem antiga é descartada. É uma contagem aproximada: numa troca de fatia
+	 * concorrente podemos perder um incremento, o que não muda o efeito do bloqueio.
+	 */
+	private static class JanelaFalhas {
+		
+		private final AtomicLongArray fatias;
+		
+		private final AtomicIntegerArray contagens;
+		
+		JanelaFalhas(int quantidadeFatias) {
+			this.fatias = new AtomicLongArray(quantidadeFatias);
+			this.contagens = new AtomicIntegerArray(quantidadeFatias);
+		}
+		
+		void incrementar(long fatiaAtual) {
+			int posicao = (int) (fatiaAtual % fatias.length());
+			long fatiaDaPosicao = fatias.get(posicao);
+			
+			if(fatiaDaPosicao != fatiaAtual && fatias.compareAndSet(posicao, fatiaDaPosicao, fatiaAtual)) {
+				contagens.set(posicao, 0);
+			}
+			
+			contagens.incrementAndGet(posicao);
+		}
+		
+		int total(long fatiaAtual) {
+			int total = 0;
+			for(int i = 0; i < fatias.length(); i++) {
+				if(fatiaAtual - fatias.get(i) < fatias.length()) {
+					total += contagens.get(i);
+				}
+			}
+			return total;
+		}
+		
+		boolean isExpirada(long fatiaAtual) {
+			return total(fatiaAtual) == 0;
+		}
+	}
+
+}
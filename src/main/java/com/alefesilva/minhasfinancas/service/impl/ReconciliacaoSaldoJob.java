@@ -0,0 +1,21 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/// Confere o saldo materializado com os lançamentos uma vez por dia (por padrão às 3h, fora do horário de uso)
+@Component
+public class ReconciliacaoSaldoJob {
+	
+	private final AgregadoSaldoUsuario saldoUsuario;
+	
+	public ReconciliacaoSaldoJob(AgregadoSaldoUsuario saldoUsuario) {
+		this.saldoUsuario = saldoUsuario;
+	}
+
+	@Scheduled(cron = "${lancamento.saldo.reconciliacao.cron:0 0 3 * * *}")
+	public void executar() {
+		saldoUsuario.reconciliar();
+	}
+
+}
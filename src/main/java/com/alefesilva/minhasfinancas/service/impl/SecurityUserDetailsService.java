@@ -1,5 +1,9 @@
 package com.alefesilva.minhasfinancas.service.impl;
 
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -8,27 +12,91 @@ import org.springframework.stereotype.Service;
 
 import com.alefesilva.minhasfinancas.model.entity.Usuario;
 import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
-@Service
-public class SecurityUserDetailsService implements UserDetailsService{
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
+@Service
+public class SecurityUserDetailsService implements UserDetailsService, MeterBinder{
+	
 	private UsuarioRepository usuarioRepository;
 	
-	public SecurityUserDetailsService(UsuarioRepository usuarioRepository) {
+	/* Cache dos usuários carregados por email, limitado por tamanho e tempo de vida. Serve tanto o filtro do JWT
+	 * (loadUserByUsername e a conferência do ValidadeTokenUsuario) quanto o login (UsuarioServiceImpl.autenticar, por
+	 * buscarUsuario).
+	 * O UsuarioServiceImpl invalida a entrada ao salvar/atualizar o usuário para que a troca de senha ou de dados
+	 * valha na hora. Emails não cadastrados não ficam no cache.
+	 */
+	private Cache<String, Usuario> cache;
+	
+	public SecurityUserDetailsService(UsuarioRepository usuarioRepository,
+									  @Value("${seguranca.cache-usuarios.tamanho-maximo:1000}") long tamanhoMaximo,
+									  @Value("${seguranca.cache-usuarios.ttl-segundos:300}") long ttlSegundos) {
 		this.usuarioRepository = usuarioRepository;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(tamanhoMaximo)
+				.expireAfterWrite(ttlSegundos, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
 	}
 	
 	@Override
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-		Usuario usuarioEncontrado = usuarioRepository
-				.findByEmail(email)
+		Usuario usuario = buscarUsuario(email)
 				.orElseThrow(() -> new UsernameNotFoundException("Email não cadastrado."));
 		
 		return User.builder()
-				.username(usuarioEncontrado.getEmail())
-				.password(usuarioEncontrado.getSenha())
+				.username(usuario.getEmail())
+				.password(usuario.getSenha())
 				.roles("USER")
 				.build();
 	}
+	
+	/// Devolve uma cópia da entrada do cache: quem recebe pode alterar o usuário (ex: senha com o hash refeito no login)
+	/// sem mexer no que as outras requisições enxergam
+	public Optional<Usuario> buscarUsuario(String email) {
+		// Várias requisições simultâneas para o mesmo email aguardam uma única consulta no banco
+		Usuario usuario = cache.get(email, this::carregarUsuario);
+		return Optional.ofNullable(usuario).map(SecurityUserDetailsService::copiar);
+	}
+	
+	public void invalidar(String email) {
+		if(email != null) {
+			cache.invalidate(email);
+		}
+	}
+	
+	public CacheStats estatisticas() {
+		return cache.stats();
+	}
+	
+	public double getTaxaAcerto() {
+		return cache.stats().hitRate();
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "seguranca.usuarios");
+	}
+	
+	//null não entra no cache do Caffeine
+	private Usuario carregarUsuario(String email) {
+		return usuarioRepository.findByEmail(email).orElse(null);
+	}
+	
+	private static Usuario copiar(Usuario usuario) {
+		return Usuario.builder()
+				.id(usuario.getId())
+				.nome(usuario.getNome())
+				.email(usuario.getEmail())
+				.senha(usuario.getSenha())
+				.ultimoLogin(usuario.getUltimoLogin())
+				.tokensInvalidadosEm(usuario.getTokensInvalidadosEm())
+				.build();
+	}
 
 }
@@ -6,32 +6,68 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.alefesilva.minhasfinancas.exception.ErroAutenticacao;
 import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
+import com.alefesilva.minhasfinancas.exception.ServicoSobrecarregadoException;
 import com.alefesilva.minhasfinancas.model.entity.Usuario;
 import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
 import com.alefesilva.minhasfinancas.service.UsuarioService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class UsuarioServiceImpl implements UsuarioService { ///@Service irá criar uma instância para quando precisar utilizar 
 															///essa dependência
 	private UsuarioRepository repository;
-	private PasswordEncoder encoder;
+	private CriptografiaSenha criptografia;
+	private ValidadeTokenUsuario validadeToken;
+	private SecurityUserDetailsService userDetailsService;
+	private MeterRegistry registry;
+	private Timer tempoCadastro;
 	
 	///Autowride Conceito da injeção de dependência, funciona no atributo também, mas o mais indicado é no construtor
 	@Autowired
-	public UsuarioServiceImpl(UsuarioRepository repository, PasswordEncoder encoder) {
+	public UsuarioServiceImpl(UsuarioRepository repository, CriptografiaSenha criptografia, ValidadeTokenUsuario validadeToken,
+							  SecurityUserDetailsService userDetailsService, MeterRegistry registry) {
 		this.repository = repository;
-		this.encoder = encoder;
+		this.criptografia = criptografia;
+		this.validadeToken = validadeToken;
+		this.userDetailsService = userDetailsService;
+		this.registry = registry;
+		this.tempoCadastro = Timer.builder("seguranca.cadastro").register(registry);
 	}
 
+	/// Tempo total do login (consulta + BCrypt) pelo resultado: sucesso, falha (email ou senha), recusado (pool do
+	/// BCrypt cheio) ou erro. O tempo só do hash fica na métrica seguranca.senha da CriptografiaSenha.
 	@Override
 	public Usuario autenticar(String email, String senha) {
-		Optional<Usuario> usuario = repository.findByEmail(email);
+		Timer.Sample inicio = Timer.start(registry);
+		String resultado = "erro";
+		try {
+			Usuario usuario = autenticarUsuario(email, senha);
+			resultado = "sucesso";
+			return usuario;
+		}catch(ErroAutenticacao e) {
+			resultado = "falha";
+			throw e;
+		}catch(ServicoSobrecarregadoException e) {
+			resultado = "recusado";
+			throw e;
+		}finally {
+			inicio.stop(registry.timer("seguranca.login", "resultado", resultado));
+		}
+	}
+
+	private Usuario autenticarUsuario(String email, String senha) {
+		//Com o pool do BCrypt lotado nem consulta o banco, já recusa a requisição
+		criptografia.verificarDisponibilidade();
+		
+		//Pelo cache do SecurityUserDetailsService: uma rajada de logins do mesmo email faz uma única consulta
+		Optional<Usuario> usuario = userDetailsService.buscarUsuario(email);
 		
 		//Se usuário não estiver presente na base de dados disparar a excessão
 		if(!usuario.isPresent()) {
@@ -39,12 +75,14 @@ public class UsuarioServiceImpl implements UsuarioService { ///@Service irá cri
 		}
 		
 		//Método matches ele valida senha digitada com senha criptografada do banco de bater retorna true
-		boolean senhasConferem = encoder.matches(senha, usuario.get().getSenha());
+		boolean senhasConferem = criptografia.conferir(senha, usuario.get().getSenha());
 		
 		if(!senhasConferem) {
 			throw new ErroAutenticacao("Senha inválida.");
 		}
 		
+		atualizarCriptografiaSeNecessario(usuario.get(), senha);
+		
 		/*Isso de forma didática, mas na prática quando disparar o erro para no usuário colocar que e-mail ou senha
 		é inválido, assim dando maior segurança.
 		if(!usuario.get().getSenha().equals(senha)) {
@@ -57,10 +95,14 @@ public class UsuarioServiceImpl implements UsuarioService { ///@Service irá cri
 	@Override
 	@Transactional
 	public Usuario salvarUsuario(Usuario usuario) {
-		validarEmail(usuario.getEmail());
-		criptografarSenha(usuario);
-		
-		return repository.save(usuario);
+		return tempoCadastro.record(() -> {
+			validarEmail(usuario.getEmail());
+			criptografarSenha(usuario);
+			
+			Usuario usuarioSalvo = repository.save(usuario);
+			userDetailsService.invalidar(usuario.getEmail());
+			return usuarioSalvo;
+		});
 	}
 
 	@Override
@@ -70,20 +112,45 @@ public class UsuarioServiceImpl implements UsuarioService { ///@Service irá cri
 		if(existe) {
 			throw new RegraNegocioException("Já existe um usuário cadastrado com esse e-mail.");
 		}
-
+		
 	}
 	
 	public void criptografarSenha(Usuario usuario) {
 		String senha = usuario.getSenha();
-		String senheCripto = encoder.encode(senha);
+		String senheCripto = criptografia.criptografar(senha);
 		usuario.setSenha(senheCripto);
 	}
+	
+	/* Quando o custo do BCrypt (seguranca.bcrypt.custo) é aumentado, as senhas antigas continuam com o custo anterior.
+	 * Como no login temos a senha aberta em mãos, aproveitamos para gerar o hash novo de forma transparente.
+	 * Se o pool estiver cheio deixamos para o próximo login, o usuário já foi autenticado.
+	 */
+	private void atualizarCriptografiaSeNecessario(Usuario usuario, String senha) {
+		if(!criptografia.precisaAtualizar(usuario.getSenha())) {
+			return;
+		}
+		
+		try {
+			usuario.setSenha(criptografia.criptografar(senha));
+			repository.save(usuario);
+			userDetailsService.invalidar(usuario.getEmail());
+		}catch(ServicoSobrecarregadoException e) {
+			// Tenta de novo no próximo login
+		}
+	}
 
 	@Override
 	public Optional<Usuario> obterPorId(Long id) {
 		return repository.findById(id);
 	}
 
+	/// Apenas o id do usuário, sem consultar o banco (ex: chave estrangeira de um lançamento). Os dados só são lidos se
+	/// algum getter além do getId for chamado dentro de uma transação.
+	@Override
+	public Usuario obterReferencia(Long id) {
+		return repository.getReferenceById(id);
+	}
+
 	@Override
 	public List<Usuario> retornaUsuariosCadastrados() {
 		return repository.findAll(Sort.by(Sort.Direction.DESC,"ultimoLogin"));
@@ -91,7 +158,12 @@ public class UsuarioServiceImpl implements UsuarioService { ///@Service irá cri
 
 	@Override
 	public Usuario atualizar(Usuario usuario) {
-		return repository.save(usuario);
+		//Tokens emitidos antes da alteração (ex: logout) deixam de ser aceitos pelo JwtTokenFilter
+		validadeToken.invalidarTokens(usuario);
+		Usuario usuarioAtualizado = repository.save(usuario);
+		//Remove o usuário do cache para que senha e dados novos valham na próxima autenticação
+		userDetailsService.invalidar(usuario.getEmail());
+		return usuarioAtualizado;
 	}
 
 }
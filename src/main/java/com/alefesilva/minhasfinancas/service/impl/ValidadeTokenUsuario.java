@@ -0,0 +1,52 @@
+package com.alefesilva.minhasfinancas.service.impl;
+
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.service.TokenVerificado;
+
+/*
+ * Como o filtro monta o usuário autenticado direto das claims do token (sem ir no banco), é aqui que barramos
+ * tokens de usuários excluídos e de usuários que foram alterados (ex: logout, ver UsuarioServiceImpl.atualizar) depois
+ * que o token foi emitido.
+ * O instante da invalidação fica gravado no próprio usuário (Usuario.tokensInvalidadosEm), então vale para todas as
+ * instâncias e continua valendo depois de reiniciar a aplicação. A leitura passa pelo cache do
+ * SecurityUserDetailsService: na instância que gravou a alteração a entrada é descartada na hora, nas demais o token
+ * antigo ainda é aceito até a entrada expirar (seguranca.cache-usuarios.ttl-segundos).
+ */
+@Component
+public class ValidadeTokenUsuario {
+	
+	private final SecurityUserDetailsService userDetailsService;
+	
+	public ValidadeTokenUsuario(SecurityUserDetailsService userDetailsService) {
+		this.userDetailsService = userDetailsService;
+	}
+
+	/// Tokens emitidos até agora (inclusive, em millis) deixam de ser aceitos quando o usuário for gravado. O token
+	/// guarda o instante da emissão em millis (claim emitidoEm, ver JwtServiceImpl), então um novo login logo depois do
+	/// logout já é aceito.
+	public void invalidarTokens(Usuario usuario) {
+		long agora = System.currentTimeMillis();
+		Long invalidadoEm = usuario.getTokensInvalidadosEm();
+		usuario.setTokensInvalidadosEm(invalidadoEm != null ? Math.max(invalidadoEm, agora) : agora);
+	}
+
+	public boolean isTokenAceito(TokenVerificado token) {
+		if(token.getIdUsuario() == null || token.getLogin() == null) {
+			return false;
+		}
+		
+		//Usuário excluído, ou o email agora pertence a outro cadastro
+		Optional<Usuario> usuario = userDetailsService.buscarUsuario(token.getLogin());
+		if(!usuario.isPresent() || usuario.get().getId() != token.getIdUsuario()) {
+			return false;
+		}
+		
+		Long invalidadoEm = usuario.get().getTokensInvalidadosEm();
+		return invalidadoEm == null || token.getEmitidoEmMillis() > invalidadoEm;
+	}
+
+}
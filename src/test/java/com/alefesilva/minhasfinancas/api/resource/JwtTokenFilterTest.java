@@ -0,0 +1,167 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import com.alefesilva.minhasfinancas.exception.TokenInvalidoException;
+import com.alefesilva.minhasfinancas.exception.TokenInvalidoException.Motivo;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.service.JwtService;
+import com.alefesilva.minhasfinancas.service.TokenVerificado;
+import com.alefesilva.minhasfinancas.service.impl.JwtTokenCache;
+import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+import com.alefesilva.minhasfinancas.service.impl.ValidadeTokenUsuario;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * JwtTokenFilter isolado (sem contexto do Spring): cache dos tokens verificados, recusa dos tokens invalidados e os
+ * dois modos de montar o usuário autenticado (claims do token ou consulta no banco).
+ */
+public class JwtTokenFilterTest {
+	
+	static final String TOKEN = "token.assinado";
+	
+	JwtService jwtService = Mockito.mock(JwtService.class);
+	
+	SecurityUserDetailsService userDetailsService = Mockito.mock(SecurityUserDetailsService.class);
+	
+	JwtTokenCache tokenCache = new JwtTokenCache(100, 300);
+	
+	ValidadeTokenUsuario validadeToken = new ValidadeTokenUsuario(userDetailsService);
+	
+	Usuario usuario = Usuario.builder().id(1l).nome("usuario").email("usuario@email.com").build();
+	
+	JwtTokenFilter filtro;
+	
+	@BeforeEach
+	public void criarFiltro() {
+		//Usuário gravado, lido pela conferência do token (cache do SecurityUserDetailsService)
+		Mockito.when(userDetailsService.buscarUsuario("usuario@email.com")).thenAnswer(invocacao -> Optional.of(usuario));
+		filtro = new JwtTokenFilter(jwtService, userDetailsService, tokenCache, validadeToken, true, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	public void limparAutenticacao() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void deveVerificarAAssinaturaUmaUnicaVezParaOMesmoToken() throws Exception {
+		//Cenário
+		Mockito.when(jwtService.verificarToken(TOKEN)).thenReturn(tokenEmitidoHaSegundos(10));
+		
+		//Execução
+		Authentication primeira = executar(TOKEN);
+		Authentication segunda = executar(TOKEN);
+		
+		//Verificação
+		Assertions.assertThat(primeira).isNotNull();
+		Assertions.assertThat(segunda).isNotNull();
+		Mockito.verify(jwtService, Mockito.times(1)).verificarToken(TOKEN);
+		Assertions.assertThat(tokenCache.getAcertos()).isEqualTo(1);
+	}
+
+	@Test
+	public void deveRecusarTokenEmCacheDepoisDeInvalidarOsTokensDoUsuario() throws Exception {
+		//Cenário (token já verificado e guardado no cache)
+		Mockito.when(jwtService.verificarToken(TOKEN)).thenReturn(tokenEmitidoHaSegundos(10));
+		Assertions.assertThat(executar(TOKEN)).isNotNull();
+		
+		//Execução (ex: logout)
+		validadeToken.invalidarTokens(usuario);
+		Authentication autenticacao = executar(TOKEN);
+		
+		//Verificação (veio do cache, sem nova verificação, e mesmo assim foi recusado)
+		Assertions.assertThat(autenticacao).isNull();
+		Mockito.verify(jwtService, Mockito.times(1)).verificarToken(TOKEN);
+	}
+
+	@Test
+	public void naoDeveGuardarTokenInvalidoNoCache() throws Exception {
+		//Cenário
+		Mockito.when(jwtService.verificarToken(TOKEN))
+				.thenThrow(new TokenInvalidoException(Motivo.ASSINATURA_INVALIDA, "Assinatura do token inválida."));
+		
+		//Execução
+		Authentication autenticacao = executar(TOKEN);
+		
+		//Verificação
+		Assertions.assertThat(autenticacao).isNull();
+		Assertions.assertThat(tokenCache.obter(TOKEN)).isNull();
+	}
+
+	@Test
+	public void deveMontarOUsuarioPelasClaimsSemConsultarOBanco() throws Exception {
+		//Cenário
+		Mockito.when(jwtService.verificarToken(TOKEN)).thenReturn(tokenEmitidoHaSegundos(10));
+		
+		//Execução
+		Authentication autenticacao = executar(TOKEN);
+		
+		//Verificação (o usuário só é lido para conferir o token, pelo cache)
+		Assertions.assertThat(autenticacao.getName()).isEqualTo("usuario@email.com");
+		Assertions.assertThat(autenticacao.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("ROLE_USER");
+		Mockito.verify(userDetailsService, Mockito.never()).loadUserByUsername(Mockito.anyString());
+	}
+
+	@Test
+	public void deveConsultarOUsuarioNoModoBanco() throws Exception {
+		//Cenário
+		filtro = new JwtTokenFilter(jwtService, userDetailsService, tokenCache, validadeToken, false, new SimpleMeterRegistry());
+		Mockito.when(jwtService.verificarToken(TOKEN)).thenReturn(tokenEmitidoHaSegundos(10));
+		Mockito.when(userDetailsService.loadUserByUsername("usuario@email.com")).thenReturn(
+				User.withUsername("usuario@email.com").password("senha").roles("USER").build());
+		
+		//Execução
+		Authentication autenticacao = executar(TOKEN);
+		
+		//Verificação
+		Assertions.assertThat(autenticacao.getName()).isEqualTo("usuario@email.com");
+		Mockito.verify(userDetailsService).loadUserByUsername("usuario@email.com");
+	}
+
+	@Test
+	public void deveRecusarNoModoClaimsOTokenEmitidoLogoAntesDoLogout() throws Exception {
+		//Cenário (token emitido agora, logo antes da invalidação)
+		Mockito.when(jwtService.verificarToken(TOKEN)).thenReturn(tokenEmitidoHaSegundos(0));
+		validadeToken.invalidarTokens(usuario);
+		
+		//Execução e verificação
+		Assertions.assertThat(executar(TOKEN)).isNull();
+	}
+
+	//Autenticação deixada pelo filtro no contexto do Spring Security (null quando o token foi recusado)
+	Authentication executar(String token) throws Exception {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/lancamentos");
+		request.addHeader("Authorization", "Bearer " + token);
+		MockFilterChain chain = new MockFilterChain();
+		
+		filtro.doFilter(request, new MockHttpServletResponse(), chain);
+		
+		Assertions.assertThat(chain.getRequest()).as("a requisição deve seguir adiante").isNotNull();
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	static TokenVerificado tokenEmitidoHaSegundos(long segundos) {
+		long agora = System.currentTimeMillis();
+		return new TokenVerificado("usuario@email.com", 1l, "usuario", agora - TimeUnit.SECONDS.toMillis(segundos),
+				agora + TimeUnit.MINUTES.toMillis(30));
+	}
+
+}
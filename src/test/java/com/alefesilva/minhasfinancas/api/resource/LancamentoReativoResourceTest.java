@@ -0,0 +1,293 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.alefesilva.minhasfinancas.api.dto.LancamentoDTO;
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultasConfiguration;
+import com.alefesilva.minhasfinancas.exception.ServicoSobrecarregadoException;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.alefesilva.minhasfinancas.service.JwtService;
+import com.alefesilva.minhasfinancas.service.LancamentoReativoService;
+import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+
+/*
+ * API reativa passando pela aplicação inteira, num Tomcat de verdade (no MockMvc a resposta escrita por outra thread
+ * disputa o mesmo objeto com a requisição): os lançamentos são gravados pelo JPA e lidos pelo R2DBC, no mesmo banco
+ * separado dos testes de resource (a URL do R2DBC sai da spring.datasource.url). Os testes de cliente lento e de falha
+ * no meio do stream falam HTTP direto no socket, para controlar a leitura e ver como a resposta termina.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {ContadorConsultasConfiguration.BANCO_SEPARADO,
+		LancamentoReativoResourceTest.TEMPO_MAXIMO_ESCRITA})
+@ActiveProfiles("test")
+public class LancamentoReativoResourceTest {
+	
+	static final String API = "/api/reativo";
+	
+	static final String TEMPO_MAXIMO_ESCRITA = "server.tomcat.connection-timeout=1s";
+	
+	/// Último chunk de uma resposta completa (Transfer-Encoding: chunked)
+	static final String FIM_DA_RESPOSTA = "0\r\n\r\n";
+	
+	private static final AtomicInteger SEQUENCIA_EMAIL = new AtomicInteger();
+	
+	@Autowired
+	TestRestTemplate rest;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	JwtService jwtService;
+	
+	@Autowired
+	ThreadPoolTaskExecutor executorStreams;
+	
+	@SpyBean
+	LancamentoReativoService service;
+	
+	@LocalServerPort
+	int porta;
+	
+	ObjectMapper mapper = new ObjectMapper();
+	
+	Usuario usuario;
+	
+	String token;
+	
+	@BeforeEach
+	public void criarCenario() {
+		usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+				.email("reativo" + SEQUENCIA_EMAIL.incrementAndGet() + "@email.com").senha("senha").build());
+		token = "Bearer " + jwtService.gerarToken(usuario);
+	}
+
+	@Test
+	public void deveListarOsLancamentosDoFiltroEmNdjson() throws Exception {
+		//Cenário
+		Lancamento receita = salvar("Salário", 2022, 3, TipoLancamento.RECEITA, 100);
+		Lancamento despesa = salvar("Aluguel", 2022, 1, TipoLancamento.DESPESA, 40);
+		salvar("Mercado", 2022, 2, TipoLancamento.DESPESA, 10);
+		
+		//Execução
+		List<LancamentoDTO> todos = listar(API + "/lancamentos?usuario=" + id());
+		List<LancamentoDTO> filtrados = listar(API + "/lancamentos?usuario=" + id() + "&descricao=ALUG&tipo=DESPESA");
+		
+		//Verificação (ordenados por competência, como na API bloqueante)
+		Assertions.assertThat(todos).extracting(LancamentoDTO::getDescricao).containsExactly("Aluguel", "Mercado", "Salário");
+		Assertions.assertThat(todos.get(2).getId()).isEqualTo(receita.getId());
+		Assertions.assertThat(todos.get(2).getUsuario()).isEqualTo(usuario.getId());
+		Assertions.assertThat(filtrados).extracting(LancamentoDTO::getId).containsExactly(despesa.getId());
+	}
+
+	@Test
+	public void deveListarOsLancamentosDoPeriodo() throws Exception {
+		//Cenário
+		salvar("Antes", 2021, 12, TipoLancamento.RECEITA, 10);
+		Lancamento dentro = salvar("Dentro", 2022, 6, TipoLancamento.RECEITA, 10);
+		salvar("Depois", 2023, 1, TipoLancamento.RECEITA, 10);
+		
+		//Execução
+		List<LancamentoDTO> lancamentos = listar(periodo(1, 2022, 12, 2022));
+		
+		//Verificação
+		Assertions.assertThat(lancamentos).extracting(LancamentoDTO::getId).containsExactly(dentro.getId());
+	}
+
+	@Test
+	public void deveRecusarPeriodoInvalido() {
+		//Execução
+		ResponseEntity<String> resposta = executar(periodo(12, 2022, 1, 2022));
+		
+		//Verificação (mesma validação do resumo mensal da API bloqueante)
+		Assertions.assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		Assertions.assertThat(resposta.getBody()).isEqualTo("O período inicial deve ser anterior ao período final.");
+	}
+
+	@Test
+	public void deveRecusarUsuarioInexistente() {
+		//Execução
+		ResponseEntity<String> resposta = executar(API + "/lancamentos?usuario=987654321");
+		
+		//Verificação
+		Assertions.assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		Assertions.assertThat(resposta.getBody())
+				.isEqualTo("Não foi possível realizar a consulta. Usuário não encontrado para ID informado.");
+	}
+
+	@Test
+	public void deveObterOMesmoSaldoDaApiBloqueante() {
+		//Cenário
+		Lancamento receita = salvar("Salário", 2022, 1, TipoLancamento.RECEITA, 100);
+		Lancamento despesa = salvar("Aluguel", 2022, 1, TipoLancamento.DESPESA, 30);
+		salvar("Pendente", 2022, 1, TipoLancamento.RECEITA, 1000);
+		lancamentoService.atualizarStatus(receita.getId(), StatusLancamento.EFETIVADO);
+		lancamentoService.atualizarStatus(despesa.getId(), StatusLancamento.EFETIVADO);
+		
+		//Execução
+		ResponseEntity<String> resposta = executar(API + "/usuarios/" + id() + "/saldo");
+		
+		//Verificação
+		Assertions.assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.OK);
+		Assertions.assertThat(new BigDecimal(resposta.getBody())).isEqualByComparingTo("70")
+				.isEqualByComparingTo(lancamentoService.obterSaldoPorUsuario(usuario.getId()));
+	}
+
+	@Test
+	public void deveRetornarNaoEncontradoNoSaldoDeUsuarioInexistente() {
+		//Execução e verificação
+		Assertions.assertThat(executar(API + "/usuarios/987654321/saldo").getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
+	@Test
+	public void deveInterromperAConexaoQuandoOStreamFalhaDepoisDoPrimeiroItem() throws Exception {
+		//Cenário: erro que o resource trata (503), mas que só acontece com a resposta já começada
+		Mockito.doReturn(Flux.concat(Flux.just(item(1)), Flux.error(new ServicoSobrecarregadoException("Fila cheia"))))
+				.when(service).buscar(Mockito.any());
+		
+		//Execução
+		String resposta;
+		try(Socket socket = abrirStream(64 * 1024)) {
+			resposta = lerAteOFim(socket);
+		}
+		
+		//Verificação (o status 200 já foi enviado; sem o último chunk o cliente sabe que a lista veio incompleta)
+		Assertions.assertThat(resposta).startsWith("HTTP/1.1 200").contains("\"descricao\":\"item 1\"");
+		Assertions.assertThat(resposta).doesNotEndWith(FIM_DA_RESPOSTA);
+	}
+
+	@Test
+	public void deveLiberarAThreadDoStreamQuandoOClienteParaDeLer() throws Exception {
+		//Cenário: mais itens do que cabem nos buffers do TCP
+		Mockito.doReturn(Flux.range(1, 1_000_000).map(this::item)).when(service).buscar(Mockito.any());
+		
+		try(Socket socket = abrirStream(1024)) {
+			//Execução: o cliente não lê e a escrita do próximo item fica bloqueada
+			Thread.sleep(3000);
+			
+			//Verificação: passado o tempo máximo de escrita o stream é abortado e a thread volta ao pool, sem esperar
+			//o cliente voltar a ler
+			Assertions.assertThat(executorStreams.getActiveCount()).isZero();
+			String resposta = lerAteOFim(socket);
+			Assertions.assertThat(resposta).startsWith("HTTP/1.1 200").doesNotEndWith(FIM_DA_RESPOSTA);
+			Assertions.assertThat(resposta).doesNotContain("\"descricao\":\"item 1000000\"");
+		}
+	}
+
+	private List<LancamentoDTO> listar(String url) throws Exception {
+		ResponseEntity<String> resposta = executar(url);
+		Assertions.assertThat(resposta.getStatusCode()).isEqualTo(HttpStatus.OK);
+		Assertions.assertThat(resposta.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+		
+		List<LancamentoDTO> lancamentos = new ArrayList<>();
+		for(String linha : resposta.getBody().split("\n")) {
+			if(!linha.isEmpty()) {
+				lancamentos.add(mapper.readValue(linha, LancamentoDTO.class));
+			}
+		}
+		return lancamentos;
+	}
+
+	private ResponseEntity<String> executar(String url) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.AUTHORIZATION, token);
+		return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+
+	/// GET da listagem direto no socket, com o buffer de recepção indicado
+	private Socket abrirStream(int bufferRecepcao) throws IOException {
+		Socket socket = new Socket();
+		socket.setReceiveBufferSize(bufferRecepcao);
+		socket.setSoTimeout(30000);
+		socket.connect(new InetSocketAddress("localhost", porta));
+		String requisicao = "GET " + API + "/lancamentos?usuario=" + id() + " HTTP/1.1\r\n"
+				+ "Host: localhost\r\n"
+				+ "Authorization: " + token + "\r\n"
+				+ "Accept: " + MediaType.APPLICATION_NDJSON_VALUE + "\r\n"
+				+ "Connection: close\r\n\r\n";
+		socket.getOutputStream().write(requisicao.getBytes(StandardCharsets.US_ASCII));
+		socket.getOutputStream().flush();
+		return socket;
+	}
+
+	/// Tudo o que chegou até o servidor fechar a conexão (normalmente ou abortando)
+	private static String lerAteOFim(Socket socket) throws IOException {
+		ByteArrayOutputStream resposta = new ByteArrayOutputStream();
+		try {
+			InputStream entrada = socket.getInputStream();
+			entrada.transferTo(resposta);
+		}catch(SocketException e) {
+			// Conexão abortada (reset): fica o que foi lido até ali
+		}
+		return resposta.toString(StandardCharsets.UTF_8);
+	}
+
+	private ItemLancamento item(int numero) {
+		return new ItemLancamento((long) numero, "item " + numero, 1, 2022, 202201, BigDecimal.TEN,
+				TipoLancamento.RECEITA, StatusLancamento.PENDENTE, usuario.getId());
+	}
+
+	private String periodo(int mesInicial, int anoInicial, int mesFinal, int anoFinal) {
+		return API + "/lancamentos/periodo?usuarioId=" + id() + "&mesInicial=" + mesInicial + "&anoInicial=" + anoInicial
+				+ "&mesFinal=" + mesFinal + "&anoFinal=" + anoFinal;
+	}
+
+	private String id() {
+		return String.valueOf(usuario.getId());
+	}
+
+	private Lancamento salvar(String descricao, int ano, int mes, TipoLancamento tipo, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setDescricao(descricao);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		lancamento.setUsuario(usuario);
+		return lancamentoService.salvar(lancamento);
+	}
+
+}
@@ -0,0 +1,366 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.alefesilva.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.alefesilva.minhasfinancas.api.dto.LancamentoDTO;
+import com.alefesilva.minhasfinancas.api.dto.OperacaoLoteDTO;
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultas;
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultasConfiguration;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.JwtService;
+import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Quantidade de comandos SQL de cada rota do LancamentoResource (selects, inserts, updates, deletes), passando pela
+ * aplicação inteira: filtro do JWT, resource, service e banco. Se uma alteração fizer alguma rota ir mais vezes ao
+ * banco (ex: N+1 ao carregar o usuário dos lançamentos) o teste quebra; se fizer ir menos, basta baixar o número.
+ *
+ * O cenário tem um lançamento PENDENTE e outro EFETIVADO de 11/2022, então as linhas do resumo mensal e do saldo
+ * do usuário já existem. Nas exportações, escritas de forma assíncrona, e nos erros também são conferidos status e
+ * corpo.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = ContadorConsultasConfiguration.BANCO_SEPARADO)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(ContadorConsultasConfiguration.class)
+public class LancamentoResourceConsultasTest {
+	
+	static final String API = "/api/lancamentos";
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+	
+	private static final AtomicInteger SEQUENCIA_EMAIL = new AtomicInteger();
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	ContadorConsultas consultas;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	JwtService jwtService;
+	
+	@Autowired
+	SecurityUserDetailsService userDetailsService;
+	
+	ObjectMapper mapper = new ObjectMapper();
+	
+	Usuario usuario;
+	
+	Lancamento pendente;
+	
+	Lancamento efetivado;
+	
+	String token;
+	
+	@BeforeEach
+	public void criarCenario() {
+		usuario = usuarioRepository.save(Usuario.builder().nome("usuario")
+				.email("lancamentos" + SEQUENCIA_EMAIL.incrementAndGet() + "@email.com").senha("senha").build());
+		token = "Bearer " + jwtService.gerarToken(usuario);
+		userDetailsService.buscarUsuario(usuario.getEmail()); // O filtro confere o token com o usuário já em cache
+		
+		pendente = lancamentoService.salvar(criarLancamento());
+		efetivado = lancamentoService.salvar(criarLancamento());
+		lancamentoService.atualizarStatus(efetivado.getId(), StatusLancamento.EFETIVADO);
+		
+		consultas.zerar();
+	}
+
+	@Test
+	public void deveBuscarComDoisSelects() throws Exception {
+		executar(MockMvcRequestBuilders.get(API).param("usuario", id()).param("descricao", "lançamento"));
+		consultas.verificar(2, 0, 0, 0); // Usuário + itens da página
+	}
+
+	@Test
+	public void deveBuscarDescricoesComUmSelect() throws Exception {
+		executar(MockMvcRequestBuilders.get(API + "/descricoes").param("usuario", id()).param("prefixo", "lan"));
+		consultas.verificar(1, 0, 0, 0);
+	}
+
+	@Test
+	public void deveExportarComDoisSelects() throws Exception {
+		//A resposta é escrita de forma assíncrona, os comandos são conferidos depois que ela termina
+		MvcResult resultado = mvc.perform(autenticar(MockMvcRequestBuilders.get(API + "/exportar").param("usuario", id())))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado)).andExpect(MockMvcResultMatchers.status().isOk());
+		
+		consultas.verificar(2, 0, 0, 0); // Usuário + stream dos lançamentos
+	}
+
+	@Test
+	public void deveExportarEmCsv() throws Exception {
+		MvcResult resultado = exportar("csv");
+		
+		Assertions.assertThat(resultado.getResponse().getStatus()).isEqualTo(200);
+		Assertions.assertThat(resultado.getResponse().getContentType()).isEqualTo("text/csv;charset=UTF-8");
+		Assertions.assertThat(resultado.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION))
+				.isEqualTo("attachment; filename=\"lancamentos.csv\"");
+		Assertions.assertThat(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n"))
+				.containsExactly("id;descricao;mes;ano;valor;tipo;status;data_cadastro",
+						linhaCsv(pendente, StatusLancamento.PENDENTE), linhaCsv(efetivado, StatusLancamento.EFETIVADO));
+	}
+
+	@Test
+	public void deveExportarEmNdjson() throws Exception {
+		MvcResult resultado = exportar("ndjson");
+		
+		Assertions.assertThat(resultado.getResponse().getStatus()).isEqualTo(200);
+		Assertions.assertThat(resultado.getResponse().getContentType()).isEqualTo("application/x-ndjson");
+		String[] linhas = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+		Assertions.assertThat(linhas).hasSize(2);
+		Assertions.assertThat(mapper.readTree(linhas[0]).get("id").asLong()).isEqualTo(pendente.getId());
+		Assertions.assertThat(mapper.readTree(linhas[0]).get("descricao").asText()).isEqualTo(pendente.getDescricao());
+		Assertions.assertThat(mapper.readTree(linhas[1]).get("id").asLong()).isEqualTo(efetivado.getId());
+		Assertions.assertThat(mapper.readTree(linhas[1]).get("status").asText()).isEqualTo("EFETIVADO");
+	}
+
+	@Test
+	public void deveRecusarFormatoDeExportacaoInvalido() throws Exception {
+		MvcResult resultado = exportar("xml");
+		
+		Assertions.assertThat(resultado.getResponse().getStatus()).isEqualTo(400);
+		Assertions.assertThat(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8))
+				.isEqualTo("Formato de exportação inválido, informe csv ou ndjson.");
+		consultas.verificar(0, 0, 0, 0);
+	}
+
+	@Test
+	public void deveObterPorIdComUmSelect() throws Exception {
+		executar(MockMvcRequestBuilders.get(API + "/" + pendente.getId()));
+		consultas.verificar(1, 0, 0, 0); // Sem select na tabela de usuário (LAZY)
+	}
+
+	@Test
+	public void deveSalvarSemSelect() throws Exception {
+		executar(comCorpo(MockMvcRequestBuilders.post(API), criarDTO()));
+		consultas.verificar(0, 1, 1, 0); // Insert + resumo mensal
+	}
+
+	@Test
+	public void deveRecusarLancamentoDeUsuarioInexistentePelaChaveEstrangeira() throws Exception {
+		LancamentoDTO dto = criarDTO();
+		dto.setUsuario(987654321L);
+		
+		MvcResult resultado = mvc.perform(autenticar(comCorpo(MockMvcRequestBuilders.post(API), dto)))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andReturn();
+		Assertions.assertThat(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8))
+				.isEqualTo("Usuário não encontrado para o ID informado.");
+	}
+
+	@Test
+	public void naoDeveTratarOutraViolacaoDoBancoComoUsuarioInexistente() throws Exception {
+		LancamentoDTO dto = criarDTO();
+		dto.setDescricao(String.join("", Collections.nCopies(300, "a"))); // Maior que a coluna
+		
+		Throwable erro = Assertions.catchThrowable(
+				() -> mvc.perform(autenticar(comCorpo(MockMvcRequestBuilders.post(API), dto))) );
+		Assertions.assertThat(erro).hasCauseInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	@Test
+	public void deveSalvarUmLoteComUmInsert() throws Exception {
+		executar(comCorpo(MockMvcRequestBuilders.post(API + "/lote"), Arrays.asList(criarDTO(), criarDTO(), criarDTO())),
+				MockMvcResultMatchers.status().isCreated());
+		consultas.verificar(1, 1, 1, 0); // Usuário uma vez só + lote de inserts + resumo mensal
+	}
+
+	@Test
+	public void deveAtualizarComUmSelect() throws Exception {
+		LancamentoDTO dto = criarDTO();
+		dto.setValor(BigDecimal.valueOf(80));
+		dto.setStatus(StatusLancamento.EFETIVADO.name());
+		
+		executar(comCorpo(MockMvcRequestBuilders.put(API + "/" + pendente.getId()), dto));
+		consultas.verificar(1, 0, 4, 0); // Lançamento + update + 2 células do resumo + saldo
+	}
+
+	@Test
+	public void deveAtualizarOStatusComUmSelect() throws Exception {
+		executar(comCorpo(MockMvcRequestBuilders.put(API + "/" + pendente.getId() + "/atualiza-status"),
+				new AtualizaStatusDTO(StatusLancamento.EFETIVADO.name())));
+		consultas.verificar(1, 0, 4, 0); // Projeção + update do status + 2 células do resumo + saldo
+	}
+
+	@Test
+	public void deveAtualizarOStatusEmLote() throws Exception {
+		OperacaoLoteDTO dto = OperacaoLoteDTO.builder().usuario(usuario.getId()).status(StatusLancamento.CANCELADO.name())
+				.ids(ids()).build();
+		
+		executar(comCorpo(MockMvcRequestBuilders.put(API + "/atualiza-status"), dto));
+		consultas.verificar(2, 0, 5, 0); // Select travando os lançamentos + update do bloco + 3 células do resumo (a de
+		//CANCELADO ainda não existe: total do mês + merge) + saldo
+	}
+
+	@Test
+	public void deveExcluirEmLote() throws Exception {
+		OperacaoLoteDTO dto = OperacaoLoteDTO.builder().usuario(usuario.getId()).ids(ids()).build();
+		
+		executar(comCorpo(MockMvcRequestBuilders.delete(API), dto));
+		consultas.verificar(1, 0, 3, 1); // Select travando os lançamentos + delete do bloco + 2 células do resumo + saldo
+	}
+
+	@Test
+	public void deveAtualizarOStatusDeDezAnosComUmUpdate() throws Exception {
+		OperacaoLoteDTO dto = OperacaoLoteDTO.builder().usuario(usuario.getId()).status(StatusLancamento.CANCELADO.name())
+				.mesInicial(1).anoInicial(2013).mesFinal(12).anoFinal(2022).build();
+		
+		executar(comCorpo(MockMvcRequestBuilders.put(API + "/atualiza-status"), dto));
+		consultas.verificar(2, 0, 5, 0); // Um select e um update para os 120 meses + resumo e saldo como no lote por ids
+	}
+
+	@Test
+	public void deveExcluirOPeriodoComUmDelete() throws Exception {
+		OperacaoLoteDTO dto = OperacaoLoteDTO.builder().usuario(usuario.getId())
+				.mesInicial(1).anoInicial(2013).mesFinal(12).anoFinal(2022).build();
+		
+		executar(comCorpo(MockMvcRequestBuilders.delete(API), dto));
+		consultas.verificar(1, 0, 3, 1); // Um select e um delete para os 120 meses + 2 células do resumo + saldo
+	}
+
+	@Test
+	public void deveRecusarPeriodoEmLoteDeMaisDeDezAnosSemConsultarOBanco() throws Exception {
+		OperacaoLoteDTO dto = OperacaoLoteDTO.builder().usuario(usuario.getId()).status(StatusLancamento.CANCELADO.name())
+				.mesInicial(1).anoInicial(1000).mesFinal(12).anoFinal(9999).build();
+		
+		MvcResult resultado = mvc.perform(autenticar(comCorpo(MockMvcRequestBuilders.put(API + "/atualiza-status"), dto)))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andReturn();
+		Assertions.assertThat(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8))
+				.isEqualTo("Informe um período de no máximo 120 meses.");
+		consultas.verificar(0, 0, 0, 0);
+	}
+
+	@Test
+	public void deveExcluirSemCarregarOLancamento() throws Exception {
+		executar(MockMvcRequestBuilders.delete(API + "/" + efetivado.getId()), MockMvcResultMatchers.status().isNoContent());
+		consultas.verificar(1, 0, 2, 1); // Valores gravados + delete + resumo mensal + saldo
+	}
+
+	@Test
+	public void deveBuscarPorPeriodoComDoisSelects() throws Exception {
+		executar(MockMvcRequestBuilders.get(API + "/peridoLancamento").param("usuarioId", id())
+				.param("mesAtual", "1").param("anoAtual", "2022").param("mesFinal", "12").param("anoFinal", "2022"));
+		consultas.verificar(2, 0, 0, 0);
+	}
+
+	@Test
+	public void deveRecusarABuscaPorPeriodoInvertidoSemConsultarOsLancamentos() throws Exception {
+		MvcResult resultado = mvc.perform(autenticar(MockMvcRequestBuilders.get(API + "/peridoLancamento")
+						.param("usuarioId", id()).param("mesAtual", "1").param("anoAtual", "2023")
+						.param("mesFinal", "12").param("anoFinal", "2022")))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andReturn();
+		Assertions.assertThat(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8))
+				.isEqualTo("O período inicial deve ser anterior ao período final.");
+		consultas.verificar(1, 0, 0, 0); // Só o usuário
+	}
+
+	@Test
+	public void deveObterOResumoMensalComUmSelect() throws Exception {
+		executar(MockMvcRequestBuilders.get(API + "/resumo-mensal").param("usuarioId", id())
+				.param("mesInicial", "1").param("anoInicial", "2022").param("mesFinal", "12").param("anoFinal", "2022"));
+		consultas.verificar(1, 0, 0, 0);
+	}
+
+	//A resposta é escrita de forma assíncrona (StreamingResponseBody): o resultado só fica completo depois do asyncDispatch
+	private MvcResult exportar(String formato) throws Exception {
+		MvcResult resultado = mvc.perform(autenticar(MockMvcRequestBuilders.get(API + "/exportar")
+						.param("usuario", id()).param("formato", formato)))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		return mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado)).andReturn();
+	}
+
+	private String linhaCsv(Lancamento lancamento, StatusLancamento status) {
+		return String.join(";", String.valueOf(lancamento.getId()), lancamento.getDescricao(),
+				String.valueOf(lancamento.getMes()), String.valueOf(lancamento.getAno()),
+				lancamento.getValor().setScale(2).toPlainString(), lancamento.getTipo().name(), status.name(),
+				lancamento.getDataCadastro().toString());
+	}
+
+	private void executar(MockHttpServletRequestBuilder request) throws Exception {
+		executar(request, MockMvcResultMatchers.status().isOk());
+	}
+
+	private void executar(MockHttpServletRequestBuilder request,
+						  ResultMatcher status) throws Exception {
+		mvc.perform(autenticar(request)).andExpect(status);
+	}
+
+	private MockHttpServletRequestBuilder autenticar(MockHttpServletRequestBuilder request) {
+		return request.header(HttpHeaders.AUTHORIZATION, token).accept(JSON);
+	}
+
+	private MockHttpServletRequestBuilder comCorpo(MockHttpServletRequestBuilder request, Object corpo) throws Exception {
+		return request.contentType(JSON).content(mapper.writeValueAsString(corpo));
+	}
+
+	private String id() {
+		return String.valueOf(usuario.getId());
+	}
+
+	private List<Long> ids() {
+		return Arrays.asList(pendente.getId(), efetivado.getId());
+	}
+
+	private Lancamento criarLancamento() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		return lancamento;
+	}
+
+	private LancamentoDTO criarDTO() {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		return LancamentoDTO.builder()
+				.descricao(lancamento.getDescricao())
+				.mes(lancamento.getMes())
+				.ano(lancamento.getAno())
+				.valor(lancamento.getValor())
+				.tipo(lancamento.getTipo().name())
+				.usuario(usuario.getId())
+				.build();
+	}
+
+}
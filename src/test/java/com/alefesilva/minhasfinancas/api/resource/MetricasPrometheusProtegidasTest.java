@@ -0,0 +1,57 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultasConfiguration;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.JwtService;
+
+/*
+ * Fora do perfil de teste (seguranca.metricas.sem-token desligado) o /actuator/prometheus exige token, como as
+ * demais rotas; o health check continua liberado.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = { ContadorConsultasConfiguration.BANCO_SEPARADO, "seguranca.metricas.sem-token=false" })
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+public class MetricasPrometheusProtegidasTest {
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	JwtService jwtService;
+	
+	@Test
+	public void deveExigirTokenParaAsMetricas() throws Exception {
+		//Cenário
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("usuario").email("metricas-protegidas@email.com")
+				.senha("senha").build());
+		
+		//Execução e verificação
+		mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+				.andExpect(MockMvcResultMatchers.status().isForbidden());
+		mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.gerarToken(usuario)))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get("/actuator/health"))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+	}
+
+}
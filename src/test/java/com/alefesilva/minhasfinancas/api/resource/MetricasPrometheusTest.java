@@ -0,0 +1,69 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultasConfiguration;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.JwtService;
+
+/*
+ * Confere o que o Prometheus recebe em /actuator/prometheus depois de uma requisição autenticada: histograma da rota
+ * pelo template (sem o id na tag), timer do filtro do JWT, pool do Hikari, cache dos tokens e métodos dos repositories.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = ContadorConsultasConfiguration.BANCO_SEPARADO)
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+public class MetricasPrometheusTest {
+	
+	static final long ID_INEXISTENTE = 987654321l;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	JwtService jwtService;
+	
+	@Test
+	public void deveExporAsMetricasNoFormatoDoPrometheus() throws Exception {
+		//Cenário
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("usuario").email("metricas@email.com").senha("senha").build());
+		mvc.perform(MockMvcRequestBuilders.get("/api/lancamentos/" + ID_INEXISTENTE)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.gerarToken(usuario)))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+		
+		//Execução (sem token)
+		String metricas = mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		
+		//Verificação
+		Assertions.assertThat(metricas)
+				.contains("http_server_requests_seconds_bucket{")
+				.contains("uri=\"/api/lancamentos/{id}\"")
+				.contains("seguranca_jwt_filtro_seconds_bucket{")
+				.contains("resultado=\"autenticado\"")
+				.contains("hikaricp_connections_active")
+				.contains("cache_gets_total{aplicacao=\"minhasfinancas\",cache=\"jwt.tokens\"")
+				.contains("spring_data_repository_invocations_seconds_bucket{")
+				.doesNotContain(String.valueOf(ID_INEXISTENTE));
+	}
+
+}
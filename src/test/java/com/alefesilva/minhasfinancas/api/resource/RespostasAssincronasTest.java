@@ -0,0 +1,131 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.service.ExportacaoLancamentoService;
+import com.alefesilva.minhasfinancas.service.LancamentoReativoService;
+import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.alefesilva.minhasfinancas.service.UsuarioService;
+
+import reactor.core.publisher.Flux;
+
+/*
+ * Pools das respostas assíncronas (WebConfiguration) com uma thread e fila de uma posição: uma tarefa presa até a
+ * liberação e outra esperando já lotam o pool, a partir daí exportações e streams são recusados na hora com 503.
+ */
+public class RespostasAssincronasTest {
+	
+	CountDownLatch liberacao = new CountDownLatch(1);
+	
+	ThreadPoolTaskExecutor executor = criarExecutor();
+	
+	UsuarioService usuarioService = Mockito.mock(UsuarioService.class);
+	
+	ExportacaoLancamentoService exportacaoService = Mockito.mock(ExportacaoLancamentoService.class);
+	
+	LancamentoReativoService reativoService = Mockito.mock(LancamentoReativoService.class);
+	
+	@AfterEach
+	public void encerrar() {
+		liberacao.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	public void deveExportarNoPoolDeExportacao() throws Exception {
+		//Cenário
+		AtomicReference<String> thread = new AtomicReference<>();
+		Mockito.doAnswer(invocacao -> {
+			thread.set(Thread.currentThread().getName());
+			return null;
+		}).when(exportacaoService).exportar(Mockito.any(), Mockito.any(), Mockito.any());
+		Mockito.when(usuarioService.obterPorId(1L)).thenReturn(Optional.of(Usuario.builder().id(1L).build()));
+		
+		//Execução
+		MvcResult resultado = mockMvcLancamentos().perform(MockMvcRequestBuilders.get("/api/lancamentos/exportar")
+						.param("usuario", "1"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		mockMvcLancamentos().perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		//Verificação
+		Assertions.assertThat(thread.get()).startsWith("teste-");
+	}
+
+	@Test
+	public void deveRecusarAExportacaoComOPoolLotado() throws Exception {
+		//Cenário
+		Mockito.when(usuarioService.obterPorId(1L)).thenReturn(Optional.of(Usuario.builder().id(1L).build()));
+		lotar();
+		
+		//Execução e verificação
+		mockMvcLancamentos().perform(MockMvcRequestBuilders.get("/api/lancamentos/exportar").param("usuario", "1"))
+				.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+				.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+		Mockito.verifyNoInteractions(exportacaoService);
+	}
+
+	@Test
+	public void deveRecusarOStreamComOPoolLotadoAntesDeConsultarOBanco() throws Exception {
+		//Cenário
+		Mockito.when(reativoService.buscar(Mockito.any())).thenReturn(Flux.empty()); // Montado, mas não consultado
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(new LancamentoReativoResource(reativoService, executor)).build();
+		lotar();
+		
+		//Execução
+		MvcResult resultado = mvc.perform(MockMvcRequestBuilders.get("/api/reativo/lancamentos").param("usuario", "1"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted())
+				.andReturn();
+		
+		//Verificação
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+				.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+				.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+		Mockito.verify(reativoService, Mockito.never()).existeUsuario(Mockito.anyLong());
+	}
+
+	private MockMvc mockMvcLancamentos() {
+		return MockMvcBuilders.standaloneSetup(new LancamentoResource(Mockito.mock(LancamentoService.class), usuarioService,
+				exportacaoService, executor)).build();
+	}
+
+	//Uma tarefa na thread, presa até a liberação, e outra na fila
+	private void lotar() {
+		for(int i = 0; i < 2; i++) {
+			executor.execute( () -> {
+				try {
+					liberacao.await();
+				}catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+	}
+
+	private static ThreadPoolTaskExecutor criarExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(1);
+		executor.setThreadNamePrefix("teste-");
+		executor.initialize();
+		return executor;
+	}
+
+}
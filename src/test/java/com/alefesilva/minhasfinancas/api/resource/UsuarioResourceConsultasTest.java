@@ -0,0 +1,161 @@
+package com.alefesilva.minhasfinancas.api.resource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.alefesilva.minhasfinancas.api.dto.UsuarioDTO;
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultas;
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultasConfiguration;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.service.JwtService;
+import com.alefesilva.minhasfinancas.service.UsuarioService;
+import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Quantidade de comandos SQL de cada rota do UsuarioResource, passando pela aplicação inteira (mesmo contexto e
+ * banco do LancamentoResourceConsultasTest). Também o logout seguido de um novo login, com os tokens conferidos pelo
+ * JwtTokenFilter.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = ContadorConsultasConfiguration.BANCO_SEPARADO)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(ContadorConsultasConfiguration.class)
+public class UsuarioResourceConsultasTest {
+	
+	static final String API = "/api/usuarios";
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+	static final String SENHA = "senha";
+	
+	private static final AtomicInteger SEQUENCIA_EMAIL = new AtomicInteger();
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	ContadorConsultas consultas;
+	
+	@Autowired
+	UsuarioService usuarioService;
+	
+	@Autowired
+	JwtService jwtService;
+	
+	@Autowired
+	SecurityUserDetailsService userDetailsService;
+	
+	ObjectMapper mapper = new ObjectMapper();
+	
+	Usuario usuario;
+	
+	String token;
+	
+	@BeforeEach
+	public void criarCenario() {
+		usuario = usuarioService.salvarUsuario(Usuario.builder().nome("usuario").email(novoEmail()).senha(SENHA).build());
+		token = "Bearer " + jwtService.gerarToken(usuario);
+		userDetailsService.buscarUsuario(usuario.getEmail()); // O filtro confere o token com o usuário já em cache
+		
+		consultas.zerar();
+	}
+
+	@Test
+	public void deveAutenticarComUmSelect() throws Exception {
+		userDetailsService.invalidar(usuario.getEmail());
+		UsuarioDTO dto = UsuarioDTO.builder().email(usuario.getEmail()).senha(SENHA).build();
+		
+		executar(comCorpo(MockMvcRequestBuilders.post(API + "/autenticar"), dto), MockMvcResultMatchers.status().isOk());
+		consultas.verificar(1, 0, 0, 0);
+	}
+
+	@Test
+	public void deveCadastrarComUmSelectEUmInsert() throws Exception {
+		UsuarioDTO dto = UsuarioDTO.builder().nome("novo").email(novoEmail()).senha(SENHA).build();
+		
+		executar(comCorpo(MockMvcRequestBuilders.post(API), dto), MockMvcResultMatchers.status().isCreated());
+		consultas.verificar(1, 1, 0, 0); // Email já cadastrado + insert
+	}
+
+	@Test
+	public void deveObterOSaldoComTresSelects() throws Exception {
+		//Usuário + saldo materializado, que ainda não existe para o usuário novo + soma dos lançamentos
+		executar(MockMvcRequestBuilders.get(API + "/" + usuario.getId() + "/saldo"));
+		consultas.verificar(3, 0, 0, 0);
+	}
+
+	@Test
+	public void deveObterOSaldoDetalhadoComDoisSelects() throws Exception {
+		executar(MockMvcRequestBuilders.get(API + "/" + usuario.getId() + "/saldo/detalhado"));
+		consultas.verificar(2, 0, 0, 0); // Usuário + totais agrupados
+	}
+
+	@Test
+	public void deveListarOsUsuariosComUmSelect() throws Exception {
+		executar(MockMvcRequestBuilders.get(API));
+		consultas.verificar(1, 0, 0, 0);
+	}
+
+	@Test
+	public void deveRegistrarOUltimoLogout() throws Exception {
+		executar(MockMvcRequestBuilders.put(API + "/" + usuario.getId() + "/ultimoLogout"));
+		consultas.verificar(2, 0, 1, 0); // Usuário + select do merge (entidade desanexada) + update
+	}
+
+	@Test
+	public void deveRecusarOTokenAntigoEAceitarODoNovoLoginDepoisDoLogout() throws Exception {
+		//Cenário
+		executar(MockMvcRequestBuilders.put(API + "/" + usuario.getId() + "/ultimoLogout"));
+		
+		//Execução: novo login a partir do milissegundo seguinte ao logout (o instante é gravado em millis)
+		long logout = System.currentTimeMillis();
+		while(System.currentTimeMillis() == logout) {
+			Thread.onSpinWait();
+		}
+		String resposta = mvc.perform(comCorpo(MockMvcRequestBuilders.post(API + "/autenticar"),
+						UsuarioDTO.builder().email(usuario.getEmail()).senha(SENHA).build()))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String novoToken = "Bearer " + mapper.readTree(resposta).get("token").asText();
+		
+		//Verificação
+		String saldo = API + "/" + usuario.getId() + "/saldo/detalhado";
+		executar(MockMvcRequestBuilders.get(saldo).header(HttpHeaders.AUTHORIZATION, token),
+				MockMvcResultMatchers.status().isForbidden());
+		executar(MockMvcRequestBuilders.get(saldo).header(HttpHeaders.AUTHORIZATION, novoToken),
+				MockMvcResultMatchers.status().isOk());
+	}
+
+	private void executar(MockHttpServletRequestBuilder request) throws Exception {
+		executar(request.header(HttpHeaders.AUTHORIZATION, token), MockMvcResultMatchers.status().isOk());
+	}
+
+	private void executar(MockHttpServletRequestBuilder request, ResultMatcher status) throws Exception {
+		mvc.perform(request.accept(JSON)).andExpect(status);
+	}
+
+	private MockHttpServletRequestBuilder comCorpo(MockHttpServletRequestBuilder request, Object corpo) throws Exception {
+		return request.contentType(JSON).content(mapper.writeValueAsString(corpo));
+	}
+
+	private static String novoEmail() {
+		return "usuario" + SEQUENCIA_EMAIL.incrementAndGet() + "@email.com";
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.alefesilva.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.alefesilva.minhasfinancas.MinhasfinancasApplication;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Linhas por segundo (ops/s = lançamentos/s) da busca de lançamentos de um usuário, do banco até o JSON da resposta.
+ * O alocado por linha aparece em gc.alloc.rate.norm (o profile benchmark roda com -prof gc).
+ * exemploEntidades -> Como era: Example/ExampleMatcher montado a cada chamada, entidades gerenciadas com o usuário
+ * carregado junto e serializadas direto.
+ * criteriaProjecao -> LancamentoService.buscar: Criteria só com os filtros informados, projetado em ItemLancamento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuscaLancamentoBenchmark {
+	
+	static final int LANCAMENTOS = 1000;
+	
+	ConfigurableApplicationContext contexto;
+	
+	LancamentoService service;
+	
+	LancamentoRepository repository;
+	
+	TransactionTemplate transacaoLeitura;
+	
+	ObjectMapper objectMapper;
+	
+	Lancamento filtro;
+	
+	@Setup
+	public void subirAplicacao() {
+		contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.run("--spring.profiles.active=test", "--server.port=0");
+		service = contexto.getBean(LancamentoService.class);
+		repository = contexto.getBean(LancamentoRepository.class);
+		objectMapper = contexto.getBean(ObjectMapper.class);
+		
+		transacaoLeitura = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+		transacaoLeitura.setReadOnly(true);
+		
+		Usuario usuario = contexto.getBean(UsuarioRepository.class)
+				.save(Usuario.builder().nome("benchmark").email("busca@email.com").senha("senha").build());
+		
+		List<Lancamento> lancamentos = new ArrayList<>(LANCAMENTOS);
+		for(int i = 0; i < LANCAMENTOS; i++) {
+			lancamentos.add(Lancamento.builder()
+					.descricao("Lançamento " + i)
+					.ano(2022)
+					.mes(1 + i % 12)
+					.valor(BigDecimal.valueOf(10 + i))
+					.tipo(i % 2 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+					.usuario(usuario)
+					.build());
+		}
+		service.salvarLote(lancamentos);
+		
+		filtro = new Lancamento();
+		filtro.setDescricao("lançamento");
+		filtro.setUsuario(usuario);
+	}
+
+	@TearDown
+	public void derrubarAplicacao() {
+		contexto.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LANCAMENTOS)
+	public byte[] exemploEntidades() throws Exception {
+		List<Lancamento> lancamentos = transacaoLeitura.execute(status -> repository.findAll(Example.of(filtro,
+				ExampleMatcher.matching()
+				.withIgnoreCase()
+				.withIgnoreNullValues()
+				.withIgnorePaths("id","valor","dataCadastro","status")
+				.withStringMatcher(StringMatcher.CONTAINING))));
+		return objectMapper.writeValueAsBytes(lancamentos);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LANCAMENTOS)
+	public byte[] criteriaProjecao() throws Exception {
+		return objectMapper.writeValueAsBytes(service.buscar(filtro));
+	}
+
+}
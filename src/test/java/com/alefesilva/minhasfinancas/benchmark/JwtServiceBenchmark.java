@@ -0,0 +1,104 @@
+package com.alefesilva.minhasfinancas.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.service.TokenVerificado;
+import com.alefesilva.minhasfinancas.service.impl.JwtServiceImpl;
+import com.alefesilva.minhasfinancas.service.impl.JwtTokenCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+/*
+ * Custo por requisição da validação do token no JwtTokenFilter.
+ * antesDoisParses -> Como era feito: isTokenValido + obterLoginUsuario, cada um decodificando a chave e fazendo o parse.
+ * verificarToken -> Um único parse com a chave preparada na subida da aplicação.
+ * verificarTokenComCache -> Token repetido, encontrado no cache (apenas o hash do token).
+ * gerarToken -> Login e renovação: montagem das claims e assinatura HMAC.
+ * isTokenValido, obterLoginUsuario -> Métodos da interface JwtService que ainda fazem o parse completo do token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+	
+	static final String CHAVE_ASSINATURA = "cGFsbWVpcmFzIG5hbyB0ZW0gbXVuZGlhbA==";
+	
+	JwtServiceImpl service;
+	
+	JwtTokenCache cache;
+	
+	Usuario usuario;
+	
+	String token;
+	
+	@Setup
+	public void preparar() {
+		service = new JwtServiceImpl();
+		ReflectionTestUtils.setField(service, "expiracao", "30");
+		ReflectionTestUtils.setField(service, "chaveAssinatura", CHAVE_ASSINATURA);
+		service.prepararChave();
+		
+		usuario = Usuario.builder().id(1l).nome("Usuario").email("usuario@email.com").build();
+		token = service.gerarToken(usuario);
+		
+		cache = new JwtTokenCache(10000, 300);
+		cache.armazenar(token, service.verificarToken(token));
+	}
+
+	@Benchmark
+	public String antesDoisParses() {
+		Claims claims = Jwts.parser().setSigningKey(CHAVE_ASSINATURA).parseClaimsJws(token).getBody();
+		Date dataEx = claims.getExpiration();
+		LocalDateTime dataExpiracao = dataEx.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+		if(LocalDateTime.now().isAfter(dataExpiracao)) {
+			return null;
+		}
+		return Jwts.parser().setSigningKey(CHAVE_ASSINATURA).parseClaimsJws(token).getBody().getSubject();
+	}
+
+	@Benchmark
+	public TokenVerificado verificarToken() {
+		return service.verificarToken(token);
+	}
+
+	@Benchmark
+	public TokenVerificado verificarTokenComCache() {
+		return cache.obter(token);
+	}
+
+	@Benchmark
+	public String gerarToken() {
+		return service.gerarToken(usuario);
+	}
+
+	@Benchmark
+	public boolean isTokenValido() {
+		return service.isTokenValido(token);
+	}
+
+	@Benchmark
+	public String obterLoginUsuario() {
+		return service.obterLoginUsuario(token);
+	}
+
+}
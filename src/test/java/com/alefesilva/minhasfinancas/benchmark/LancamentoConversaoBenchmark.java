@@ -0,0 +1,113 @@
+package com.alefesilva.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.alefesilva.minhasfinancas.api.dto.LancamentoDTO;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Listas por segundo nas conversões do LancamentoResource e na serialização da resposta, sem subir a aplicação.
+ * O alocado por lista aparece em gc.alloc.rate.norm; dividir pelo tamanho dá o custo por lançamento.
+ * entidadesParaDTO, itensParaDTO -> LancamentoDTO.de da entidade (GET por id, PUT) e da projeção (listagens).
+ * dtosParaEntidades -> Corpo do POST/lote convertido em entidades (usuário já resolvido).
+ * serializarEntidades -> Como era a resposta antes dos DTOs: entidade com o usuário junto.
+ * serializarDTOs -> Resposta atual.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LancamentoConversaoBenchmark {
+	
+	@Param({ "1", "100", "1000" })
+	int tamanho;
+	
+	/// Mesma configuração base do ObjectMapper que o Spring Boot cria (módulos de data, sem datas como timestamp)
+	ObjectMapper objectMapper;
+	
+	Usuario usuario;
+	
+	List<Lancamento> lancamentos;
+	
+	List<ItemLancamento> itens;
+	
+	List<LancamentoDTO> dtos;
+	
+	@Setup
+	public void preparar() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		usuario = Usuario.builder().id(1l).nome("Usuario").email("usuario@email.com").senha("senha").build();
+		
+		lancamentos = new ArrayList<>(tamanho);
+		itens = new ArrayList<>(tamanho);
+		for(int i = 0; i < tamanho; i++) {
+			Lancamento lancamento = Lancamento.builder()
+					.id((long) i)
+					.descricao("Lançamento " + i)
+					.ano(2022)
+					.mes(1 + i % 12)
+					.valor(BigDecimal.valueOf(10 + i, 2))
+					.tipo(i % 2 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+					.status(StatusLancamento.PENDENTE)
+					.dataCadastro(LocalDate.of(2022, 11, 1))
+					.usuario(usuario)
+					.build();
+			lancamentos.add(lancamento);
+			itens.add(new ItemLancamento(lancamento.getId(), lancamento.getDescricao(), lancamento.getMes(),
+					lancamento.getAno(), 2022 * 100 + lancamento.getMes(), lancamento.getValor(), lancamento.getTipo(),
+					lancamento.getStatus(), usuario.getId()));
+		}
+		dtos = lancamentos.stream().map(LancamentoDTO::de).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<LancamentoDTO> entidadesParaDTO() {
+		return lancamentos.stream().map(LancamentoDTO::de).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<LancamentoDTO> itensParaDTO() {
+		return itens.stream().map(LancamentoDTO::de).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public List<Lancamento> dtosParaEntidades() {
+		return dtos.stream().map(dto -> dto.paraLancamento(usuario)).collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public byte[] serializarEntidades() throws Exception {
+		return objectMapper.writeValueAsBytes(lancamentos);
+	}
+
+	@Benchmark
+	public byte[] serializarDTOs() throws Exception {
+		return objectMapper.writeValueAsBytes(dtos);
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.alefesilva.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.alefesilva.minhasfinancas.MinhasfinancasApplication;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.alefesilva.minhasfinancas.service.ResultadoLote;
+
+/*
+ * Lançamentos gravados por segundo (ops/s = lançamentos/s), com a aplicação completa (porta aleatória) sobre o H2 do
+ * profile de teste.
+ * umPorUm -> Como o POST /api/lancamentos: uma transação e um insert por lançamento.
+ * lote -> POST /api/lancamentos/lote: uma transação, ids da sequência em blocos e inserts em lotes JDBC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LancamentoLoteBenchmark {
+	
+	static final int LANCAMENTOS = 500;
+	
+	ConfigurableApplicationContext contexto;
+	
+	LancamentoService service;
+	
+	Usuario usuario;
+	
+	@Setup
+	public void subirAplicacao() {
+		contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.run("--spring.profiles.active=test", "--server.port=0");
+		service = contexto.getBean(LancamentoService.class);
+		usuario = contexto.getBean(UsuarioRepository.class)
+				.save(Usuario.builder().nome("benchmark").email("benchmark@email.com").senha("senha").build());
+	}
+
+	@TearDown
+	public void derrubarAplicacao() {
+		contexto.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LANCAMENTOS)
+	public void umPorUm() {
+		for(Lancamento lancamento : criarLancamentos()) {
+			service.salvar(lancamento);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LANCAMENTOS)
+	public ResultadoLote lote() {
+		return service.salvarLote(criarLancamentos());
+	}
+
+	private List<Lancamento> criarLancamentos() {
+		List<Lancamento> lancamentos = new ArrayList<>(LANCAMENTOS);
+		for(int i = 0; i < LANCAMENTOS; i++) {
+			lancamentos.add(Lancamento.builder()
+					.descricao("Lançamento " + i)
+					.ano(2022)
+					.mes(1 + i % 12)
+					.valor(BigDecimal.valueOf(10 + i))
+					.tipo(i % 2 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+					.usuario(usuario)
+					.build());
+		}
+		return lancamentos;
+	}
+
+}
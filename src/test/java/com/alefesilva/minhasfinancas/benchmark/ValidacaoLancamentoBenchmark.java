@@ -0,0 +1,84 @@
+package com.alefesilva.minhasfinancas.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+/*
+ * LancamentoServiceImpl.validar, chamado em todo salvar/atualizar e em cada item do lote. Não usa o banco, então o
+ * service é criado sem repository e sem agregados.
+ * valido -> Passa por todas as regras.
+ * anoInvalido -> Recusado na regra do ano (Integer.toString a cada chamada) e com o custo da RegraNegocioException,
+ * que monta o stack trace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacaoLancamentoBenchmark {
+	
+	LancamentoServiceImpl service;
+	
+	Lancamento lancamento;
+	
+	Lancamento lancamentoAnoInvalido;
+	
+	@Setup
+	public void preparar() {
+		service = new LancamentoServiceImpl(null, null, null, Collections.emptyList());
+		
+		lancamento = Lancamento.builder()
+				.descricao("Lançamento")
+				.mes(11)
+				.ano(2022)
+				.valor(BigDecimal.valueOf(150))
+				.tipo(TipoLancamento.RECEITA)
+				.usuario(Usuario.builder().id(1l).build())
+				.build();
+		
+		lancamentoAnoInvalido = Lancamento.builder()
+				.descricao(lancamento.getDescricao())
+				.mes(lancamento.getMes())
+				.ano(22)
+				.valor(lancamento.getValor())
+				.tipo(lancamento.getTipo())
+				.usuario(lancamento.getUsuario())
+				.build();
+	}
+
+	@Benchmark
+	public Lancamento valido() {
+		service.validar(lancamento);
+		return lancamento;
+	}
+
+	@Benchmark
+	public RegraNegocioException anoInvalido() {
+		try {
+			service.validar(lancamentoAnoInvalido);
+			return null;
+		}catch(RegraNegocioException e) {
+			return e;
+		}
+	}
+
+}
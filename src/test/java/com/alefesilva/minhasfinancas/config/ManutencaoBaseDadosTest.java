@@ -0,0 +1,67 @@
+package com.alefesilva.minhasfinancas.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+
+/*
+ * Sequência dos lançamentos atrás dos ids gravados (banco de antes da troca de IDENTITY para sequência). Banco próprio
+ * e sem a transação do teste, já que o id gravado por fora e o restart da sequência não podem vazar para os outros.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:sequencia;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({ ManutencaoBaseDados.class, AgregadoResumoMensal.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ManutencaoBaseDadosTest {
+	
+	@Autowired
+	ManutencaoBaseDados manutencao;
+	
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	
+	@Test
+	public void deveRecusarASequenciaAtrasDosIdsGravadosEAceitarDepoisDeAlinhada() {
+		//Cenário: um lançamento com id acima de tudo o que a sequência já entregou, como os gravados pelo IDENTITY
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("usuario").email("sequencia@email.com")
+				.senha("senha").build());
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		Long id = lancamentoRepository.save(lancamento).getId();
+		jdbcTemplate.update("update financas.lancamento set id = 1000 where id = ?", id);
+		
+		//Execução e verificação
+		Assertions.assertThatThrownBy(manutencao::verificarSequenciaLancamento)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("--alinhar-sequencia-lancamento");
+		
+		manutencao.alinharSequenciaLancamento();
+		manutencao.verificarSequenciaLancamento();
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.alefesilva.minhasfinancas.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+/*
+ * Só a configuração das threads virtuais, sem subir a aplicação: o resultado depende do Java em que o teste roda.
+ */
+public class ThreadsVirtuaisConfigurationTest {
+	
+	ApplicationContextRunner contexto = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(ThreadsVirtuaisConfiguration.class));
+	
+	@Test
+	public void deveManterOPoolDoTomcatComAPropriedadeDesligada() {
+		contexto.withPropertyValues("execucao.threads-virtuais=false")
+				.run(aplicacao -> Assertions.assertThat(aplicacao).hasNotFailed().doesNotHaveBean(ExecutorService.class));
+	}
+
+	@Test
+	public void deveImpedirAInicializacaoQuandoAsThreadsVirtuaisNaoEstaoDisponiveis() {
+		contexto.withPropertyValues("execucao.threads-virtuais=true").run(aplicacao -> {
+			if(ThreadsVirtuais.disponiveis()) {
+				Assertions.assertThat(aplicacao).hasNotFailed().hasBean("executorThreadsVirtuais");
+			}else {
+				//Java anterior ao 21: não pode subir como se a propriedade estivesse desligada
+				Assertions.assertThat(aplicacao).hasFailed();
+				Assertions.assertThat(aplicacao.getStartupFailure())
+						.hasStackTraceContaining("Threads virtuais precisam do Java 21 ou superior");
+			}
+		});
+	}
+
+}
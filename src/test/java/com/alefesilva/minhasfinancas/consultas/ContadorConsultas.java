@@ -0,0 +1,69 @@
+package com.alefesilva.minhasfinancas.consultas;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+/*
+ * Registra os comandos SQL enviados ao banco durante os testes (listener do datasource-proxy em volta do DataSource,
+ * ver ContadorConsultasConfiguration). O teste zera o contador antes da operação medida e confere depois quantos
+ * selects, inserts, updates e deletes foram executados, assim um N+1 ou um fetch a mais quebra o build.
+ *
+ * Um lote JDBC (addBatch/executeBatch) conta como um comando, que é uma ida ao banco. Comandos que não são
+ * select/insert/update/delete (ex: "call next value for" da sequência, que só roda a cada 50 ids) entram apenas no total.
+ */
+public class ContadorConsultas implements QueryExecutionListener {
+	
+	private final List<String> comandos = new CopyOnWriteArrayList<>(); // A exportação grava a resposta em outra thread
+	
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		for(QueryInfo query : queryInfoList) {
+			comandos.add(query.getQuery());
+		}
+	}
+
+	public void zerar() {
+		comandos.clear();
+	}
+
+	public int quantidade(QueryType tipo) {
+		return (int) comandos.stream().filter(sql -> QueryUtils.getQueryType(sql) == tipo).count();
+	}
+
+	public int total() {
+		return comandos.size();
+	}
+
+	/// Confere a quantidade exata de cada tipo de comando desde o último zerar(), listando o SQL executado quando não bate
+	public void verificar(int selects, int inserts, int updates, int deletes) {
+		Assertions.assertThat(new int[] { quantidade(QueryType.SELECT), quantidade(QueryType.INSERT),
+				quantidade(QueryType.UPDATE), quantidade(QueryType.DELETE) })
+				.as("selects, inserts, updates e deletes executados:%n%s", listar())
+				.containsExactly(selects, inserts, updates, deletes);
+	}
+
+	/// Confere só o máximo de comandos (de qualquer tipo), para operações em que a quantidade varia com os dados
+	public void verificarNoMaximo(int maximo) {
+		Assertions.assertThat(total())
+				.as("comandos executados:%n%s", listar())
+				.isLessThanOrEqualTo(maximo);
+	}
+
+	private String listar() {
+		return comandos.stream().collect(Collectors.joining(System.lineSeparator()));
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.alefesilva.minhasfinancas.consultas;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/*
+ * Importada pelos testes que contam comandos SQL: envolve o DataSource da aplicação num proxy que avisa o
+ * ContadorConsultas a cada comando executado.
+ */
+@TestConfiguration
+public class ContadorConsultasConfiguration {
+	
+	/// Banco H2 próprio para os testes que passam pelos resources: as requisições fazem commit, e os dados gravados
+	/// não podem aparecer nos testes que usam o banco "db" (ex: reconciliação do saldo de todos os usuários)
+	public static final String BANCO_SEPARADO =
+			"spring.datasource.url=jdbc:h2:mem:consultas;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas";
+	
+	@Bean
+	public ContadorConsultas contadorConsultas() {
+		return new ContadorConsultas();
+	}
+
+	@Bean
+	public static BeanPostProcessor proxyDataSource(ObjectProvider<ContadorConsultas> contador) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if(bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create((DataSource) bean)
+							.name(beanName)
+							.listener(contador.getObject())
+							.build();
+				}
+				return bean;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.alefesilva.minhasfinancas.desempenho;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.alefesilva.minhasfinancas.config.ThreadsVirtuais;
+
+/*
+ * Compara o modo normal (pool de threads do Tomcat) com o de threads virtuais (execucao.threads-virtuais) usando o
+ * TesteCarga com quantidades crescentes de clientes simultâneos. Precisa do Java 21 para o modo virtual; num Java
+ * anterior só o modo normal é medido:
+ *   mvn -Pcarga test -Dcarga.classe=com.alefesilva.minhasfinancas.desempenho.ComparacaoThreadsVirtuais
+ *
+ * Para cada modo a aplicação sobe do zero, os usuários são cadastrados e cada degrau de carga.degraus (25,50,100,200,400)
+ * roda com aquecimento e medição. A concorrência sustentável é o maior degrau com p99 até carga.p99-maximo-ms (1000)
+ * e no máximo 1% de erros. O login fica fora da mistura: o BCrypt tem pool próprio limitado pelos núcleos nos dois
+ * modos, e os 503 dele esconderiam a diferença entre os modos.
+ */
+public class ComparacaoThreadsVirtuais {
+	
+	static final int[] PESOS_SEM_LOGIN = { 0, 45, 20, 15, 20 };
+	
+	static final double ERROS_MAXIMO = 0.01;
+	
+	public static void main(String[] args) throws Exception {
+		int[] degraus = Arrays.stream(System.getProperty("carga.degraus", "25,50,100,200,400").split(","))
+				.mapToInt(degrau -> Integer.parseInt(degrau.trim()))
+				.toArray();
+		int usuarios = Integer.getInteger("carga.usuarios", 50);
+		int duracao = Integer.getInteger("carga.duracao", 20);
+		int aquecimento = Integer.getInteger("carga.aquecimento", 5);
+		int lancamentosIniciais = Integer.getInteger("carga.lancamentos-iniciais", 50);
+		long p99Maximo = Long.getLong("carga.p99-maximo-ms", 1000);
+		
+		List<String> linhas = new ArrayList<>();
+		linhas.add(String.format("%-12s %10s %10s %10s %10s %10s", "modo", "clientes", "req/s", "p50 ms", "p99 ms", "erros %"));
+		List<String> resumo = new ArrayList<>();
+		
+		for(boolean threadsVirtuais : new boolean[] { false, true }) {
+			String modo = threadsVirtuais ? "virtual" : "plataforma";
+			if(threadsVirtuais && !ThreadsVirtuais.disponiveis()) {
+				resumo.add(String.format("%-12s não medido: threads virtuais precisam do Java 21 (em execução: Java %d)",
+						modo, Runtime.version().feature()));
+				continue;
+			}
+			
+			int sustentavel = 0;
+			double p99Sustentavel = 0;
+			ConfigurableApplicationContext contexto = TesteCarga.iniciarAplicacao(threadsVirtuais);
+			try {
+				TesteCarga teste = new TesteCarga(TesteCarga.url(contexto), PESOS_SEM_LOGIN);
+				List<TesteCarga.Cliente> cadastrados = teste.cadastrar(usuarios, lancamentosIniciais);
+				
+				for(int clientes : degraus) {
+					ResultadoCarga medido = teste.executar(cadastrados, clientes, clientes, aquecimento, duracao);
+					long total = medido.totalOk() + medido.totalErros();
+					double erros = total == 0 ? 1 : (double) medido.totalErros() / total;
+					double p99 = medido.percentil(99);
+					linhas.add(String.format("%-12s %10d %10.1f %10.2f %10.2f %10.2f", modo, clientes, medido.vazao(),
+							medido.percentil(50), p99, erros * 100));
+					
+					if(p99 > p99Maximo || erros > ERROS_MAXIMO) {
+						break; // Os degraus seguintes só pioram
+					}
+					sustentavel = clientes;
+					p99Sustentavel = p99;
+				}
+			}finally {
+				contexto.close();
+			}
+			resumo.add(String.format("%-12s concorrência sustentável: %d cliente(s), p99 %.2f ms", modo, sustentavel, p99Sustentavel));
+		}
+		
+		System.out.println();
+		linhas.forEach(System.out::println);
+		System.out.println();
+		System.out.printf("Sustentável = p99 até %d ms e no máximo %.0f%% de erros%n", p99Maximo, ERROS_MAXIMO * 100);
+		resumo.forEach(System.out::println);
+	}
+
+}
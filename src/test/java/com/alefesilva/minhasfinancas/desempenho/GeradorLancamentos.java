@@ -0,0 +1,122 @@
+package com.alefesilva.minhasfinancas.desempenho;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.Getter;
+
+/*
+ * Massa de dados sintética da suíte de desempenho. É determinística: os mesmos parâmetros e a mesma semente geram
+ * sempre os mesmos lançamentos, então duas execuções medem exatamente os mesmos dados.
+ *
+ * A quantidade de lançamentos de cada usuário segue uma distribuição de Zipf, como numa base real em que poucos
+ * usuários concentram boa parte dos dados: com concentracao = 0 todos recebem lancamentosPorUsuario; com 1 o primeiro
+ * usuário (o mais pesado) recebe muito mais que a média e os últimos bem menos. O total é sempre
+ * usuarios * lancamentosPorUsuario.
+ */
+@Getter
+public class GeradorLancamentos {
+	
+	static final String[] DESCRICOES = { "Aluguel", "Mercado", "Salário", "Energia elétrica", "Água", "Internet",
+			"Farmácia", "Combustível", "Restaurante", "Academia", "Freelance", "Cartão de crédito", "Escola",
+			"Plano de saúde", "Manutenção do carro", "Presente", "Viagem", "Dividendos" };
+	
+	static final int ANO_INICIAL = 2020;
+	
+	static final int ANOS = 4;
+	
+	private final int usuarios;
+	
+	private final int lancamentosPorUsuario;
+	
+	private final double concentracao;
+	
+	private final long semente;
+	
+	/// Quantidade de lançamentos de cada usuário, pelo índice (0 = o mais pesado)
+	private final int[] quantidades;
+	
+	public GeradorLancamentos(int usuarios, int lancamentosPorUsuario, double concentracao, long semente) {
+		this.usuarios = usuarios;
+		this.lancamentosPorUsuario = lancamentosPorUsuario;
+		this.concentracao = concentracao;
+		this.semente = semente;
+		this.quantidades = distribuir();
+	}
+
+	public long getTotal() {
+		return (long) usuarios * lancamentosPorUsuario;
+	}
+
+	public int getIndiceTipico() {
+		return usuarios / 2;
+	}
+
+	public Usuario gerarUsuario(int indice) {
+		return Usuario.builder()
+				.nome("Usuário " + indice)
+				.email("desempenho" + indice + "@email.com")
+				.senha("senha")
+				.build();
+	}
+
+	/// Entrega os lançamentos do usuário um a um, sem montar a lista inteira (o usuário mais pesado pode ter centenas de milhares)
+	public void gerarLancamentos(int indice, Usuario usuario, Consumer<Lancamento> destino) {
+		Random random = new Random(semente * 31 + indice); // Independente da ordem em que os usuários são gerados
+		
+		for(int i = 0; i < quantidades[indice]; i++) {
+			int ano = ANO_INICIAL + random.nextInt(ANOS);
+			int mes = 1 + random.nextInt(12);
+			Lancamento lancamento = Lancamento.builder()
+					.descricao(DESCRICOES[random.nextInt(DESCRICOES.length)] + " " + (1 + random.nextInt(50)))
+					.ano(ano)
+					.mes(mes)
+					.competencia(Lancamento.calcularCompetencia(ano, mes))
+					.valor(BigDecimal.valueOf(100 + random.nextInt(500_000), 2))
+					.tipo(random.nextInt(10) < 7 ? TipoLancamento.DESPESA : TipoLancamento.RECEITA)
+					.status(sortearStatus(random))
+					.dataCadastro(LocalDate.of(ano, mes, 1 + random.nextInt(28)))
+					.usuario(usuario)
+					.build();
+			destino.accept(lancamento);
+		}
+	}
+
+	private StatusLancamento sortearStatus(Random random) {
+		int sorteio = random.nextInt(100);
+		if(sorteio < 75) {
+			return StatusLancamento.EFETIVADO;
+		}
+		return sorteio < 95 ? StatusLancamento.PENDENTE : StatusLancamento.CANCELADO;
+	}
+
+	private int[] distribuir() {
+		double[] pesos = new double[usuarios];
+		double soma = 0;
+		for(int i = 0; i < usuarios; i++) {
+			pesos[i] = 1 / Math.pow(i + 1, concentracao);
+			soma += pesos[i];
+		}
+		
+		int[] resultado = new int[usuarios];
+		long distribuidos = 0;
+		for(int i = 0; i < usuarios; i++) {
+			resultado[i] = (int) (getTotal() * pesos[i] / soma);
+			distribuidos += resultado[i];
+		}
+		
+		//O que sobrou do arredondamento vai para os primeiros usuários, um para cada
+		for(int i = 0; distribuidos < getTotal(); i = (i + 1) % usuarios, distribuidos++) {
+			resultado[i]++;
+		}
+		return resultado;
+	}
+
+}
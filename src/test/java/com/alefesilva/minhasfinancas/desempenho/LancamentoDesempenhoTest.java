@@ -0,0 +1,237 @@
+package com.alefesilva.minhasfinancas.desempenho;
+
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.LancamentoService;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+
+/*
+ * Suíte de desempenho das consultas de lançamentos sobre uma massa grande (padrão: 1000 usuários x 1000 lançamentos =
+ * 1 milhão de linhas), gerada pelo GeradorLancamentos. Fica fora do mvn test comum (tag "desempenho"), roda com:
+ *   mvn -Pdesempenho test -Ddesempenho.usuarios=1000 -Ddesempenho.lancamentos-por-usuario=1000 -Ddesempenho.concentracao=1
+ * O relatório vai para target/desempenho (ver RelatorioDesempenho). Por padrão usa um H2 próprio em memória; para medir
+ * no PostgreSQL, informar -Ddesempenho.url, -Dspring.datasource.username e -Dspring.datasource.password (base vazia).
+ *
+ * Cada consulta roda algumas vezes antes de medir (aquecimento do JIT e do cache do banco) e depois é medida
+ * desempenho.medicoes vezes, cada uma numa transação somente leitura, como nos services.
+ */
+@Tag("desempenho")
+@TestInstance(Lifecycle.PER_CLASS)
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "spring.datasource.url = "
+		+ "${desempenho.url:jdbc:h2:mem:desempenho;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas}")
+@ActiveProfiles("test")
+public class LancamentoDesempenhoTest {
+	
+	static final int TAMANHO_LOTE_INSERT = 1000;
+	
+	static final String INSERT_LANCAMENTO = "insert into financas.lancamento "
+			+ "(id, descricao, mes, ano, competencia, id_usuario, valor, data_cadastro, tipo, status) "
+			+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	
+	@Value("${desempenho.usuarios:1000}")
+	int usuarios;
+	
+	@Value("${desempenho.lancamentos-por-usuario:1000}")
+	int lancamentosPorUsuario;
+	
+	@Value("${desempenho.concentracao:1.0}")
+	double concentracao;
+	
+	@Value("${desempenho.semente:20221101}")
+	long semente;
+	
+	@Value("${desempenho.aquecimento:3}")
+	int aquecimento;
+	
+	@Value("${desempenho.medicoes:10}")
+	int medicoes;
+	
+	@Value("${desempenho.relatorio:target/desempenho}")
+	String diretorioRelatorio;
+	
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	LancamentoRepository repository;
+	
+	@Autowired
+	LancamentoService service;
+	
+	@Autowired
+	AgregadoResumoMensal resumoMensal;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	TransactionTemplate transacaoLeitura;
+	
+	RelatorioDesempenho relatorio = new RelatorioDesempenho();
+	
+	GeradorLancamentos gerador;
+	
+	/// Usuário com mais lançamentos e um do meio da distribuição
+	Usuario pesado;
+	
+	Usuario tipico;
+	
+	@BeforeAll
+	public void carregarMassaDeDados() {
+		Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from financas.lancamento", Long.class))
+				.as("a suíte precisa de uma base vazia").isZero();
+		
+		gerador = new GeradorLancamentos(usuarios, lancamentosPorUsuario, concentracao, semente);
+		transacaoLeitura = new TransactionTemplate(transactionManager);
+		transacaoLeitura.setReadOnly(true);
+		
+		List<Usuario> cadastrados = new ArrayList<>(usuarios);
+		for(int i = 0; i < usuarios; i++) {
+			cadastrados.add(gerador.gerarUsuario(i));
+		}
+		cadastrados = usuarioRepository.saveAll(cadastrados);
+		pesado = cadastrados.get(0);
+		tipico = cadastrados.get(gerador.getIndiceTipico());
+		
+		long inicio = System.nanoTime();
+		List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE_INSERT);
+		long[] proximoId = { 1 };
+		for(int i = 0; i < usuarios; i++) {
+			gerador.gerarLancamentos(i, cadastrados.get(i), lancamento -> {
+				lote.add(parametrosInsert(proximoId[0]++, lancamento));
+				if(lote.size() == TAMANHO_LOTE_INSERT) {
+					jdbcTemplate.batchUpdate(INSERT_LANCAMENTO, lote);
+					lote.clear();
+				}
+			});
+		}
+		jdbcTemplate.batchUpdate(INSERT_LANCAMENTO, lote);
+		double segundosCarga = (System.nanoTime() - inicio) / 1e9;
+		
+		//Estatísticas atualizadas para o otimizador escolher os índices como faria numa base já em uso
+		jdbcTemplate.execute("analyze");
+		
+		inicio = System.nanoTime();
+		resumoMensal.reconstruir();
+		double segundosResumo = (System.nanoTime() - inicio) / 1e9;
+		
+		relatorio.parametro("usuarios", usuarios);
+		relatorio.parametro("lancamentos_por_usuario", lancamentosPorUsuario);
+		relatorio.parametro("concentracao", concentracao);
+		relatorio.parametro("semente", semente);
+		relatorio.parametro("total_lancamentos", gerador.getTotal());
+		relatorio.parametro("lancamentos_usuario_pesado", gerador.getQuantidades()[0]);
+		relatorio.parametro("lancamentos_usuario_tipico", gerador.getQuantidades()[gerador.getIndiceTipico()]);
+		relatorio.parametro("carga_segundos", String.format("%.1f", segundosCarga));
+		relatorio.parametro("reconstrucao_resumo_segundos", String.format("%.1f", segundosResumo));
+	}
+
+	@AfterAll
+	public void escreverRelatorio() throws Exception {
+		relatorio.escrever(Paths.get(diretorioRelatorio));
+	}
+
+	@Test
+	public void totaisPorTipoEStatus() {
+		medir("obterTotaisPorTipoEStatus (usuário pesado)", () -> repository.obterTotaisPorTipoEStatus(pesado.getId()).size());
+		medir("obterTotaisPorTipoEStatus (usuário típico)", () -> repository.obterTotaisPorTipoEStatus(tipico.getId()).size());
+	}
+
+	@Test
+	public void saldo() {
+		medir("obterSaldoDetalhadoPorUsuario (usuário pesado)", () -> {
+			service.obterSaldoDetalhadoPorUsuario(pesado.getId());
+			return 1;
+		});
+	}
+
+	@Test
+	public void lancamentosPorPeriodo() {
+		medir("obterLancamentosPorUsuarioECompetencia 1a página (usuário pesado)", () ->
+				repository.obterLancamentosPorUsuarioECompetencia(pesado.getId(), 202101, 202112, 0, 0l, PageRequest.of(0, 51)).size());
+		medir("buscarLancamentosPeriodo 01/2021 a 12/2021 (usuário pesado)", () ->
+				service.buscarLancamentosPeriodo(pesado.getId(), 1, 12, 2021, 2021, null, null).getItens().size());
+	}
+
+	@Test
+	public void buscarPorDescricao() {
+		medir("buscarPagina descrição \"mercado\" (usuário pesado)", () ->
+				service.buscarPagina(filtro(pesado, "mercado"), null, null).getItens().size());
+		medir("buscar descrição \"mercado\" lista completa (usuário pesado)", () -> service.buscar(filtro(pesado, "mercado")).size());
+		medir("buscar sem filtro lista completa (usuário típico)", () -> service.buscar(filtro(tipico, null)).size());
+	}
+
+	@Test
+	public void autocompleteDescricoes() {
+		medir("buscarDescricoes prefixo \"ma\" (usuário pesado)", () -> service.buscarDescricoes(pesado.getId(), "ma", null).size());
+	}
+
+	@Test
+	public void resumoMensal() {
+		medir("obterResumoMensal 2020 a 2023 (usuário pesado)", () -> service.obterResumoMensal(pesado.getId(), 1, 2020, 12, 2023).size());
+		medir("obterTotaisMensaisPorUsuario (usuário pesado)", () -> repository.obterTotaisMensaisPorUsuario(pesado.getId()).size());
+	}
+
+	@Test
+	public void usuariosDaReconciliacao() {
+		medir("obterIdsUsuarios (usuários da reconciliação)", () -> repository.obterIdsUsuarios().size());
+	}
+
+	private void medir(String consulta, Supplier<Integer> execucao) {
+		for(int i = 0; i < aquecimento; i++) {
+			transacaoLeitura.execute(status -> execucao.get());
+		}
+		
+		long[] tempos = new long[medicoes];
+		int linhas = 0;
+		for(int i = 0; i < medicoes; i++) {
+			long inicio = System.nanoTime();
+			linhas = transacaoLeitura.execute(status -> execucao.get());
+			tempos[i] = System.nanoTime() - inicio;
+		}
+		relatorio.registrar(consulta, linhas, tempos);
+	}
+
+	private Lancamento filtro(Usuario usuario, String descricao) {
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		filtro.setDescricao(descricao);
+		return filtro;
+	}
+
+	private Object[] parametrosInsert(long id, Lancamento lancamento) {
+		return new Object[] { id, lancamento.getDescricao(), lancamento.getMes(), lancamento.getAno(),
+				lancamento.getCompetencia(), lancamento.getUsuario().getId(), lancamento.getValor(),
+				Date.valueOf(lancamento.getDataCadastro()), lancamento.getTipo().name(), lancamento.getStatus().name() };
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.alefesilva.minhasfinancas.desempenho;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * Resultado da suíte de desempenho. Cada execução grava:
+ * - relatorio-<data>.txt: parâmetros da massa de dados, tempo da carga e uma linha por consulta (mínimo, p50, p95 e
+ * máximo em milissegundos, e linhas retornadas).
+ * - historico.csv: as mesmas linhas acrescentadas ao final, com a data e os parâmetros, para comparar uma execução
+ * com a outra (ex: antes e depois de criar um índice).
+ */
+public class RelatorioDesempenho {
+	
+	private static final DateTimeFormatter FORMATO_ARQUIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+	
+	private final Map<String, String> parametros = new LinkedHashMap<>();
+	
+	private final List<Medicao> medicoes = new ArrayList<>();
+	
+	private final LocalDateTime inicio = LocalDateTime.now();
+	
+	public void parametro(String nome, Object valor) {
+		parametros.put(nome, String.valueOf(valor));
+	}
+
+	public synchronized void registrar(String consulta, long linhas, long[] tempos) {
+		medicoes.add(new Medicao(consulta, linhas, tempos));
+	}
+
+	public void escrever(Path diretorio) throws IOException {
+		Files.createDirectories(diretorio);
+		
+		List<String> relatorio = new ArrayList<>();
+		relatorio.add("Desempenho das consultas de lançamentos - " + inicio);
+		parametros.forEach((nome, valor) -> relatorio.add(String.format("%-28s %s", nome, valor)));
+		relatorio.add("");
+		relatorio.add(String.format("%-68s %10s %10s %10s %10s %10s", "consulta", "linhas", "min ms", "p50 ms", "p95 ms", "max ms"));
+		for(Medicao medicao : medicoes) {
+			relatorio.add(String.format("%-68s %10d %10.2f %10.2f %10.2f %10.2f", medicao.consulta, medicao.linhas,
+					medicao.percentil(0), medicao.percentil(50), medicao.percentil(95), medicao.percentil(100)));
+		}
+		Files.write(diretorio.resolve("relatorio-" + inicio.format(FORMATO_ARQUIVO) + ".txt"), relatorio, StandardCharsets.UTF_8);
+		
+		Path historico = diretorio.resolve("historico.csv");
+		List<String> linhas = new ArrayList<>();
+		if(!Files.exists(historico)) {
+			linhas.add("data;" + String.join(";", parametros.keySet()) + ";consulta;linhas;min_ms;p50_ms;p95_ms;max_ms");
+		}
+		for(Medicao medicao : medicoes) {
+			linhas.add(String.format(Locale.ROOT, "%s;%s;%s;%d;%.3f;%.3f;%.3f;%.3f", inicio,
+					String.join(";", parametros.values()), medicao.consulta, medicao.linhas, medicao.percentil(0),
+					medicao.percentil(50), medicao.percentil(95), medicao.percentil(100)));
+		}
+		Files.write(historico, linhas, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	private static class Medicao {
+		
+		private final String consulta;
+		
+		private final long linhas;
+		
+		private final long[] tempos;
+		
+		Medicao(String consulta, long linhas, long[] tempos) {
+			this.consulta = consulta;
+			this.linhas = linhas;
+			this.tempos = tempos.clone();
+			Arrays.sort(this.tempos);
+		}
+		
+		/// Percentil pelo posto mais próximo, em milissegundos (0 = mínimo, 100 = máximo)
+		double percentil(int percentil) {
+			int posicao = Math.max(0, (int) Math.ceil(percentil / 100.0 * tempos.length) - 1);
+			return tempos[posicao] / 1_000_000.0;
+		}
+		
+	}
+
+}
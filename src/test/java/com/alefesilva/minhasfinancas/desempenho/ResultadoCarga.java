@@ -0,0 +1,122 @@
+package com.alefesilva.minhasfinancas.desempenho;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Tempos e erros das requisições do TesteCarga, por operação. Os tempos de cada operação ficam todos guardados (um
+ * long por requisição), então os percentis são exatos; uma execução de alguns minutos cabe folgada na memória.
+ */
+public class ResultadoCarga {
+	
+	private final Map<String, Amostras> amostras = new ConcurrentHashMap<>();
+	
+	/// "operação -> status HTTP" ou "operação -> exceção", ex: "autenticar -> 429"
+	private final Map<String, LongAdder> erros = new ConcurrentHashMap<>();
+	
+	private double segundos;
+	
+	public void registrar(String operacao, long nanos) {
+		amostras.computeIfAbsent(operacao, chave -> new Amostras()).adicionar(nanos);
+	}
+
+	public void registrarErro(String operacao, String motivo) {
+		erros.computeIfAbsent(operacao + " -> " + motivo, chave -> new LongAdder()).increment();
+	}
+
+	/// Duração da medição, base do req/s
+	public void encerrar(double segundosMedidos) {
+		this.segundos = segundosMedidos;
+	}
+
+	public long totalOk() {
+		return amostras.values().stream().mapToLong(operacao -> operacao.ordenadas().length).sum();
+	}
+
+	public long totalErros() {
+		return erros.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	public double vazao() {
+		return totalOk() / segundos;
+	}
+
+	/// Percentil de todas as operações juntas, em milissegundos
+	public double percentil(int percentil) {
+		long[] todas = amostras.values().stream()
+				.flatMapToLong(operacao -> Arrays.stream(operacao.ordenadas()))
+				.sorted()
+				.toArray();
+		return percentil(todas, percentil);
+	}
+
+	public void imprimir(PrintStream saida) {
+		saida.println();
+		saida.printf("%-18s %10s %10s %10s %10s %10s %10s %10s%n", "operação", "ok", "req/s", "p50 ms", "p90 ms", "p99 ms",
+				"máx ms", "erros");
+		
+		long totalOk = 0;
+		long totalErros = 0;
+		for(Map.Entry<String, Amostras> operacao : new TreeMap<>(amostras).entrySet()) {
+			long[] tempos = operacao.getValue().ordenadas();
+			long errosOperacao = erros(operacao.getKey());
+			saida.printf("%-18s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10d%n", operacao.getKey(), tempos.length,
+					tempos.length / segundos, percentil(tempos, 50), percentil(tempos, 90), percentil(tempos, 99),
+					percentil(tempos, 100), errosOperacao);
+			totalOk += tempos.length;
+			totalErros += errosOperacao;
+		}
+		saida.printf("%-18s %10d %10.1f %54d%n", "total", totalOk, totalOk / segundos, totalErros);
+		
+		if(!erros.isEmpty()) {
+			saida.println();
+			saida.println("Erros:");
+			erros.entrySet().stream()
+					.sorted(Comparator.comparing((Map.Entry<String, LongAdder> erro) -> erro.getValue().sum()).reversed())
+					.forEach(erro -> saida.printf("  %-40s %10d%n", erro.getKey(), erro.getValue().sum()));
+		}
+	}
+
+	private long erros(String operacao) {
+		return erros.entrySet().stream()
+				.filter(erro -> erro.getKey().startsWith(operacao + " -> "))
+				.mapToLong(erro -> erro.getValue().sum())
+				.sum();
+	}
+
+	/// Percentil pelo posto mais próximo, em milissegundos (100 = máximo)
+	private static double percentil(long[] ordenados, int percentil) {
+		if(ordenados.length == 0) {
+			return 0;
+		}
+		int posicao = Math.max(0, (int) Math.ceil(percentil / 100.0 * ordenados.length) - 1);
+		return ordenados[posicao] / 1_000_000.0;
+	}
+
+	private static class Amostras {
+		
+		private long[] valores = new long[1024];
+		
+		private int quantidade;
+		
+		synchronized void adicionar(long valor) {
+			if(quantidade == valores.length) {
+				valores = Arrays.copyOf(valores, valores.length * 2);
+			}
+			valores[quantidade++] = valor;
+		}
+		
+		synchronized long[] ordenadas() {
+			long[] copia = Arrays.copyOf(valores, quantidade);
+			Arrays.sort(copia);
+			return copia;
+		}
+		
+	}
+
+}
@@ -0,0 +1,323 @@
+package com.alefesilva.minhasfinancas.desempenho;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.alefesilva.minhasfinancas.MinhasfinancasApplication;
+import com.alefesilva.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.alefesilva.minhasfinancas.api.dto.LancamentoDTO;
+import com.alefesilva.minhasfinancas.api.dto.UsuarioDTO;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Teste de carga HTTP contra uma instância da aplicação iniciada aqui mesmo (porta aleatória, profile test com um H2
+ * próprio). Mostra onde a aplicação satura (BCrypt no login, filtro do JWT, listagens) sem precisar de produção:
+ *   mvn -Pcarga test -Dcarga.clientes=50 -Dcarga.duracao=60
+ *
+ * 1. Cadastra os usuários pelo POST /api/usuarios, autentica cada um (token e id do usuário vêm do JWT, como no
+ * front-end) e grava alguns lançamentos pelo POST /api/lancamentos/lote.
+ * 2. Cada cliente (uma thread, com o usuário e o token dele) repete a mistura de OPERACOES o mais rápido que consegue.
+ * Os primeiros carga.aquecimento segundos não entram no resultado.
+ * 3. Imprime por operação: requisições com sucesso, req/s, p50/p90/p99/máximo e erros (status HTTP ou exceção).
+ *
+ * Parâmetros (-D): carga.clientes (50), carga.usuarios (igual a clientes), carga.duracao em segundos (60),
+ * carga.aquecimento em segundos (10), carga.lancamentos-iniciais por usuário (50), carga.semente (1),
+ * carga.threads-virtuais (false, ver ThreadsVirtuaisConfiguration).
+ */
+public class TesteCarga {
+	
+	/// Mistura de operações: peso de cada uma a cada 100 requisições
+	static final String[] OPERACOES = { "autenticar", "listar", "salvar", "atualizar-status", "saldo" };
+	static final int[] PESOS = { 5, 40, 20, 15, 20 };
+	
+	static final String SENHA = "senha";
+	
+	static final ObjectMapper MAPPER = new ObjectMapper();
+	
+	private final HttpClient http = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	
+	private final String url;
+	
+	private final int[] pesos;
+	
+	/// Preenchido só durante a medição, fora dela (aquecimento) as requisições não são registradas
+	private volatile ResultadoCarga resultado;
+	
+	private volatile boolean executando;
+	
+	TesteCarga(String url, int[] pesos) {
+		this.url = url;
+		this.pesos = pesos;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int clientes = Integer.getInteger("carga.clientes", 50);
+		int usuarios = Integer.getInteger("carga.usuarios", clientes);
+		int duracao = Integer.getInteger("carga.duracao", 60);
+		int aquecimento = Integer.getInteger("carga.aquecimento", 10);
+		int lancamentosIniciais = Integer.getInteger("carga.lancamentos-iniciais", 50);
+		long semente = Long.getLong("carga.semente", 1);
+		boolean threadsVirtuais = Boolean.getBoolean("carga.threads-virtuais");
+		
+		ConfigurableApplicationContext contexto = iniciarAplicacao(threadsVirtuais);
+		ResultadoCarga medido;
+		try {
+			TesteCarga teste = new TesteCarga(url(contexto), PESOS);
+			List<Cliente> cadastrados = teste.cadastrar(usuarios, lancamentosIniciais);
+			System.out.printf("%d usuário(s) cadastrado(s) com %d lançamento(s) cada, %d cliente(s) por %ds (+%ds de aquecimento)%n",
+					usuarios, lancamentosIniciais, clientes, duracao, aquecimento);
+			
+			medido = teste.executar(cadastrados, clientes, semente, aquecimento, duracao);
+		}finally {
+			contexto.close();
+		}
+		
+		//Depois do log de encerramento da aplicação, para o resultado ficar no final da saída
+		medido.imprimir(System.out);
+	}
+
+	/// Aplicação na porta aleatória com um H2 próprio para cada modo (usuários cadastrados não se repetem entre execuções)
+	static ConfigurableApplicationContext iniciarAplicacao(boolean threadsVirtuais) {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		return new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.run("--spring.profiles.active=test", "--server.port=0",
+					 "--execucao.threads-virtuais=" + threadsVirtuais,
+					 "--spring.datasource.url=jdbc:h2:mem:carga-" + (threadsVirtuais ? "virtual" : "plataforma")
+					 + ";DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas");
+	}
+
+	static String url(ConfigurableApplicationContext contexto) {
+		return "http://localhost:" + ((WebServerApplicationContext) contexto).getWebServer().getPort();
+	}
+
+	List<Cliente> cadastrar(int usuarios, int lancamentosIniciais) throws Exception {
+		List<Cliente> cadastrados = new ArrayList<>(usuarios);
+		for(int i = 0; i < usuarios; i++) {
+			cadastrados.add(cadastrarUsuario(i, lancamentosIniciais));
+		}
+		return cadastrados;
+	}
+
+	/// Os clientes dividem os usuários cadastrados (cliente i usa o usuário i % usuários)
+	ResultadoCarga executar(List<Cliente> cadastrados, int clientes, long semente, int aquecimento, int duracao)
+			throws InterruptedException {
+		executando = true;
+		ExecutorService executor = Executors.newFixedThreadPool(clientes);
+		for(int i = 0; i < clientes; i++) {
+			Cliente cliente = cadastrados.get(i % cadastrados.size());
+			Random random = new Random(semente * 31 + i);
+			executor.execute(() -> executar(cliente, random));
+		}
+		
+		Thread.sleep(TimeUnit.SECONDS.toMillis(aquecimento));
+		ResultadoCarga medido = new ResultadoCarga();
+		resultado = medido;
+		long inicio = System.nanoTime();
+		Thread.sleep(TimeUnit.SECONDS.toMillis(duracao));
+		resultado = null;
+		medido.encerrar((System.nanoTime() - inicio) / 1e9);
+		
+		executando = false;
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		return medido;
+	}
+
+	private Cliente cadastrarUsuario(int indice, int lancamentosIniciais) throws Exception {
+		String email = "carga" + indice + "@email.com";
+		HttpResponse<String> resposta = enviar(post("/api/usuarios", null,
+				UsuarioDTO.builder().nome("Usuário " + indice).email(email).senha(SENHA).build()));
+		verificar(resposta, "cadastro do usuário " + email);
+		
+		Cliente cliente = new Cliente(email);
+		autenticar(cliente);
+		
+		Random random = new Random(indice);
+		List<LancamentoDTO> lote = new ArrayList<>(lancamentosIniciais);
+		for(int i = 0; i < lancamentosIniciais; i++) {
+			lote.add(novoLancamento(cliente, random));
+		}
+		verificar(enviar(post("/api/lancamentos/lote", cliente.token, lote)), "lançamentos iniciais de " + email);
+		
+		//Ids para a troca de status: a primeira página da listagem
+		JsonNode pagina = MAPPER.readTree(verificar(enviar(get("/api/lancamentos?usuario=" + cliente.id, cliente.token)),
+				"listagem de " + email).body());
+		pagina.get("itens").forEach(item -> cliente.lancamentos.add(item.get("id").asLong()));
+		return cliente;
+	}
+
+	private void executar(Cliente cliente, Random random) {
+		while(executando) {
+			String operacao = sortearOperacao(random);
+			long inicio = System.nanoTime();
+			try {
+				HttpResponse<String> resposta = enviar(requisicao(operacao, cliente, random));
+				long tempo = System.nanoTime() - inicio;
+				if(resposta.statusCode() / 100 != 2) {
+					erro(operacao, String.valueOf(resposta.statusCode()));
+					continue;
+				}
+				ResultadoCarga atual = resultado;
+				if(atual != null) {
+					atual.registrar(operacao, tempo);
+				}
+				depois(operacao, cliente, resposta);
+			}catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}catch(Exception e) {
+				erro(operacao, e.getClass().getSimpleName());
+			}
+		}
+	}
+
+	private HttpRequest requisicao(String operacao, Cliente cliente, Random random) throws IOException {
+		switch(operacao) {
+			case "autenticar":
+				return post("/api/usuarios/autenticar", null, UsuarioDTO.builder().email(cliente.email).senha(SENHA).build());
+			case "listar":
+				return get("/api/lancamentos?usuario=" + cliente.id, cliente.token);
+			case "salvar":
+				return post("/api/lancamentos", cliente.token, novoLancamento(cliente, random));
+			case "atualizar-status":
+				StatusLancamento status = StatusLancamento.values()[random.nextInt(StatusLancamento.values().length)];
+				return HttpRequest.newBuilder(URI.create(url + "/api/lancamentos/" + cliente.sortearLancamento(random) + "/atualiza-status"))
+						.header("Authorization", "Bearer " + cliente.token)
+						.header("Content-Type", "application/json")
+						.PUT(corpo(new AtualizaStatusDTO(status.name())))
+						.build();
+			default:
+				return get("/api/usuarios/" + cliente.id + "/saldo", cliente.token);
+		}
+	}
+
+	/// Guarda o que as próximas requisições do cliente usam: o token renovado no login e os ids dos lançamentos novos
+	private void depois(String operacao, Cliente cliente, HttpResponse<String> resposta) throws IOException {
+		if(operacao.equals("autenticar")) {
+			cliente.token = MAPPER.readTree(resposta.body()).get("token").asText();
+		}else if(operacao.equals("salvar")) {
+			cliente.lancamentos.add(MAPPER.readTree(resposta.body()).get("id").asLong());
+		}
+	}
+
+	private void erro(String operacao, String motivo) {
+		ResultadoCarga atual = resultado;
+		if(atual != null) {
+			atual.registrarErro(operacao, motivo);
+		}
+	}
+
+	private void autenticar(Cliente cliente) throws Exception {
+		HttpResponse<String> resposta = verificar(enviar(post("/api/usuarios/autenticar", null,
+				UsuarioDTO.builder().email(cliente.email).senha(SENHA).build())), "login de " + cliente.email);
+		cliente.token = MAPPER.readTree(resposta.body()).get("token").asText();
+		
+		//O id do usuário vem na claim userid do token, que é onde o front-end também busca
+		String payload = new String(Base64.getUrlDecoder().decode(cliente.token.split("\\.")[1]), StandardCharsets.UTF_8);
+		cliente.id = MAPPER.readTree(payload).get("userid").asLong();
+	}
+
+	private LancamentoDTO novoLancamento(Cliente cliente, Random random) {
+		return LancamentoDTO.builder()
+				.descricao("Lançamento " + random.nextInt(1000))
+				.mes(1 + random.nextInt(12))
+				.ano(2022)
+				.valor(BigDecimal.valueOf(100 + random.nextInt(100_000), 2))
+				.tipo(random.nextBoolean() ? TipoLancamento.RECEITA.name() : TipoLancamento.DESPESA.name())
+				.usuario(cliente.id)
+				.build();
+	}
+
+	private String sortearOperacao(Random random) {
+		int sorteio = random.nextInt(100);
+		for(int i = 0; i < OPERACOES.length; i++) {
+			sorteio -= pesos[i];
+			if(sorteio < 0) {
+				return OPERACOES[i];
+			}
+		}
+		return OPERACOES[OPERACOES.length - 1];
+	}
+
+	private HttpResponse<String> enviar(HttpRequest requisicao) throws IOException, InterruptedException {
+		return http.send(requisicao, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpRequest get(String caminho, String token) {
+		return HttpRequest.newBuilder(URI.create(url + caminho))
+				.header("Authorization", "Bearer " + token)
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+	}
+
+	private HttpRequest post(String caminho, String token, Object corpo) throws IOException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url + caminho))
+				.header("Content-Type", "application/json")
+				.timeout(Duration.ofSeconds(30))
+				.POST(corpo(corpo));
+		if(token != null) {
+			builder.header("Authorization", "Bearer " + token);
+		}
+		return builder.build();
+	}
+
+	private static HttpRequest.BodyPublisher corpo(Object corpo) throws IOException {
+		return HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(corpo));
+	}
+
+	private static HttpResponse<String> verificar(HttpResponse<String> resposta, String etapa) {
+		if(resposta.statusCode() / 100 != 2) {
+			throw new IllegalStateException("Falha no " + etapa + ": " + resposta.statusCode() + " " + resposta.body());
+		}
+		return resposta;
+	}
+
+	/// Usuário simulado: o token é trocado a cada login e a lista de lançamentos cresce com os salvar
+	static class Cliente {
+		
+		private final String email;
+		
+		private final List<Long> lancamentos = Collections.synchronizedList(new ArrayList<>());
+		
+		private volatile String token;
+		
+		private long id;
+		
+		Cliente(String email) {
+			this.email = email;
+		}
+		
+		long sortearLancamento(Random random) {
+			synchronized(lancamentos) {
+				return lancamentos.get(random.nextInt(lancamentos.size()));
+			}
+		}
+		
+	}
+
+}
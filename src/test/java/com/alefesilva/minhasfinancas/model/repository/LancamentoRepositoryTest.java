@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,12 +17,15 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
 import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
 import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
 
 @ExtendWith(SpringExtension.class)
 @DataJpaTest
@@ -96,6 +100,123 @@ public class LancamentoRepositoryTest {
 		Assertions.assertThat(lancamentoEncontrado.isPresent()).isTrue();
 	}
 	
+	@Test
+	public void deveCarregarOLancamentoSemCarregarOUsuario() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("lazy@email.com").build());
+		Lancamento lancamento = persistirLancamentoDoUsuario(usuario, 2022, 11);
+		entityManager.flush();
+		entityManager.clear();
+		
+		Lancamento carregado = repository.findById(lancamento.getId()).get();
+		entityManager.detach(carregado); // Como no resource, depois que a transação terminou
+		
+		// O id vem da chave estrangeira, sem select na tabela de usuário
+		Assertions.assertThat(carregado.getUsuario().getId()).isEqualTo(usuario.getId());
+		Assertions.assertThat(Hibernate.isInitialized(carregado.getUsuario())).isFalse();
+	}
+	
+	@Test
+	public void deveBuscarLancamentosDeUmPeriodoQueAtravessaOAno() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("periodo@email.com").build());
+		persistirLancamentoDoUsuario(usuario, 2022, 10);
+		Lancamento novembro = persistirLancamentoDoUsuario(usuario, 2022, 11);
+		Lancamento fevereiro = persistirLancamentoDoUsuario(usuario, 2023, 2);
+		persistirLancamentoDoUsuario(usuario, 2023, 3);
+		
+		// Novembro/2022 até Fevereiro/2023
+		List<Lancamento> lancamentos = repository.obterLancamentosPorUsuarioECompetencia(usuario.getId(), 202211, 202302,
+				0, 0l, PageRequest.of(0, 10));
+		
+		Assertions.assertThat(lancamentos).containsExactly(novembro, fevereiro);
+	}
+	
+	@Test
+	public void deveContinuarAPaginaDepoisDoCursor() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("pagina@email.com").build());
+		Lancamento primeiro = persistirLancamentoDoUsuario(usuario, 2022, 11);
+		Lancamento segundo = persistirLancamentoDoUsuario(usuario, 2022, 11);
+		Lancamento terceiro = persistirLancamentoDoUsuario(usuario, 2022, 12);
+		
+		Lancamento filtro = Lancamento.builder().usuario(usuario).descricao("QUALQUER").build();
+		
+		// Página de 2 itens e depois a continuação a partir do segundo
+		List<ItemLancamento> primeiraPagina = repository.buscarItens(filtro, null, null, 2);
+		List<ItemLancamento> segundaPagina = repository.buscarItens(filtro, segundo.getCompetencia(), segundo.getId(), 2);
+		
+		Assertions.assertThat(primeiraPagina).extracting(ItemLancamento::getId).containsExactly(primeiro.getId(), segundo.getId());
+		Assertions.assertThat(segundaPagina).extracting(ItemLancamento::getId).containsExactly(terceiro.getId());
+	}
+	
+	@Test
+	public void deveBuscarApenasComOsFiltrosInformados() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("filtro@email.com").build());
+		Lancamento novembro = persistirLancamentoDoUsuario(usuario, 2022, 11);
+		persistirLancamentoDoUsuario(usuario, 2022, 12);
+		Lancamento despesa = persistirLancamentoDoUsuario(usuario, 2022, 11);
+		despesa.setTipo(TipoLancamento.DESPESA);
+		entityManager.flush();
+		
+		List<ItemLancamento> todos = repository.buscarItens(Lancamento.builder().usuario(usuario).build(), null, null, null);
+		List<ItemLancamento> receitasDeNovembro = repository.buscarItens(
+				Lancamento.builder().usuario(usuario).mes(11).tipo(TipoLancamento.RECEITA).build(), null, null, null);
+		
+		Assertions.assertThat(todos).hasSize(3);
+		Assertions.assertThat(receitasDeNovembro).hasSize(1);
+		ItemLancamento item = receitasDeNovembro.get(0);
+		Assertions.assertThat(item.getId()).isEqualTo(novembro.getId());
+		Assertions.assertThat(item.getIdUsuario()).isEqualTo(usuario.getId());
+		Assertions.assertThat(item.getValor()).isEqualByComparingTo(novembro.getValor());
+		Assertions.assertThat(item.getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+	}
+	
+	@Test
+	public void deveBuscarAsDescricoesDoUsuarioQueComecamComOPrefixo() {
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("usuario").email("descricao@email.com").build());
+		Usuario outroUsuario = entityManager.persist(Usuario.builder().nome("outro").email("outro@email.com").build());
+		persistirLancamentoComDescricao(usuario, "Mercado");
+		persistirLancamentoComDescricao(usuario, "mercado livre");
+		persistirLancamentoComDescricao(usuario, "Mercado"); // Repetida volta uma vez só
+		persistirLancamentoComDescricao(usuario, "Supermercado");
+		persistirLancamentoComDescricao(usuario, "Mer_ceria");
+		persistirLancamentoComDescricao(outroUsuario, "Mercearia");
+		
+		List<String> descricoes = repository.buscarDescricoes(usuario.getId(), LancamentoRepository.padraoPrefixo("MERC"),
+				PageRequest.of(0, 10));
+		List<String> comCaractereCuringa = repository.buscarDescricoes(usuario.getId(),
+				LancamentoRepository.padraoPrefixo("mer_"), PageRequest.of(0, 10));
+		
+		Assertions.assertThat(descricoes).containsExactly("Mercado", "mercado livre");
+		Assertions.assertThat(comCaractereCuringa).containsExactly("Mer_ceria");
+	}
+	
+	@Test
+	public void devePreencherACompetenciaDeLancamentosAntigos() {
+		Lancamento lancamento = criarEPersistirUmLancamento();
+		//Simula um lançamento gravado antes da coluna competência existir
+		entityManager.getEntityManager().createQuery("update Lancamento l set l.competencia = null").executeUpdate();
+		
+		int preenchidos = repository.preencherCompetencia();
+		entityManager.clear();
+		
+		Assertions.assertThat(preenchidos).isEqualTo(1);
+		Assertions.assertThat(entityManager.find(Lancamento.class, lancamento.getId()).getCompetencia()).isEqualTo(202211);
+	}
+	
+	private Lancamento persistirLancamentoDoUsuario(Usuario usuario, Integer ano, Integer mes) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		return entityManager.persist(lancamento);
+	}
+	
+	private Lancamento persistirLancamentoComDescricao(Usuario usuario, String descricao) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setDescricao(descricao);
+		return entityManager.persist(lancamento);
+	}
+	
 	private Lancamento criarEPersistirUmLancamento() {
 		Lancamento lancamento = criarLancamento();
 		entityManager.persist(lancamento);
@@ -0,0 +1,147 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensal;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoSaldoUsuario;
+import com.alefesilva.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({ LancamentoServiceImpl.class, AgregadoSaldoUsuario.class, AgregadoResumoMensal.class })
+public class AgregadoResumoMensalTest {
+	
+	@Autowired
+	LancamentoServiceImpl service;
+	
+	@Autowired
+	AgregadoResumoMensal resumoMensal;
+	
+	@Autowired
+	ResumoMensalRepository resumoRepository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void criarUsuario() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("resumo@email.com").senha("senha").build());
+	}
+
+	@Test
+	public void deveMoverOLancamentoEntreOsMesesDoResumo() {
+		//Cenário
+		Lancamento lancamento = service.salvar(criarLancamento(2022, 11, 100));
+		service.salvar(criarLancamento(2022, 11, 40));
+		
+		//Execução
+		lancamento.setMes(12);
+		lancamento.setValor(BigDecimal.valueOf(60));
+		service.atualizarStatus(lancamento, StatusLancamento.EFETIVADO);
+		
+		//Verificação
+		List<ResumoMensal> resumos = buscarResumo(11, 2022, 12, 2022);
+		Assertions.assertThat(resumos).hasSize(2);
+		
+		Assertions.assertThat(resumos.get(0).getId().getMes()).isEqualTo(11);
+		Assertions.assertThat(resumos.get(0).getId().getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		Assertions.assertThat(resumos.get(0).getQuantidade()).isEqualTo(1);
+		Assertions.assertThat(resumos.get(0).getTotal()).isEqualByComparingTo("40");
+		
+		Assertions.assertThat(resumos.get(1).getId().getMes()).isEqualTo(12);
+		Assertions.assertThat(resumos.get(1).getId().getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		Assertions.assertThat(resumos.get(1).getQuantidade()).isEqualTo(1);
+		Assertions.assertThat(resumos.get(1).getTotal()).isEqualByComparingTo("60");
+	}
+
+	@Test
+	public void deveReconstruirOResumoIgualAoMantidoNasGravacoes() {
+		//Cenário
+		service.salvar(criarLancamento(2021, 12, 10));
+		service.salvar(criarLancamento(2022, 1, 20));
+		Lancamento lancamento = service.salvar(criarLancamento(2022, 1, 30));
+		entityManager.flush(); // Como em requisições separadas: a exclusão lê os valores já gravados no banco
+		service.deletar(lancamento);
+		List<ResumoMensal> mantidos = buscarResumo(1, 2021, 12, 2022);
+		
+		//Execução
+		resumoMensal.reconstruir();
+		
+		//Verificação
+		List<ResumoMensal> reconstruidos = buscarResumo(1, 2021, 12, 2022);
+		Assertions.assertThat(reconstruidos).hasSize(2);
+		for(int i = 0; i < reconstruidos.size(); i++) {
+			Assertions.assertThat(reconstruidos.get(i).getId()).isEqualTo(mantidos.get(i).getId());
+			Assertions.assertThat(reconstruidos.get(i).getQuantidade()).isEqualTo(mantidos.get(i).getQuantidade());
+			Assertions.assertThat(reconstruidos.get(i).getTotal()).isEqualByComparingTo(mantidos.get(i).getTotal());
+		}
+	}
+
+	@Test
+	public void deveAtualizarOResumoAoExcluirOsLancamentosDoPeriodoEmLote() {
+		//Cenário
+		service.salvar(criarLancamento(2021, 12, 10));
+		service.salvar(criarLancamento(2022, 1, 20));
+		service.salvar(criarLancamento(2022, 2, 30));
+		
+		//Execução
+		int excluidos = service.deletarPeriodo(usuario.getId(), 12, 2021, 1, 2022);
+		
+		//Verificação
+		Assertions.assertThat(excluidos).isEqualTo(2);
+		List<ResumoMensal> resumos = buscarResumo(1, 2021, 12, 2022);
+		Assertions.assertThat(resumos).hasSize(1);
+		Assertions.assertThat(resumos.get(0).getId().getMes()).isEqualTo(2);
+		Assertions.assertThat(resumos.get(0).getTotal()).isEqualByComparingTo("30");
+	}
+
+	@Test
+	public void deveLancarErroQuandoOPeriodoInicialForDepoisDoFinal() {
+		Assertions.catchThrowableOfType(() -> service.obterResumoMensal(usuario.getId(), 5, 2022, 4, 2022),
+				RegraNegocioException.class);
+	}
+
+	private List<ResumoMensal> buscarResumo(Integer mesInicial, Integer anoInicial, Integer mesFinal, Integer anoFinal) {
+		//O resumo é alterado com update direto no banco, então descartamos o que já estava carregado no contexto
+		entityManager.flush();
+		entityManager.clear();
+		return service.obterResumoMensal(usuario.getId(), mesInicial, anoInicial, mesFinal, anoFinal);
+	}
+
+	private Lancamento criarLancamento(int ano, int mes, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+
+}
@@ -0,0 +1,176 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.SaldoUsuario;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoSaldoUsuario;
+import com.alefesilva.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+/*
+ * Grava lançamentos pelo service (banco H2 de teste) e confere o saldo materializado contra a soma dos lançamentos.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({ LancamentoServiceImpl.class, AgregadoSaldoUsuario.class, AgregadoResumoMensal.class })
+public class AgregadoSaldoUsuarioTest {
+	
+	@Autowired
+	LancamentoServiceImpl service;
+	
+	@Autowired
+	AgregadoSaldoUsuario saldoUsuario;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void criarUsuario() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("saldo@email.com").senha("senha").build());
+	}
+
+	@Test
+	public void deveAtualizarOSaldoAoAlterarStatusTipoEValorDoLancamento() {
+		//Cenário
+		Lancamento lancamento = criarLancamento(TipoLancamento.RECEITA, 100);
+		
+		//Execução e verificação
+		service.salvar(lancamento); // PENDENTE não entra no saldo
+		Assertions.assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo("0");
+		
+		service.atualizarStatus(lancamento, StatusLancamento.EFETIVADO);
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("100");
+		
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setValor(BigDecimal.valueOf(80));
+		service.atualizar(lancamento);
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("0");
+		Assertions.assertThat(saldoGravado().getDespesas()).isEqualByComparingTo("80");
+		Assertions.assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo("-80");
+		
+		service.deletar(lancamento);
+		Assertions.assertThat(saldoGravado().getSaldo()).isEqualByComparingTo("0");
+	}
+
+	@Test
+	public void deveCorrigirOSaldoDivergenteNaReconciliacao() {
+		//Cenário
+		Lancamento lancamento = service.salvar(criarLancamento(TipoLancamento.RECEITA, 50));
+		service.atualizarStatus(lancamento, StatusLancamento.EFETIVADO);
+		
+		SaldoUsuario saldo = saldoGravado();
+		saldo.setReceitas(BigDecimal.valueOf(999)); // Simula um saldo que saiu de sincronia
+		entityManager.flush();
+		
+		//Execução
+		int divergencias = saldoUsuario.reconciliar();
+		
+		//Verificação
+		Assertions.assertThat(divergencias).isEqualTo(1);
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("50");
+	}
+
+	@Test
+	public void deveCalcularOSaldoRealizadoEOPrevisto() {
+		//Cenário
+		service.atualizarStatus(service.salvar(criarLancamento(TipoLancamento.RECEITA, 300)), StatusLancamento.EFETIVADO);
+		service.atualizarStatus(service.salvar(criarLancamento(TipoLancamento.DESPESA, 100)), StatusLancamento.EFETIVADO);
+		service.salvar(criarLancamento(TipoLancamento.DESPESA, 50)); // PENDENTE
+		service.atualizarStatus(service.salvar(criarLancamento(TipoLancamento.RECEITA, 70)), StatusLancamento.CANCELADO);
+		
+		//Execução
+		SaldoDetalhado saldo = service.obterSaldoDetalhadoPorUsuario(usuario.getId());
+		
+		//Verificação
+		Assertions.assertThat(saldo.getSaldoRealizado()).isEqualByComparingTo("200");
+		Assertions.assertThat(saldo.getSaldoPrevisto()).isEqualByComparingTo("150");
+		Assertions.assertThat(saldo.getTotais()).hasSize(4);
+		Assertions.assertThat(saldo.somar(TipoLancamento.RECEITA, StatusLancamento.CANCELADO)).isEqualByComparingTo("70");
+		Assertions.assertThat(saldoGravado().getSaldo()).isEqualByComparingTo(saldo.getSaldoRealizado());
+	}
+
+	@Test
+	public void deveEfetivarOsLancamentosDoPeriodoEmLoteERecalcularOSaldo() {
+		//Cenário
+		service.salvar(criarLancamento(TipoLancamento.RECEITA, 300));
+		service.salvar(criarLancamento(TipoLancamento.DESPESA, 100));
+		Lancamento outroMes = criarLancamento(TipoLancamento.RECEITA, 40);
+		outroMes.setMes(12);
+		service.salvar(outroMes);
+		
+		//Execução
+		int alterados = service.atualizarStatusPeriodo(usuario.getId(), 10, 2022, 11, 2022, StatusLancamento.EFETIVADO);
+		
+		//Verificação
+		Assertions.assertThat(alterados).isEqualTo(2);
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("300");
+		Assertions.assertThat(saldoGravado().getDespesas()).isEqualByComparingTo("100");
+		Assertions.assertThat(service.atualizarStatusPeriodo(usuario.getId(), 11, 2022, 11, 2022,
+				StatusLancamento.EFETIVADO)).isZero(); // Já estão efetivados
+	}
+
+	@Test
+	public void deveExcluirEmLoteApenasOsLancamentosDoUsuario() {
+		//Cenário
+		Lancamento receita = service.salvar(criarLancamento(TipoLancamento.RECEITA, 300));
+		Lancamento despesa = service.salvar(criarLancamento(TipoLancamento.DESPESA, 100));
+		service.atualizarStatusLote(usuario.getId(), Arrays.asList(receita.getId(), despesa.getId()),
+				StatusLancamento.EFETIVADO);
+		
+		Usuario outroUsuario = entityManager.persist(
+				Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		Lancamento lancamentoOutroUsuario = criarLancamento(TipoLancamento.RECEITA, 10);
+		lancamentoOutroUsuario.setUsuario(outroUsuario);
+		service.salvar(lancamentoOutroUsuario);
+		
+		//Execução
+		int excluidos = service.deletarLote(usuario.getId(),
+				Arrays.asList(despesa.getId(), lancamentoOutroUsuario.getId()));
+		
+		//Verificação
+		Assertions.assertThat(excluidos).isEqualTo(1);
+		Assertions.assertThat(entityManager.find(Lancamento.class, lancamentoOutroUsuario.getId())).isNotNull();
+		Assertions.assertThat(entityManager.find(Lancamento.class, despesa.getId())).isNull();
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("300");
+		Assertions.assertThat(saldoGravado().getDespesas()).isEqualByComparingTo("0");
+	}
+
+	private Lancamento criarLancamento(TipoLancamento tipo, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+
+	private SaldoUsuario saldoGravado() {
+		//O saldo é alterado com update direto no banco, então descartamos o que já estava carregado no contexto
+		entityManager.flush();
+		entityManager.clear();
+		return entityManager.find(SaldoUsuario.class, usuario.getId());
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensal;
+import com.alefesilva.minhasfinancas.model.entity.ResumoMensalId;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.alefesilva.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.model.repository.projection.TotalMensal;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoSaldoUsuario;
+import com.alefesilva.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+/*
+ * Primeiras gravações simultâneas nos agregados (linha ainda inexistente), cada uma na sua transação e confirmada de
+ * verdade: sem a transação do teste, para que uma thread enxergue o que a outra gravou. Também a reconciliação do
+ * saldo e a operação em lote com outras gravações do mesmo usuário chegando no meio delas.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({ LancamentoServiceImpl.class, AgregadoSaldoUsuario.class, AgregadoResumoMensal.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AgregadosConcorrenciaTest {
+	
+	private static final int GRAVACOES_SIMULTANEAS = 8;
+	
+	private static final int RODADAS = 5;
+	
+	private static final AtomicInteger SEQUENCIA_EMAIL = new AtomicInteger();
+	
+	@Autowired
+	LancamentoServiceImpl service;
+	
+	@Autowired
+	AgregadoSaldoUsuario saldoUsuario;
+	
+	@SpyBean
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	SaldoUsuarioRepository saldoRepository;
+	
+	@Autowired
+	ResumoMensalRepository resumoRepository;
+	
+	@Test
+	public void deveSomarNoSaldoAsPrimeirasEfetivacoesSimultaneasDoUsuario() throws Exception {
+		for(int rodada = 0; rodada < RODADAS; rodada++) {
+			//Cenário: a efetivação inicial deixa pronta a linha do resumo (EFETIVADO de 11/2022), já a do saldo é
+			//apagada, como num usuário de antes do saldo materializado
+			Usuario usuario = criarUsuario();
+			service.atualizarStatus(service.salvar(criarLancamento(usuario, 10)).getId(), StatusLancamento.EFETIVADO);
+			saldoRepository.deleteById(usuario.getId());
+			List<Long> pendentes = criarPendentes(usuario, 100);
+			
+			//Execução
+			executarJuntos(pendentes, id -> service.atualizarStatus(id, StatusLancamento.EFETIVADO));
+			
+			//Verificação
+			Assertions.assertThat(saldoRepository.findById(usuario.getId()).get().getReceitas())
+					.isEqualByComparingTo(BigDecimal.valueOf(10 + 100 * GRAVACOES_SIMULTANEAS));
+		}
+	}
+
+	@Test
+	public void deveSomarNoResumoAsPrimeirasInclusoesSimultaneasDoMes() throws Exception {
+		for(int rodada = 0; rodada < RODADAS; rodada++) {
+			//Cenário: usuário novo, sem nenhuma linha no resumo (inclusões entram como PENDENTE e não mexem no saldo)
+			Usuario usuario = criarUsuario();
+			List<Lancamento> novos = new ArrayList<>();
+			for(int i = 0; i < GRAVACOES_SIMULTANEAS; i++) {
+				novos.add(criarLancamento(usuario, 100));
+			}
+			
+			//Execução
+			executarJuntos(novos, service::salvar);
+			
+			//Verificação
+			ResumoMensal resumo = resumoRepository.findById(new ResumoMensalId(usuario.getId(), 2022, 11,
+					TipoLancamento.RECEITA, StatusLancamento.PENDENTE)).get();
+			Assertions.assertThat(resumo.getQuantidade()).isEqualTo(GRAVACOES_SIMULTANEAS);
+			Assertions.assertThat(resumo.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(100 * GRAVACOES_SIMULTANEAS));
+		}
+	}
+
+	@Test
+	public void deveManterOsAgregadosExatosComGravacoesDuranteAOperacaoEmLote() throws Exception {
+		for(int rodada = 0; rodada < RODADAS; rodada++) {
+			//Cenário: enquanto o período é efetivado em lote, outros lançamentos do mesmo mês são incluídos e efetivados
+			Usuario usuario = criarUsuario();
+			criarPendentes(usuario, 100);
+			List<Runnable> gravacoes = new ArrayList<>();
+			gravacoes.add(() -> service.atualizarStatusPeriodo(usuario.getId(), 11, 2022, 11, 2022,
+					StatusLancamento.EFETIVADO));
+			for(int i = 1; i < GRAVACOES_SIMULTANEAS; i++) {
+				gravacoes.add(() -> service.atualizarStatus(service.salvar(criarLancamento(usuario, 10)).getId(),
+						StatusLancamento.EFETIVADO));
+			}
+			
+			//Execução
+			executarJuntos(gravacoes, Runnable::run);
+			
+			//Verificação: saldo e resumo iguais aos calculados a partir dos lançamentos gravados
+			SaldoDetalhado calculado = SaldoDetalhado.de(lancamentoRepository.obterTotaisPorTipoEStatus(usuario.getId()));
+			Assertions.assertThat(saldoRepository.findById(usuario.getId()).get().getReceitas())
+					.isEqualByComparingTo(calculado.somar(TipoLancamento.RECEITA, StatusLancamento.EFETIVADO));
+			
+			for(TotalMensal total : lancamentoRepository.obterTotaisMensaisPorUsuario(usuario.getId())) {
+				ResumoMensal resumo = resumoRepository.findById(new ResumoMensalId(usuario.getId(), total.getAno(),
+						total.getMes(), total.getTipo(), total.getStatus())).get();
+				Assertions.assertThat(resumo.getQuantidade()).isEqualTo(total.getQuantidade());
+				Assertions.assertThat(resumo.getTotal()).isEqualByComparingTo(total.getTotal());
+			}
+			Assertions.assertThat(resumoRepository.findById(new ResumoMensalId(usuario.getId(), 2022, 11,
+					TipoLancamento.RECEITA, StatusLancamento.PENDENTE)).get().getQuantidade()).isZero();
+		}
+	}
+
+	@Test
+	public void deveReconciliarOSaldoSemPerderAEfetivacaoFeitaDuranteAReconciliacao() throws Exception {
+		//Cenário: a efetivação começa depois que a reconciliação travou a linha do saldo e antes de ela somar os
+		//lançamentos
+		Usuario usuario = criarUsuario();
+		service.atualizarStatus(service.salvar(criarLancamento(usuario, 10)).getId(), StatusLancamento.EFETIVADO);
+		Long pendente = service.salvar(criarLancamento(usuario, 100)).getId();
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AtomicReference<Future<?>> efetivacao = new AtomicReference<>();
+		Answer<?> consultaReal = Mockito.mockingDetails(lancamentoRepository).getMockCreationSettings().getDefaultAnswer();
+		Mockito.doAnswer(invocacao -> {
+			if(efetivacao.get() == null && invocacao.getArgument(0).equals(usuario.getId())) {
+				efetivacao.set(executor.submit(() -> service.atualizarStatus(pendente, StatusLancamento.EFETIVADO)));
+				Thread.sleep(300); // Tempo para a efetivação gravar o lançamento e parar na trava do saldo
+				Assertions.assertThat(efetivacao.get().isDone()).isFalse();
+			}
+			return consultaReal.answer(invocacao);
+		}).when(lancamentoRepository).obterTotaisPorTipoEStatus(Mockito.anyLong());
+		
+		try {
+			//Execução
+			int divergencias = saldoUsuario.reconciliar();
+			efetivacao.get().get();
+			
+			//Verificação
+			Assertions.assertThat(divergencias).isZero();
+			Assertions.assertThat(saldoRepository.findById(usuario.getId()).get().getReceitas())
+					.isEqualByComparingTo("110");
+		}finally {
+			executor.shutdown();
+		}
+	}
+
+	private List<Long> criarPendentes(Usuario usuario, int valor) {
+		List<Long> ids = new ArrayList<>();
+		for(int i = 0; i < GRAVACOES_SIMULTANEAS; i++) {
+			ids.add(service.salvar(criarLancamento(usuario, valor)).getId());
+		}
+		return ids;
+	}
+
+	//Todas as threads começam juntas; o erro de qualquer uma falha o teste
+	private <T> void executarJuntos(List<T> itens, Consumer<T> gravacao) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(itens.size());
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<?>> resultados = new ArrayList<>();
+		
+		for(T item : itens) {
+			resultados.add(executor.submit(() -> {
+				largada.await();
+				gravacao.accept(item);
+				return null;
+			}));
+		}
+		largada.countDown();
+		
+		try {
+			for(Future<?> resultado : resultados) {
+				resultado.get();
+			}
+		}finally {
+			executor.shutdown();
+		}
+	}
+
+	private Usuario criarUsuario() {
+		return usuarioRepository.save(Usuario.builder().nome("usuario")
+				.email("concorrencia" + SEQUENCIA_EMAIL.incrementAndGet() + "@email.com").senha("senha").build());
+	}
+
+	private Lancamento criarLancamento(Usuario usuario, int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(TipoLancamento.RECEITA);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+
+}
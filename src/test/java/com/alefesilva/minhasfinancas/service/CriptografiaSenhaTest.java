@@ -0,0 +1,168 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.alefesilva.minhasfinancas.api.dto.UsuarioDTO;
+import com.alefesilva.minhasfinancas.api.resource.UsuarioResource;
+import com.alefesilva.minhasfinancas.exception.ServicoSobrecarregadoException;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.impl.CriptografiaSenha;
+import com.alefesilva.minhasfinancas.service.impl.LimitadorTentativasLogin;
+import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+import com.alefesilva.minhasfinancas.service.impl.UsuarioServiceImpl;
+import com.alefesilva.minhasfinancas.service.impl.ValidadeTokenUsuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Pool do BCrypt com uma thread e fila de uma posição: um hash rodando (preso pelo encoder até a liberação) e outro
+ * esperando já lotam o pool, a partir daí as requisições são recusadas na hora.
+ */
+public class CriptografiaSenhaTest {
+	
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	
+	CountDownLatch liberacao = new CountDownLatch(1);
+	
+	ExecutorService clientes = Executors.newFixedThreadPool(2);
+	
+	@AfterEach
+	public void encerrar() {
+		liberacao.countDown();
+		clientes.shutdownNow();
+	}
+
+	@Test
+	public void deveRecusarNaHoraQuandoAFilaEstiverCheia() throws Exception {
+		//Cenário
+		CriptografiaSenha criptografia = new CriptografiaSenha(encoderPreso(), registry, 1, 1, 5000);
+		lotar(criptografia);
+		
+		//Execução
+		Throwable disponibilidade = Assertions.catchThrowable(criptografia::verificarDisponibilidade);
+		long inicio = System.nanoTime();
+		Throwable criptografar = Assertions.catchThrowable( () -> criptografia.criptografar("senha") );
+		
+		//Verificação (sem esperar o timeout de 5s)
+		Assertions.assertThat(disponibilidade).isInstanceOf(ServicoSobrecarregadoException.class);
+		Assertions.assertThat(criptografar).isInstanceOf(ServicoSobrecarregadoException.class);
+		Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(1000);
+		Assertions.assertThat(registry.get("seguranca.senha.recusadas").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	public void deveResponder503ComRetryAfterNoLoginENoCadastroComAFilaCheia() throws Exception {
+		//Cenário
+		CriptografiaSenha criptografia = new CriptografiaSenha(encoderPreso(), registry, 1, 1, 5000);
+		UsuarioRepository repository = Mockito.mock(UsuarioRepository.class);
+		SecurityUserDetailsService userDetailsService = new SecurityUserDetailsService(repository, 100, 300);
+		UsuarioServiceImpl usuarioService = new UsuarioServiceImpl(repository, criptografia,
+				new ValidadeTokenUsuario(userDetailsService), userDetailsService, registry);
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(new UsuarioResource(usuarioService,
+				Mockito.mock(LancamentoService.class), Mockito.mock(JwtService.class), new LimitadorTentativasLogin(15, 5, 20)))
+				.build();
+		lotar(criptografia);
+		
+		//Execução e verificação
+		mvc.perform(MockMvcRequestBuilders.post("/api/usuarios/autenticar")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(json(UsuarioDTO.builder().email("usuario@email.com").senha("senha").build())))
+			.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+		
+		mvc.perform(MockMvcRequestBuilders.post("/api/usuarios")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(json(UsuarioDTO.builder().nome("novo").email("novo@email.com").senha("senha").build())))
+			.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+		
+		//O login recusado nem chega a consultar o banco
+		Mockito.verify(repository, Mockito.never()).findByEmail(Mockito.anyString());
+		Assertions.assertThat(registry.get("seguranca.login").tag("resultado", "recusado").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void deveRegistrarOTempoDeCadaOperacaoNoTimerDaSenha() {
+		//Cenário
+		CriptografiaSenha criptografia = new CriptografiaSenha(new BCryptPasswordEncoder(4), registry, 1, 10, 5000);
+		
+		//Execução
+		String senhaCriptografada = criptografia.criptografar("senha");
+		boolean confere = criptografia.conferir("senha", senhaCriptografada);
+		boolean naoConfere = criptografia.conferir("outra", senhaCriptografada);
+		
+		//Verificação
+		Assertions.assertThat(confere).isTrue();
+		Assertions.assertThat(naoConfere).isFalse();
+		Assertions.assertThat(registry.get("seguranca.senha").tag("operacao", "criptografar").timer().count()).isEqualTo(1);
+		Assertions.assertThat(registry.get("seguranca.senha").tag("operacao", "conferir").timer().count()).isEqualTo(2);
+		Assertions.assertThat(registry.get("seguranca.senha").tag("operacao", "conferir").timer()
+				.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+		Assertions.assertThat(registry.get("seguranca.senha.recusadas").counter().count()).isZero();
+	}
+
+	@Test
+	public void deveApontarHashComCustoMenorQueOConfigurado() {
+		//Cenário
+		CriptografiaSenha criptografia = new CriptografiaSenha(new BCryptPasswordEncoder(6), registry, 1, 10, 5000);
+		
+		//Execução e verificação
+		Assertions.assertThat(criptografia.precisaAtualizar(new BCryptPasswordEncoder(4).encode("senha"))).isTrue();
+		Assertions.assertThat(criptografia.precisaAtualizar(new BCryptPasswordEncoder(6).encode("senha"))).isFalse();
+	}
+
+	//Um hash preso no encoder e outro na fila: espera a fila (gauge seguranca.senha.fila) chegar a um
+	private void lotar(CriptografiaSenha criptografia) throws Exception {
+		for(int i = 0; i < 2; i++) {
+			clientes.submit( () -> criptografia.criptografar("senha") );
+		}
+		
+		long limite = System.currentTimeMillis() + 5000;
+		while(registry.get("seguranca.senha.fila").gauge().value() < 1) {
+			Assertions.assertThat(System.currentTimeMillis()).isLessThan(limite);
+			Thread.sleep(10);
+		}
+	}
+
+	private PasswordEncoder encoderPreso() {
+		return new PasswordEncoder() {
+			
+			@Override
+			public String encode(CharSequence senha) {
+				try {
+					liberacao.await();
+				}catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "hash";
+			}
+			
+			@Override
+			public boolean matches(CharSequence senha, String senhaCriptografada) {
+				return false;
+			}
+		};
+	}
+
+	private String json(UsuarioDTO dto) throws Exception {
+		return new ObjectMapper().writeValueAsString(dto);
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.FormatoExportacao;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.service.impl.ExportacaoLancamentoServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({ ExportacaoLancamentoServiceImpl.class, JacksonAutoConfiguration.class })
+public class ExportacaoLancamentoServiceTest {
+	
+	@Autowired
+	ExportacaoLancamentoService service;
+	
+	@Autowired
+	ObjectMapper objectMapper;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	Usuario usuario;
+	
+	@BeforeEach
+	public void criarLancamentos() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("exportacao@email.com").build());
+		persistirLancamento("Aluguel; apartamento \"centro\"", TipoLancamento.DESPESA);
+		persistirLancamento("Salário", TipoLancamento.RECEITA);
+		persistirLancamento("Mercado", TipoLancamento.DESPESA);
+	}
+
+	@Test
+	public void deveExportarEmCsvComOsMesmosFiltrosDaBusca() throws Exception {
+		//Cenário
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		filtro.setTipo(TipoLancamento.DESPESA);
+		
+		//Execução
+		String[] linhas = exportar(filtro, FormatoExportacao.CSV);
+		
+		//Verificação
+		Assertions.assertThat(linhas).hasSize(3); // Cabeçalho + 2 despesas
+		Assertions.assertThat(linhas[0]).startsWith("id;descricao");
+		Assertions.assertThat(linhas[1]).contains(";\"Aluguel; apartamento \"\"centro\"\"\";").contains(";DESPESA;PENDENTE;");
+		Assertions.assertThat(linhas[2]).contains(";Mercado;");
+	}
+
+	@Test
+	public void deveExportarUmJsonPorLinha() throws Exception {
+		//Cenário
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		filtro.setDescricao("SALÁ");
+		
+		//Execução
+		String[] linhas = exportar(filtro, FormatoExportacao.NDJSON);
+		
+		//Verificação
+		Assertions.assertThat(linhas).hasSize(1);
+		JsonNode lancamento = objectMapper.readTree(linhas[0]);
+		Assertions.assertThat(lancamento.get("descricao").asText()).isEqualTo("Salário");
+		Assertions.assertThat(lancamento.get("usuario").asLong()).isEqualTo(usuario.getId());
+	}
+
+	@Test
+	public void deveExportarOsLancamentosSemDescricaoQuandoNaoHaFiltroDeDescricao() throws Exception {
+		//Cenário
+		persistirLancamento(null, TipoLancamento.RECEITA);
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		
+		//Execução
+		String[] linhas = exportar(filtro, FormatoExportacao.CSV);
+		
+		//Verificação
+		Assertions.assertThat(linhas).hasSize(5); // Cabeçalho + os 4 lançamentos do usuário
+	}
+
+	private String[] exportar(Lancamento filtro, FormatoExportacao formato) throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		service.exportar(filtro, formato, saida);
+		return new String(saida.toByteArray(), StandardCharsets.UTF_8).split("\n");
+	}
+
+	private void persistirLancamento(String descricao, TipoLancamento tipo) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setDescricao(descricao);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(BigDecimal.valueOf(10));
+		entityManager.persist(lancamento);
+	}
+
+}
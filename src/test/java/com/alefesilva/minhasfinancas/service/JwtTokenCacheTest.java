@@ -0,0 +1,102 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.alefesilva.minhasfinancas.service.impl.JwtTokenCache;
+
+/*
+ * Validade das entradas do cache de tokens: vencem no "exp" do token ou no TTL (o que vier antes) e o cache respeita o
+ * tamanho máximo. O tempo do cache é controlado pelo relógio do teste, o "exp" é sempre relativo à hora atual.
+ */
+public class JwtTokenCacheTest {
+	
+	AtomicLong agoraEmNanos = new AtomicLong();
+	
+	@Test
+	public void deveRemoverOTokenNoVencimentoDoExp() {
+		//Cenário (TTL bem maior que a validade do token)
+		JwtTokenCache cache = criarCache(100, 300);
+		cache.armazenar("token", tokenVencendoEm(2000));
+		
+		//Execução e verificação
+		avancar(1000);
+		Assertions.assertThat(cache.obter("token")).isNotNull();
+		
+		avancar(1500);
+		Assertions.assertThat(cache.obter("token")).isNull();
+	}
+
+	@Test
+	public void deveRemoverOTokenNoTtlAntesDoExp() {
+		//Cenário (token vale 30 minutos, TTL de 60 segundos)
+		JwtTokenCache cache = criarCache(100, 60);
+		cache.armazenar("token", tokenVencendoEm(TimeUnit.MINUTES.toMillis(30)));
+		
+		//Execução e verificação
+		avancar(TimeUnit.SECONDS.toMillis(59));
+		Assertions.assertThat(cache.obter("token")).isNotNull();
+		
+		avancar(TimeUnit.SECONDS.toMillis(2));
+		Assertions.assertThat(cache.obter("token")).isNull();
+	}
+
+	@Test
+	public void naoDeveArmazenarTokenJaVencido() {
+		//Cenário
+		JwtTokenCache cache = criarCache(100, 300);
+		
+		//Execução
+		cache.armazenar("token", tokenVencendoEm(-1000));
+		
+		//Verificação
+		Assertions.assertThat(cache.obter("token")).isNull();
+	}
+
+	@Test
+	public void deveRespeitarOTamanhoMaximo() {
+		//Cenário
+		JwtTokenCache cache = criarCache(5, 300);
+		
+		//Execução
+		for(int i = 0; i < 50; i++) {
+			cache.armazenar("token" + i, tokenVencendoEm(TimeUnit.MINUTES.toMillis(30)));
+		}
+		
+		//Verificação
+		Assertions.assertThat(cache.tamanho()).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	public void deveContarAcertosEFalhas() {
+		//Cenário
+		JwtTokenCache cache = criarCache(100, 300);
+		
+		//Execução
+		cache.obter("token");
+		cache.armazenar("token", tokenVencendoEm(TimeUnit.MINUTES.toMillis(30)));
+		cache.obter("token");
+		cache.obter("token");
+		
+		//Verificação
+		Assertions.assertThat(cache.getFalhas()).isEqualTo(1);
+		Assertions.assertThat(cache.getAcertos()).isEqualTo(2);
+	}
+
+	private JwtTokenCache criarCache(long tamanhoMaximo, long ttlSegundos) {
+		return new JwtTokenCache(tamanhoMaximo, ttlSegundos, agoraEmNanos::get);
+	}
+
+	private void avancar(long millis) {
+		agoraEmNanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+
+	private static TokenVerificado tokenVencendoEm(long millis) {
+		long agora = System.currentTimeMillis();
+		return new TokenVerificado("usuario@email.com", 1l, "usuario", agora, agora + millis);
+	}
+
+}
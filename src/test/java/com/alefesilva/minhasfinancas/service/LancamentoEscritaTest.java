@@ -0,0 +1,158 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.math.BigDecimal;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultas;
+import com.alefesilva.minhasfinancas.consultas.ContadorConsultasConfiguration;
+import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
+import com.alefesilva.minhasfinancas.model.entity.Lancamento;
+import com.alefesilva.minhasfinancas.model.entity.SaldoUsuario;
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
+import com.alefesilva.minhasfinancas.model.enums.TipoLancamento;
+import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoSaldoUsuario;
+import com.alefesilva.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+/*
+ * Quantidade de comandos SQL das escritas de um lançamento pelo id (máximos documentados no LancamentoServiceImpl).
+ * As linhas do resumo mensal e do saldo já existem no cenário, e o usuário entra só como referência.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({ LancamentoServiceImpl.class, AgregadoSaldoUsuario.class, AgregadoResumoMensal.class,
+		ContadorConsultasConfiguration.class })
+public class LancamentoEscritaTest {
+	
+	@Autowired
+	LancamentoServiceImpl service;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Autowired
+	ContadorConsultas consultas;
+	
+	Usuario usuario;
+	
+	Lancamento pendente;
+	
+	Lancamento efetivado;
+	
+	@BeforeEach
+	public void criarCenario() {
+		usuario = entityManager.persist(Usuario.builder().nome("usuario").email("escrita@email.com").senha("senha").build());
+		
+		//Um lançamento em cada célula do resumo (PENDENTE e EFETIVADO de 11/2022), que também cria a linha do saldo
+		pendente = service.salvar(criarLancamento(100));
+		efetivado = service.salvar(criarLancamento(50));
+		service.atualizarStatus(efetivado.getId(), StatusLancamento.EFETIVADO);
+		
+		//Começa cada operação com o contexto de persistência vazio, como numa requisição nova
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void deveSalvarComNoMaximoDoisComandos() {
+		//Cenário
+		Lancamento lancamento = criarLancamento(30);
+		lancamento.setUsuario(entityManager.getEntityManager().getReference(Usuario.class, usuario.getId()));
+		
+		//Execução e verificação (insert + update do resumo)
+		executar(() -> service.salvar(lancamento));
+		consultas.verificar(0, 1, 1, 0);
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("50");
+	}
+
+	@Test
+	public void deveAtualizarComNoMaximoCincoComandos() {
+		//Cenário
+		Lancamento dados = criarLancamento(80);
+		dados.setDescricao("Lançamento alterado");
+		dados.setStatus(StatusLancamento.EFETIVADO);
+		dados.setUsuario(entityManager.getEntityManager().getReference(Usuario.class, usuario.getId()));
+		
+		//Execução (select + update + 2 updates no resumo + 1 no saldo)
+		executar(() -> service.atualizar(pendente.getId(), dados));
+		
+		//Verificação
+		consultas.verificar(1, 0, 4, 0);
+		Lancamento atualizado = entityManager.find(Lancamento.class, pendente.getId());
+		Assertions.assertThat(atualizado.getDescricao()).isEqualTo("Lançamento alterado");
+		Assertions.assertThat(atualizado.getDataCadastro()).isEqualTo(pendente.getDataCadastro());
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("130");
+	}
+
+	@Test
+	public void deveAtualizarOStatusComNoMaximoCincoComandos() {
+		//Execução (select da projeção + update do status + 2 updates no resumo + 1 no saldo)
+		executar(() -> {
+			ItemLancamento item = service.atualizarStatus(pendente.getId(), StatusLancamento.EFETIVADO);
+			Assertions.assertThat(item.getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		});
+		
+		//Verificação
+		consultas.verificar(1, 0, 4, 0);
+		Assertions.assertThat(entityManager.find(Lancamento.class, pendente.getId()).getStatus())
+				.isEqualTo(StatusLancamento.EFETIVADO);
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("150");
+	}
+
+	@Test
+	public void deveDeletarComNoMaximoQuatroComandos() {
+		//Execução (select dos valores + delete + 1 update no resumo + 1 no saldo)
+		executar(() -> service.deletar(efetivado.getId()));
+		
+		//Verificação
+		consultas.verificar(1, 0, 2, 1);
+		Assertions.assertThat(entityManager.find(Lancamento.class, efetivado.getId())).isNull();
+		Assertions.assertThat(saldoGravado().getReceitas()).isEqualByComparingTo("0");
+	}
+
+	@Test
+	public void naoDeveAlterarLancamentoInexistente() {
+		//Execução e verificação
+		Assertions.catchThrowableOfType( () -> service.atualizarStatus(0l, StatusLancamento.EFETIVADO), RegraNegocioException.class );
+		Assertions.catchThrowableOfType( () -> service.deletar(0l), RegraNegocioException.class );
+		Assertions.catchThrowableOfType( () -> service.atualizar(0l, criarLancamento(10)), RegraNegocioException.class );
+	}
+
+	private void executar(Runnable operacao) {
+		consultas.zerar();
+		operacao.run();
+		entityManager.flush(); // O teste não faz commit, então o que ficou pendente é enviado aqui
+	}
+
+	private Lancamento criarLancamento(int valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(TipoLancamento.RECEITA);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		return lancamento;
+	}
+
+	private SaldoUsuario saldoGravado() {
+		entityManager.flush();
+		entityManager.clear();
+		return entityManager.find(SaldoUsuario.class, usuario.getId());
+	}
+
+}
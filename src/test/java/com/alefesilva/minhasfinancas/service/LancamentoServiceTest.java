@@ -1,6 +1,7 @@
 package com.alefesilva.minhasfinancas.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -11,7 +12,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.data.domain.Example;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -21,6 +21,9 @@ import com.alefesilva.minhasfinancas.model.entity.Usuario;
 import com.alefesilva.minhasfinancas.model.enums.StatusLancamento;
 import com.alefesilva.minhasfinancas.model.repository.LancamentoRepository;
 import com.alefesilva.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.alefesilva.minhasfinancas.model.repository.projection.ItemLancamento;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoResumoMensal;
+import com.alefesilva.minhasfinancas.service.impl.AgregadoSaldoUsuario;
 import com.alefesilva.minhasfinancas.service.impl.LancamentoServiceImpl;
 
 @ExtendWith(SpringExtension.class)
@@ -39,6 +42,12 @@ public class LancamentoServiceTest {
 	@MockBean
 	LancamentoRepository repository;
 	
+	@MockBean
+	AgregadoSaldoUsuario saldoUsuario;
+	
+	@MockBean
+	AgregadoResumoMensal resumoMensal;
+	
 	@Test
 	public void deveSalvarUmLancamento() {
 		//Cenário
@@ -71,6 +80,28 @@ public class LancamentoServiceTest {
 		
 	}
 	
+	@Test
+	public void deveSalvarOsLancamentosValidosDoLoteERetornarOErroDasLinhasInvalidas() {
+		//Cenário
+		Lancamento valido = LancamentoRepositoryTest.criarLancamento();
+		Lancamento invalido = LancamentoRepositoryTest.criarLancamento();
+		invalido.setDescricao("");
+		Lancamento outroValido = LancamentoRepositoryTest.criarLancamento();
+		
+		Mockito.doNothing().when(service).validar(valido);
+		Mockito.doNothing().when(service).validar(outroValido);
+		
+		//Execução
+		ResultadoLote resultado = service.salvarLote(Arrays.asList(valido, invalido, outroValido));
+		
+		//Verificação
+		Assertions.assertThat(resultado.getGravados()).isEqualTo(2);
+		Assertions.assertThat(resultado.getErros()).hasSize(1);
+		Assertions.assertThat(resultado.getErros().get(0).getLinha()).isEqualTo(1);
+		Assertions.assertThat(resultado.getErros().get(0).getMensagem()).isEqualTo("Informe uma Descrição válida.");
+		Mockito.verify(repository).saveAll(Arrays.asList(valido, outroValido));
+	}
+	
 	@Test
 	public void deveAtualizarUmLancamento() {
 		//Cenário	
@@ -138,21 +169,55 @@ public class LancamentoServiceTest {
 		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
 		lancamento.setId(1l);
 		
-		//Cria uma lista com um lancamento
-		List<Lancamento> lista = Arrays.asList(lancamento);
+		//Cria uma lista com um item (a busca retorna apenas as colunas da listagem, não a entidade)
+		ItemLancamento item = new ItemLancamento(1l, lancamento.getDescricao(), lancamento.getMes(), lancamento.getAno(),
+				202211, lancamento.getValor(), lancamento.getTipo(), lancamento.getStatus(), 1l);
+		List<ItemLancamento> lista = Arrays.asList(item);
 		
-		//Procura um lancamento do tipo exemple e retorna a lista
-		Mockito.when(repository.findAll(Mockito.any(Example.class))).thenReturn(lista);
+		//Sem cursor e sem limite
+		Mockito.when(repository.buscarItens(lancamento, null, null, null)).thenReturn(lista);
 		
-		List<Lancamento> resultado = service.buscar(lancamento);
+		List<ItemLancamento> resultado = service.buscar(lancamento);
 		
 		//Verificações
 		Assertions
 		.assertThat(resultado)
 		.isNotEmpty() //Não é vazio
 		.hasSize(1) //Tem 1 item na lista
-		.contains(lancamento); //contém 1 lançamento
+		.contains(item); //contém 1 lançamento
+		
+	}
+	
+	@Test
+	public void deveRetornarOCursorDaProximaPaginaQuandoHouverMaisLancamentos() {
+		//Cenário
+		Lancamento filtro = LancamentoRepositoryTest.criarLancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
+		
+		List<ItemLancamento> itens = new ArrayList<>();
+		for(long id = 1; id <= 3; id++) {
+			itens.add(new ItemLancamento(id, filtro.getDescricao(), 11, 2022, 202211, filtro.getValor(), filtro.getTipo(),
+					filtro.getStatus(), 1l));
+		}
+		
+		Mockito.when(repository.buscarItens(filtro, null, null, 3)).thenReturn(itens);
+		
+		//Execução (pede 2 por página, o repository consulta 3 para saber se existe próxima)
+		Pagina<ItemLancamento> pagina = service.buscarPagina(filtro, null, 2);
+		
+		//Verificação
+		Assertions.assertThat(pagina.getItens()).hasSize(2);
+		CursorLancamento proximo = CursorLancamento.decodificar(pagina.getProximo());
+		Assertions.assertThat(proximo.getCompetencia()).isEqualTo(202211);
+		Assertions.assertThat(proximo.getId()).isEqualTo(2l);
+	}
+	
+	@Test
+	public void deveLancarErroAoBuscarComCursorInvalido() {
+		Lancamento filtro = LancamentoRepositoryTest.criarLancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
 		
+		Assertions.catchThrowableOfType( () -> service.buscarPagina(filtro, "cursor-invalido", 10), RegraNegocioException.class );
 	}
 	
 	@Test
@@ -0,0 +1,57 @@
+package com.alefesilva.minhasfinancas.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.alefesilva.minhasfinancas.exception.MuitasTentativasException;
+import com.alefesilva.minhasfinancas.service.impl.LimitadorTentativasLogin;
+
+public class LimitadorTentativasLoginTest {
+
+	private static final String EMAIL = "usuario@email.com";
+	
+	private static final String IP = "10.0.0.1";
+	
+	LimitadorTentativasLogin limitador = new LimitadorTentativasLogin(15, 5, 20);
+	
+	@Test
+	public void deveBloquearOEmailDepoisDeAtingirOLimiteDeFalhas() {
+		//Cenário (IPs diferentes para não atingir o limite por IP)
+		for(int i = 0; i < 5; i++) {
+			limitador.registrarFalha(EMAIL, "10.0.0." + i);
+		}
+		
+		//Execução e verificação (maiúsculas/espaços contam como o mesmo email)
+		Throwable erro = Assertions.catchThrowable( () -> limitador.verificarBloqueio(" Usuario@Email.com", "10.0.1.1") );
+		Assertions.assertThat(erro).isInstanceOf(MuitasTentativasException.class);
+	}
+	
+	@Test
+	public void deveZerarAsFalhasDoEmailAposLoginComSucesso() {
+		//Cenário
+		for(int i = 0; i < 4; i++) {
+			limitador.registrarFalha(EMAIL, IP);
+		}
+		
+		//Execução
+		limitador.registrarSucesso(EMAIL);
+		limitador.registrarFalha(EMAIL, IP);
+		
+		//Verificação
+		Assertions.assertThatCode( () -> limitador.verificarBloqueio(EMAIL, IP) ).doesNotThrowAnyException();
+	}
+	
+	@Test
+	public void deveBloquearOIpQueTentaVariosEmails() {
+		//Cenário
+		for(int i = 0; i < 20; i++) {
+			limitador.registrarFalha("usuario" + i + "@email.com", IP);
+		}
+		
+		//Execução e verificação
+		Throwable erro = Assertions.catchThrowable( () -> limitador.verificarBloqueio("outro@email.com", IP) );
+		Assertions.assertThat(erro).isInstanceOf(MuitasTentativasException.class);
+		Assertions.assertThatCode( () -> limitador.verificarBloqueio("outro@email.com", "10.0.0.2") ).doesNotThrowAnyException();
+	}
+	
+}
@@ -0,0 +1,106 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class SecurityUserDetailsServiceTest {
+	
+	private static final String EMAIL = "usuario@email.com";
+	
+	@SpyBean
+	SecurityUserDetailsService service;
+	
+	@MockBean
+	UsuarioRepository repository;
+	
+	@BeforeEach
+	public void limparCache() {
+		//O contexto do Spring é reaproveitado entre os testes, então o cache também
+		service.invalidar(EMAIL);
+	}
+
+	@Test
+	public void deveConsultarOBancoUmaUnicaVezEmUmaRajadaDeLoginsDoMesmoUsuario() throws Exception {
+		//Cenário
+		Usuario usuario = Usuario.builder().id(1l).email(EMAIL).senha("senhaCriptografada").build();
+		Mockito.when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(usuario));
+		
+		int requisicoes = 50;
+		long acertosAntes = service.estatisticas().hitCount();
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<UserDetails>> resultados = new ArrayList<>();
+		
+		//Execução (todas as threads começam juntas)
+		for(int i = 0; i < requisicoes; i++) {
+			resultados.add(executor.submit(() -> {
+				largada.await();
+				return service.loadUserByUsername(EMAIL);
+			}));
+		}
+		largada.countDown();
+		
+		for(Future<UserDetails> resultado : resultados) {
+			Assertions.assertThat(resultado.get().getUsername()).isEqualTo(EMAIL);
+		}
+		executor.shutdown();
+		
+		//Verificação
+		Mockito.verify(repository, Mockito.times(1)).findByEmail(EMAIL);
+		Assertions.assertThat(service.estatisticas().hitCount() - acertosAntes).isEqualTo(requisicoes - 1);
+	}
+
+	@Test
+	public void deveConsultarOBancoNovamenteDepoisDeInvalidarOUsuario() {
+		//Cenário
+		Usuario usuario = Usuario.builder().id(1l).email(EMAIL).senha("senhaAntiga").build();
+		Mockito.when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(usuario));
+		service.loadUserByUsername(EMAIL);
+		
+		Usuario usuarioAlterado = Usuario.builder().id(1l).email(EMAIL).senha("senhaNova").build();
+		Mockito.when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(usuarioAlterado));
+		
+		//Execução
+		service.invalidar(EMAIL);
+		UserDetails usuarioCarregado = service.loadUserByUsername(EMAIL);
+		
+		//Verificação
+		Assertions.assertThat(usuarioCarregado.getPassword()).isEqualTo("senhaNova");
+		Mockito.verify(repository, Mockito.times(2)).findByEmail(EMAIL);
+	}
+
+	@Test
+	public void naoDeveGuardarNoCacheEmailNaoCadastrado() {
+		//Cenário
+		Mockito.when(repository.findByEmail(Mockito.anyString())).thenReturn(Optional.empty());
+		
+		//Execução e verificação
+		Assertions.catchThrowableOfType( () -> service.loadUserByUsername(EMAIL), UsernameNotFoundException.class );
+		Assertions.catchThrowableOfType( () -> service.loadUserByUsername(EMAIL), UsernameNotFoundException.class );
+		Mockito.verify(repository, Mockito.times(2)).findByEmail(EMAIL);
+	}
+
+}
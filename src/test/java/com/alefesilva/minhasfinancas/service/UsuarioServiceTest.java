@@ -1,16 +1,24 @@
 package com.alefesilva.minhasfinancas.service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -18,23 +26,38 @@ import com.alefesilva.minhasfinancas.exception.ErroAutenticacao;
 import com.alefesilva.minhasfinancas.exception.RegraNegocioException;
 import com.alefesilva.minhasfinancas.model.entity.Usuario;
 import com.alefesilva.minhasfinancas.model.repository.UsuarioRepository;
+import com.alefesilva.minhasfinancas.service.impl.CriptografiaSenha;
+import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
 import com.alefesilva.minhasfinancas.service.impl.UsuarioServiceImpl;
 
 @SpringBootTest
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 public class UsuarioServiceTest {
-
+	
 	private static final String EMAIL = "emailTeste@gmail.com";
-
+	
 	//private static final String NOME = "usuarioTeste";
-
+	
 	@SpyBean
 	UsuarioServiceImpl service;
-
+	
 	@MockBean // Cria uma instância de UsuarioRepository alocada ao invés da real
 	UsuarioRepository repository;
 	
+	@Autowired
+	SecurityUserDetailsService userDetailsService;
+	
+	@Autowired
+	CriptografiaSenha criptografia;
+	
+	@BeforeEach
+	public void limparCache() {
+		//O login passa pelo cache de usuários, que é reaproveitado entre os testes junto com o contexto do Spring
+		userDetailsService.invalidar(EMAIL);
+		userDetailsService.invalidar("email@teste.com");
+	}
+	
 	@Test
 	public void deveSalvarUmUsuario() {
 		Assertions.assertDoesNotThrow(() ->{
@@ -95,6 +118,74 @@ public class UsuarioServiceTest {
 		org.assertj.core.api.Assertions.assertThat(result).isNotNull();
 	}
 	
+	@Test
+	public void deveConsultarOBancoUmaUnicaVezEmUmaRajadaDeLoginsDoMesmoUsuario() throws Exception {
+		//cenário
+		String senha = "Senhateste";
+		Usuario usuario = Usuario.builder().id(1l).nome("Teste").email(EMAIL).senha(criptografia.criptografar(senha)).build();
+		Mockito.when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(usuario));
+		
+		int requisicoes = 20;
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<Usuario>> resultados = new ArrayList<>();
+		
+		//ação (todas as threads começam juntas)
+		for(int i = 0; i < requisicoes; i++) {
+			resultados.add(executor.submit(() -> {
+				largada.await();
+				return service.autenticar(EMAIL, senha);
+			}));
+		}
+		largada.countDown();
+		
+		for(Future<Usuario> resultado : resultados) {
+			org.assertj.core.api.Assertions.assertThat(resultado.get().getId()).isEqualTo(1l);
+		}
+		executor.shutdown();
+		
+		//verificação
+		Mockito.verify(repository, Mockito.times(1)).findByEmail(EMAIL);
+	}
+	
+	@Test
+	public void deveRefazerOHashDaSenhaComCustoDesatualizadoNoLogin() {
+		//cenário (hash gerado com custo 4, abaixo do seguranca.bcrypt.custo)
+		String senha = "Senhateste";
+		Usuario usuario = Usuario.builder().id(1l).email(EMAIL).senha(new BCryptPasswordEncoder(4).encode(senha)).build();
+		Mockito.when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(usuario));
+		
+		//ação
+		service.autenticar(EMAIL, senha);
+		
+		//verificação (hash novo no custo atual, que confere com a mesma senha)
+		ArgumentCaptor<Usuario> salvo = ArgumentCaptor.forClass(Usuario.class);
+		Mockito.verify(repository).save(salvo.capture());
+		org.assertj.core.api.Assertions.assertThat(salvo.getValue().getSenha()).isNotEqualTo(usuario.getSenha());
+		org.assertj.core.api.Assertions.assertThat(criptografia.precisaAtualizar(salvo.getValue().getSenha())).isFalse();
+		org.assertj.core.api.Assertions.assertThat(criptografia.conferir(senha, salvo.getValue().getSenha())).isTrue();
+		
+		//O próximo login já lê o hash novo do banco, e não o antigo do cache
+		Mockito.when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(salvo.getValue()));
+		service.autenticar(EMAIL, senha);
+		Mockito.verify(repository, Mockito.times(2)).findByEmail(EMAIL);
+		Mockito.verify(repository, Mockito.times(1)).save(Mockito.any(Usuario.class));
+	}
+	
+	@Test
+	public void naoDeveRefazerOHashDaSenhaComCustoAtual() {
+		//cenário
+		String senha = "Senhateste";
+		Usuario usuario = Usuario.builder().id(1l).email(EMAIL).senha(criptografia.criptografar(senha)).build();
+		Mockito.when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(usuario));
+		
+		//ação
+		service.autenticar(EMAIL, senha);
+		
+		//verificação
+		Mockito.verify(repository, Mockito.never()).save(Mockito.any(Usuario.class));
+	}
+	
 	@Test
 	public void deveLancarErroQuandoNaoEncontrarUsuarioCadastradoComOEmailInformado() {
 		//cenário anyString indica ser um valor qualquer
@@ -123,7 +214,7 @@ public class UsuarioServiceTest {
 		Assertions.assertDoesNotThrow(() -> { // Para não disparar um excessão
 			// cenario
 			Mockito.when(repository.existsByEmail(Mockito.anyString())).thenReturn(false);
-
+			
 			// ação
 			service.validarEmail(EMAIL);
 		});
@@ -134,11 +225,11 @@ public class UsuarioServiceTest {
 		Assertions.assertThrows(RegraNegocioException.class, () -> { // Dispara Excessão se email já existir
 			// cenário
 			Mockito.when(repository.existsByEmail(Mockito.anyString())).thenReturn(true);
-
+			
 			// ação
 			service.validarEmail(EMAIL);
 		});
-
+		
 	}
 
 }
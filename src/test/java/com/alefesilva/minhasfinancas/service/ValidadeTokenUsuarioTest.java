@@ -0,0 +1,97 @@
+package com.alefesilva.minhasfinancas.service;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.alefesilva.minhasfinancas.model.entity.Usuario;
+import com.alefesilva.minhasfinancas.service.impl.SecurityUserDetailsService;
+import com.alefesilva.minhasfinancas.service.impl.ValidadeTokenUsuario;
+
+public class ValidadeTokenUsuarioTest {
+	
+	static final String EMAIL = "usuario@email.com";
+	
+	SecurityUserDetailsService userDetailsService = Mockito.mock(SecurityUserDetailsService.class);
+	
+	ValidadeTokenUsuario validade = new ValidadeTokenUsuario(userDetailsService);
+	
+	Usuario usuario = Usuario.builder().id(1l).nome("usuario").email(EMAIL).build();
+	
+	@BeforeEach
+	public void gravarUsuario() {
+		Mockito.when(userDetailsService.buscarUsuario(EMAIL)).thenAnswer(invocacao -> Optional.of(usuario));
+	}
+
+	@Test
+	public void deveAceitarTokenDeUsuarioSemInvalidacao() {
+		Assertions.assertThat(validade.isTokenAceito(token(1l, System.currentTimeMillis()))).isTrue();
+	}
+
+	@Test
+	public void deveRecusarTokenEmitidoAntesOuNoMesmoMilissegundoDaInvalidacao() {
+		//Cenário
+		long antesDoLogout = System.currentTimeMillis();
+		
+		//Execução
+		validade.invalidarTokens(usuario);
+		
+		//Verificação
+		long logout = usuario.getTokensInvalidadosEm();
+		Assertions.assertThat(validade.isTokenAceito(token(1l, antesDoLogout - TimeUnit.SECONDS.toMillis(5)))).isFalse();
+		Assertions.assertThat(validade.isTokenAceito(token(1l, antesDoLogout))).isFalse();
+		Assertions.assertThat(validade.isTokenAceito(token(1l, logout))).isFalse();
+	}
+
+	@Test
+	public void deveAceitarONovoLoginNoMesmoSegundoDoLogout() {
+		//Execução
+		validade.invalidarTokens(usuario);
+		
+		//Verificação (antes o "iat" em segundos recusava qualquer token emitido no segundo do logout)
+		Assertions.assertThat(validade.isTokenAceito(token(1l, usuario.getTokensInvalidadosEm() + 1))).isTrue();
+	}
+
+	@Test
+	public void naoDeveVoltarAInvalidacaoParaTras() {
+		//Cenário
+		long futuro = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+		usuario.setTokensInvalidadosEm(futuro);
+		
+		//Execução
+		validade.invalidarTokens(usuario);
+		
+		//Verificação
+		Assertions.assertThat(usuario.getTokensInvalidadosEm()).isEqualTo(futuro);
+	}
+
+	@Test
+	public void deveRecusarTokenDeUsuarioExcluido() {
+		//Cenário
+		Mockito.when(userDetailsService.buscarUsuario(EMAIL)).thenReturn(Optional.empty());
+		
+		//Execução e verificação
+		Assertions.assertThat(validade.isTokenAceito(token(1l, System.currentTimeMillis()))).isFalse();
+	}
+
+	@Test
+	public void deveRecusarTokenDeOutroCadastroComOMesmoEmail() {
+		//Usuário excluído e email cadastrado de novo: o id do token não é mais o dono do email
+		Assertions.assertThat(validade.isTokenAceito(token(2l, System.currentTimeMillis()))).isFalse();
+	}
+
+	@Test
+	public void deveRecusarTokenSemIdDeUsuario() {
+		Assertions.assertThat(validade.isTokenAceito(token(null, System.currentTimeMillis()))).isFalse();
+	}
+
+	private static TokenVerificado token(Long idUsuario, long emitidoEmMillis) {
+		return new TokenVerificado(EMAIL, idUsuario, "usuario", emitidoEmMillis,
+				System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(30));
+	}
+
+}